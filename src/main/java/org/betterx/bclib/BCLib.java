@@ -5,9 +5,11 @@ import org.betterx.bclib.api.v2.dataexchange.handler.autosync.*;
 import org.betterx.bclib.api.v2.generator.BCLibEndBiomeSource;
 import org.betterx.bclib.api.v2.generator.BCLibNetherBiomeSource;
 import org.betterx.bclib.api.v2.generator.GeneratorOptions;
+import org.betterx.bclib.api.v2.generator.map.BiomeTileStore;
 import org.betterx.bclib.api.v2.levelgen.LevelGenEvents;
 import org.betterx.bclib.api.v2.levelgen.biomes.BCLBiomeRegistry;
 import org.betterx.bclib.api.v2.levelgen.structures.BCLStructurePoolElementTypes;
+import org.betterx.bclib.api.v2.levelgen.structures.StructureNBT;
 import org.betterx.bclib.api.v2.levelgen.structures.TemplatePiece;
 import org.betterx.bclib.api.v2.levelgen.surface.rules.Conditions;
 import org.betterx.bclib.api.v2.poi.PoiManager;
@@ -81,6 +83,8 @@ public class BCLib implements ModInitializer {
         BCLibNetherBiomeSource.register();
         CraftingRecipes.init();
         BCLStructurePoolElementTypes.ensureStaticallyLoaded();
+        StructureNBT.registerReloadListener();
+        BiomeTileStore.registerLifecycleEvents();
         WorldConfig.registerModCache(MOD_ID);
         DataExchangeAPI.registerMod(MOD_ID);
         AnvilRecipe.register();
@@ -102,6 +106,9 @@ public class BCLib implements ModInitializer {
                         HelloServer.DESCRIPTOR,
                         RequestFiles.DESCRIPTOR,
                         SendFiles.DESCRIPTOR,
+                        SendFileSignatures.DESCRIPTOR,
+                        RequestFileBlocks.DESCRIPTOR,
+                        SendFileBlocks.DESCRIPTOR,
                         Chunker.DESCRIPTOR
                 )
         );
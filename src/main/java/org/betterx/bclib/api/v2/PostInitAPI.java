@@ -45,6 +45,26 @@ public class PostInitAPI {
     private static List<Consumer<Boolean>> postInitFunctions = Lists.newArrayList();
     private static List<TagKey<Block>> blockTags = Lists.newArrayList();
     private static List<TagKey<Item>> itemTags = Lists.newArrayList();
+    //wooden blocks that already have a tag that makes them mineable with an axe
+    private static final List<TagKey<Block>> NOT_MINEABLE_AXE = List.of(
+            BlockTags.WOODEN_DOORS,
+            BlockTags.WOODEN_BUTTONS,
+            BlockTags.WOODEN_SLABS,
+            BlockTags.WOODEN_FENCES,
+            BlockTags.WOODEN_STAIRS,
+            BlockTags.WOODEN_PRESSURE_PLATES,
+            BlockTags.WOODEN_TRAPDOORS,
+            CommonBlockTags.WOODEN_BARREL,
+            CommonBlockTags.WOODEN_CHEST,
+            CommonBlockTags.WOODEN_COMPOSTER,
+            CommonBlockTags.WORKBENCHES,
+            BlockTags.SIGNS,
+            BlockTags.PLANKS,
+            BlockTags.LOGS,
+            BlockTags.FENCE_GATES,
+            BlockTags.ALL_HANGING_SIGNS,
+            CommonBlockTags.BOOKSHELVES
+    );
 
     /**
      * Register a new function which will be called after all mods are initiated. Will be called on both client and server.
@@ -153,25 +173,7 @@ public class PostInitAPI {
                 TagManager.BLOCKS.add(block, MineableTags.SHEARS);
             }
             if (block instanceof AddMineableAxe) {
-                if (!TagManager.BLOCKS.contains(BlockTags.WOODEN_DOORS, block)
-                        && !TagManager.BLOCKS.contains(BlockTags.WOODEN_BUTTONS, block)
-                        && !TagManager.BLOCKS.contains(BlockTags.WOODEN_SLABS, block)
-                        && !TagManager.BLOCKS.contains(BlockTags.WOODEN_FENCES, block)
-                        && !TagManager.BLOCKS.contains(BlockTags.WOODEN_STAIRS, block)
-                        && !TagManager.BLOCKS.contains(BlockTags.WOODEN_PRESSURE_PLATES, block)
-                        && !TagManager.BLOCKS.contains(BlockTags.WOODEN_TRAPDOORS, block)
-                        && !TagManager.BLOCKS.contains(CommonBlockTags.WOODEN_BARREL, block)
-                        && !TagManager.BLOCKS.contains(CommonBlockTags.WOODEN_CHEST, block)
-                        && !TagManager.BLOCKS.contains(CommonBlockTags.WOODEN_COMPOSTER, block)
-                        && !TagManager.BLOCKS.contains(CommonBlockTags.WORKBENCHES, block)
-                        && !TagManager.BLOCKS.contains(BlockTags.SIGNS, block)
-                        && !TagManager.BLOCKS.contains(BlockTags.PLANKS, block)
-                        && !TagManager.BLOCKS.contains(BlockTags.LOGS, block)
-                        && !TagManager.BLOCKS.contains(BlockTags.FENCE_GATES, block)
-                        && !TagManager.BLOCKS.contains(BlockTags.ALL_HANGING_SIGNS, block)
-                        && !TagManager.BLOCKS.contains(CommonBlockTags.WORKBENCHES, block)
-                        && !TagManager.BLOCKS.contains(CommonBlockTags.BOOKSHELVES, block)
-                ) {
+                if (!TagManager.BLOCKS.containsAny(block, NOT_MINEABLE_AXE)) {
                     TagManager.BLOCKS.add(block, MineableTags.AXE);
                 }
             }
@@ -4,10 +4,15 @@ import org.betterx.bclib.BCLib;
 
 import net.minecraft.network.FriendlyByteBuf;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -17,6 +22,7 @@ import org.jetbrains.annotations.NotNull;
 public class FileHash {
     private static final int ERR_DOES_NOT_EXIST = -10;
     private static final int ERR_IO_ERROR = -20;
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     /**
      * The md5-hash of the file
@@ -102,6 +108,9 @@ public class FileHash {
 
     /**
      * Create a new {@link FileHash}.
+     * <p>
+     * Hashes are cached on disk and reused as long as size and modification time of the file do not change, see
+     * {@link #saveCache()}.
      *
      * @param file The input file
      * @return A new Instance. You can compare instances using {@link #equals(Object)} to determine if two files are
@@ -111,23 +120,15 @@ public class FileHash {
         if (!file.exists()) return createForEmpty(ERR_DOES_NOT_EXIST);
         final Path path = file.toPath();
 
-        int size = 0;
-        byte[] md5 = new byte[0];
-        int value = 0;
-
         try {
-            byte[] data = Files.readAllBytes(path);
-
-            size = data.length;
-
-            value = size > 0 ? (data[size / 3] | (data[size / 2] << 8) | (data[size / 5] << 16)) : -1;
-            if (size > 20) value |= data[20] << 24;
-
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            md.update(data);
-            md5 = md.digest();
-
-            return new FileHash(md5, size, value);
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            final long modified = attributes.lastModifiedTime().toMillis();
+            FileHash hash = FileHashCache.get(path, attributes.size(), modified);
+            if (hash == null) {
+                hash = compute(path);
+                FileHashCache.put(path, attributes.size(), modified, hash);
+            }
+            return hash;
         } catch (IOException e) {
             BCLib.LOGGER.error("Failed to read file: " + file);
             return null;
@@ -138,6 +139,43 @@ public class FileHash {
         return createForEmpty(ERR_IO_ERROR);
     }
 
+    /**
+     * Writes hashes that were created since the last call to the hash cache.
+     */
+    public static void saveCache() {
+        FileHashCache.save();
+    }
+
+    private static FileHash compute(Path path) throws IOException, NoSuchAlgorithmException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final int size = (int) channel.size();
+
+            int value = size > 0 ? (readByte(channel, size / 3)
+                    | (readByte(channel, size / 2) << 8)
+                    | (readByte(channel, size / 5) << 16)) : -1;
+            if (size > 20) value |= readByte(channel, 20) << 24;
+
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            channel.position(0);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                md.update(buffer);
+                buffer.clear();
+            }
+
+            return new FileHash(md.digest(), size, value);
+        }
+    }
+
+    private static byte readByte(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        if (channel.read(buffer, position) != 1) {
+            throw new EOFException("Unexpected end of file at " + position);
+        }
+        return buffer.get(0);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,133 @@
+package org.betterx.bclib.api.v2.dataexchange;
+
+import org.betterx.bclib.BCLib;
+
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persistent cache for {@link FileHash}es.
+ * <p>
+ * Entries are keyed by the absolute path of a file and are only valid as long as size and modification time of the
+ * file did not change. This allows AutoSync to skip re-hashing unchanged mods and config files on every login.
+ * New entries are written a few seconds after they were added, so a burst of hashes causes a single write. Entries of
+ * files that were deleted or renamed are dropped when the cache is written.
+ */
+class FileHashCache {
+    private static final int VERSION = 1;
+    private static final Path CACHE_FILE = FabricLoader.getInstance()
+                                                       .getGameDir()
+                                                       .resolve(".bclib-cache")
+                                                       .resolve("file-hashes.dat");
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static volatile boolean loaded = false;
+    private static volatile boolean dirty = false;
+
+    private static final int SAVE_DELAY_SECONDS = 5;
+    private static final AtomicBoolean SAVE_SCHEDULED = new AtomicBoolean(false);
+    private static final ScheduledExecutorService SAVER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "BCLib File Hash Cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record Entry(long size, long modified, FileHash hash) {
+    }
+
+    private static String key(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    static FileHash get(Path path, long size, long modified) {
+        if (!loaded) load();
+        final Entry entry = ENTRIES.get(key(path));
+        if (entry != null && entry.size == size && entry.modified == modified) {
+            return entry.hash;
+        }
+        return null;
+    }
+
+    static void put(Path path, long size, long modified, FileHash hash) {
+        if (!loaded) load();
+        ENTRIES.put(key(path), new Entry(size, modified, hash));
+        dirty = true;
+        if (SAVE_SCHEDULED.compareAndSet(false, true)) {
+            SAVER.schedule(() -> {
+                SAVE_SCHEDULED.set(false);
+                save();
+            }, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private static synchronized void load() {
+        if (loaded) return;
+
+        try {
+            if (Files.exists(CACHE_FILE)) read();
+        } catch (IOException e) {
+            BCLib.LOGGER.warning("Unable to read file hash cache, hashes will be rebuilt");
+            ENTRIES.clear();
+        } finally {
+            loaded = true;
+        }
+    }
+
+    private static void read() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(CACHE_FILE)))) {
+            if (in.readInt() != VERSION) return;
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final String path = in.readUTF();
+                final long size = in.readLong();
+                final long modified = in.readLong();
+                final int hashSize = in.readInt();
+                final int value = in.readInt();
+                final byte[] md5 = new byte[in.readUnsignedByte()];
+                in.readFully(md5);
+                ENTRIES.put(path, new Entry(size, modified, new FileHash(md5, hashSize, value)));
+            }
+        }
+    }
+
+    /**
+     * Writes the cache to disk if it changed since the last call.
+     */
+    static synchronized void save() {
+        if (!dirty) return;
+        dirty = false;
+
+        ENTRIES.keySet().removeIf(path -> !Files.exists(Path.of(path)));
+        try {
+            Files.createDirectories(CACHE_FILE.getParent());
+            final Path tempFile = CACHE_FILE.resolveSibling(CACHE_FILE.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                final Map<String, Entry> entries = Map.copyOf(ENTRIES);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    final Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.modified);
+                    out.writeInt(entry.hash.size);
+                    out.writeInt(entry.hash.value);
+                    out.writeByte(entry.hash.md5.length);
+                    out.write(entry.hash.md5);
+                }
+            }
+            Files.move(tempFile, CACHE_FILE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            BCLib.LOGGER.error("Unable to write file hash cache", e);
+        }
+    }
+}
@@ -26,11 +26,8 @@ class AutoFileSyncEntry extends AutoSyncID {
         }
 
         @Override
-        public int serializeContent(FriendlyByteBuf buf) {
-            int res = super.serializeContent(buf);
+        protected void serializeContentDetails(FriendlyByteBuf buf) {
             DataHandler.writeString(buf, relFile.toString());
-
-            return res;
         }
 
         static AutoFileSyncEntry.ForDirectFileRequest finishDeserializeContent(String syncID, FriendlyByteBuf buf) {
@@ -86,10 +83,8 @@ class AutoFileSyncEntry extends AutoSyncID {
         }
 
         @Override
-        public int serializeContent(FriendlyByteBuf buf) {
-            final int res = super.serializeContent(buf);
+        protected void serializeContentDetails(FriendlyByteBuf buf) {
             buf.writeInt(ModUtil.convertModVersion(version));
-            return res;
         }
 
         static AutoFileSyncEntry.ForModFileRequest finishDeserializeContent(String modID, FriendlyByteBuf buf) {
@@ -138,6 +133,10 @@ class AutoFileSyncEntry extends AutoSyncID {
         return hash;
     }
 
+    void invalidateFileHash() {
+        hash = null;
+    }
+
     public byte[] getContent() {
         if (!fileName.exists()) return new byte[0];
         final Path path = fileName.toPath();
@@ -153,7 +152,15 @@ class AutoFileSyncEntry extends AutoSyncID {
     public int serializeContent(FriendlyByteBuf buf) {
         DataHandler.writeString(buf, modID);
         DataHandler.writeString(buf, uniqueID);
-        return serializeFileContent(buf);
+        final int res = serializeFileContent(buf);
+        serializeContentDetails(buf);
+        return res;
+    }
+
+    /**
+     * Writes the data that follows the content of the file and is needed to locate the file on the client.
+     */
+    protected void serializeContentDetails(FriendlyByteBuf buf) {
     }
 
     public static Triple<AutoFileSyncEntry, byte[], AutoSyncID> deserializeContent(FriendlyByteBuf buf) {
@@ -161,15 +168,37 @@ class AutoFileSyncEntry extends AutoSyncID {
         final String uniqueID = DataHandler.readString(buf);
         byte[] data = deserializeFileContent(buf);
 
-        AutoFileSyncEntry entry;
+        AutoFileSyncEntry entry = deserializeContentDetails(modID, uniqueID, buf);
+        return new Triple<>(entry, data, new AutoSyncID(modID, uniqueID));
+    }
+
+    /**
+     * Writes the ids and details of this entry, without the content of the file.
+     */
+    void serializeIdentity(FriendlyByteBuf buf) {
+        DataHandler.writeString(buf, modID);
+        DataHandler.writeString(buf, uniqueID);
+        serializeContentDetails(buf);
+    }
+
+    /**
+     * Reads data written by {@link #serializeIdentity(FriendlyByteBuf)}.
+     *
+     * @return The matching local entry and the id that was read (used if there is no local entry)
+     */
+    static Pair<AutoFileSyncEntry, AutoSyncID> deserializeIdentity(FriendlyByteBuf buf) {
+        final String modID = DataHandler.readString(buf);
+        final String uniqueID = DataHandler.readString(buf);
+        return new Pair<>(deserializeContentDetails(modID, uniqueID, buf), new AutoSyncID(modID, uniqueID));
+    }
+
+    private static AutoFileSyncEntry deserializeContentDetails(String modID, String uniqueID, FriendlyByteBuf buf) {
         if (AutoSyncID.ForDirectFileRequest.MOD_ID.equals(modID)) {
-            entry = AutoFileSyncEntry.ForDirectFileRequest.finishDeserializeContent(uniqueID, buf);
+            return AutoFileSyncEntry.ForDirectFileRequest.finishDeserializeContent(uniqueID, buf);
         } else if (AutoSyncID.ForModFileRequest.UNIQUE_ID.equals(uniqueID)) {
-            entry = AutoFileSyncEntry.ForModFileRequest.finishDeserializeContent(modID, buf);
-        } else {
-            entry = AutoFileSyncEntry.findMatching(modID, uniqueID);
+            return AutoFileSyncEntry.ForModFileRequest.finishDeserializeContent(modID, buf);
         }
-        return new Triple<>(entry, data, new AutoSyncID(modID, uniqueID));
+        return AutoFileSyncEntry.findMatching(modID, uniqueID);
     }
 
 
@@ -199,17 +228,23 @@ class AutoFileSyncEntry extends AutoSyncID {
         return new Pair(hash, data);
     }
 
-    private int serializeFileContent(FriendlyByteBuf buf) {
+    /**
+     * @return The content of the file, or an empty array if it is not within the game folder
+     */
+    byte[] getTransferableContent() {
         if (!org.betterx.worlds.together.util.PathUtil.isChildOf(
                 org.betterx.worlds.together.util.PathUtil.GAME_FOLDER,
                 fileName.toPath()
         )) {
             BCLib.LOGGER.error(fileName + " is not within game folder " + PathUtil.GAME_FOLDER + ". Pretending it does not exist.");
-            buf.writeInt(0);
-            return 0;
+            return new byte[0];
         }
+        return getContent();
+    }
+
+    private int serializeFileContent(FriendlyByteBuf buf) {
 
-        byte[] content = getContent();
+        byte[] content = getTransferableContent();
         buf.writeInt(content.length);
         buf.writeByteArray(content);
         return content.length;
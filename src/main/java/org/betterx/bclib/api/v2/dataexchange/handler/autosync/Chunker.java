@@ -8,6 +8,8 @@ import org.betterx.bclib.api.v2.dataexchange.handler.DataExchange;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.PacketSendListener;
+import net.minecraft.network.protocol.Packet;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.util.ProgressListener;
@@ -16,7 +18,11 @@ import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
 import net.fabricmc.fabric.api.networking.v1.PacketSender;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -31,6 +37,10 @@ public class Chunker extends DataHandler.FromServer {
     /**
      * Responsible for assembling the original ByteBuffer created by {@link PacketChunkSender} on the
      * receiving end. Automatically created from the header {@link Chunker}-Message (where the serialNo==-1)
+     * <p>
+     * Every chunk (except the last one) carries exactly {@link #MAX_PAYLOAD_SIZE} bytes, so each chunk is copied
+     * straight to its final position in a buffer that is sized from the header. The order in which the chunks
+     * arrive does not matter.
      */
     static class PacketChunkReceiver {
         @NotNull
@@ -40,32 +50,42 @@ public class Chunker extends DataHandler.FromServer {
         private final FriendlyByteBuf networkedBuf;
         @Nullable
         private final DataHandlerDescriptor descriptor;
-
-        private static final List<PacketChunkReceiver> active = new ArrayList<>(1);
-
-        private static PacketChunkReceiver newReceiver(@NotNull UUID uuid, int chunkCount, ResourceLocation origin) {
-            DataHandlerDescriptor desc = DataExchange.getDescriptor(origin);
-            final PacketChunkReceiver r = new PacketChunkReceiver(uuid, chunkCount, desc);
-            active.add(r);
-            return r;
-        }
-
-        private static PacketChunkReceiver getOrCreate(@NotNull UUID uuid, int chunkCount, ResourceLocation origin) {
-            return active.stream()
-                         .filter(r -> r.uuid.equals(uuid))
-                         .findFirst()
-                         .orElse(newReceiver(uuid, chunkCount, origin));
+        private final BitSet received;
+        private int receivedCount = 0;
+        private boolean finished = false;
+
+        private static final Map<UUID, PacketChunkReceiver> active = new ConcurrentHashMap<>();
+
+        private static PacketChunkReceiver getOrCreate(
+                @NotNull UUID uuid,
+                int chunkCount,
+                int size,
+                ResourceLocation origin
+        ) {
+            return active.computeIfAbsent(uuid, id -> new PacketChunkReceiver(
+                    id,
+                    chunkCount,
+                    size,
+                    DataExchange.getDescriptor(origin)
+            ));
         }
 
         public static PacketChunkReceiver get(@NotNull UUID uuid) {
-            return active.stream().filter(r -> r.uuid.equals(uuid)).findFirst().orElse(null);
+            return active.get(uuid);
         }
 
-        private PacketChunkReceiver(@NotNull UUID uuid, int chunkCount, @Nullable DataHandlerDescriptor descriptor) {
+        private PacketChunkReceiver(
+                @NotNull UUID uuid,
+                int chunkCount,
+                int size,
+                @Nullable DataHandlerDescriptor descriptor
+        ) {
             this.uuid = uuid;
             this.chunkCount = chunkCount;
-            networkedBuf = PacketByteBufs.create();
+            //older servers do not send the size, in that case the buffer grows while the chunks arrive
+            this.networkedBuf = new FriendlyByteBuf(size > 0 ? Unpooled.buffer(size, size) : Unpooled.buffer());
             this.descriptor = descriptor;
+            this.received = new BitSet(chunkCount);
         }
 
         @Override
@@ -81,35 +101,29 @@ public class Chunker extends DataHandler.FromServer {
             return Objects.hash(uuid);
         }
 
-        public boolean testFinished() {
+        public synchronized boolean testFinished() {
             ProgressListener listener = ChunkerProgress.getProgressListener();
             if (listener != null) {
                 listener.progressStagePercentage((100 * receivedCount) / chunkCount);
             }
-            if (incomingBuffer == null) {
+            if (finished) {
                 return true;
             }
-            if (lastReadSerial >= chunkCount - 1) {
+            if (receivedCount >= chunkCount) {
                 onFinish();
                 return true;
             }
             return false;
         }
 
-        private void addBuffer(FriendlyByteBuf input) {
-            final int size = input.readableBytes();
-            final int cap = networkedBuf.capacity() - networkedBuf.writerIndex();
+        protected void onFinish() {
+            finished = true;
+            active.remove(uuid);
 
-            if (cap < size) {
-                networkedBuf.capacity(networkedBuf.writerIndex() + size);
+            if (descriptor == null) {
+                BCLib.LOGGER.error("Unknown receiver for Packet-Chunk Transfer " + uuid);
+                return;
             }
-            input.readBytes(networkedBuf, size);
-            input.clear();
-        }
-
-        protected void onFinish() {
-            incomingBuffer.clear();
-            incomingBuffer = null;
 
             final BaseDataHandler baseHandler = descriptor.INSTANCE.get();
             if (baseHandler instanceof DataHandler.FromServer handler) {
@@ -117,46 +131,39 @@ public class Chunker extends DataHandler.FromServer {
             }
         }
 
-        Map<Integer, FriendlyByteBuf> incomingBuffer = new HashMap<>();
-        int lastReadSerial = -1;
-        int receivedCount = 0;
-
-        public void processReceived(FriendlyByteBuf buf, int serialNo, int size) {
-            receivedCount++;
-
-            if (lastReadSerial == serialNo - 1) {
-                addBuffer(buf);
-                lastReadSerial = serialNo;
-            } else {
-                //not sure if order is guaranteed by the underlying system!
-                boolean haveAll = true;
-                for (int nr = lastReadSerial + 1; nr < serialNo - 1; nr++) {
-                    if (incomingBuffer.get(nr) == null) {
-                        haveAll = false;
-                        break;
-                    }
-                }
+        public synchronized void processReceived(FriendlyByteBuf buf, int serialNo, int size) {
+            if (serialNo < 0 || serialNo >= chunkCount || received.get(serialNo)) {
+                return;
+            }
 
-                if (haveAll) {
-                    for (int nr = lastReadSerial + 1; nr < serialNo - 1; nr++) {
-                        addBuffer(incomingBuffer.get(nr));
-                        incomingBuffer.put(nr, null);
-                    }
-                    addBuffer(buf);
-                    lastReadSerial = serialNo;
-                } else {
-                    incomingBuffer.put(serialNo, buf);
-                }
+            final int offset = serialNo * MAX_PAYLOAD_SIZE;
+            final int end = offset + size;
+            if (networkedBuf.capacity() < end) {
+                networkedBuf.capacity(end);
+            }
+            networkedBuf.setBytes(offset, buf, buf.readerIndex(), size);
+            if (networkedBuf.writerIndex() < end) {
+                networkedBuf.writerIndex(end);
             }
+
+            received.set(serialNo);
+            receivedCount++;
         }
     }
 
     /**
      * Responsible for splitting an outgoing ByteBuffer into several smaller Chunks and
      * send them as seperate messages to the {@link Chunker}-Channel
+     * <p>
+     * The payload is never copied, every chunk is a slice of the original buffer. Each player gets their own
+     * {@link Transfer} that keeps at most {@link #MAX_CHUNKS_IN_FLIGHT} chunks in the network queue and only sends
+     * the next one after a previous chunk was written to the connection.
      */
     public static class PacketChunkSender {
+        private static final int MAX_CHUNKS_IN_FLIGHT = 4;
+
         private final FriendlyByteBuf networkedBuf;
+        private final int start;
         public final UUID uuid;
         public final int chunkCount;
         public final int size;
@@ -165,6 +172,7 @@ public class Chunker extends DataHandler.FromServer {
         public PacketChunkSender(FriendlyByteBuf buf, ResourceLocation origin) {
             networkedBuf = buf;
 
+            start = buf.readerIndex();
             size = buf.readableBytes();
             chunkCount = (int) Math.ceil((double) size / MAX_PAYLOAD_SIZE);
             uuid = UUID.randomUUID();
@@ -173,21 +181,83 @@ public class Chunker extends DataHandler.FromServer {
 
         public void sendChunks(Collection<ServerPlayer> players) {
             BCLib.LOGGER.info("Sending Request in " + chunkCount + " Packet-Chunks");
-            for (int i = -1; i < chunkCount; i++) {
-                Chunker c = new Chunker(i, uuid, networkedBuf, chunkCount, origin);
-                FriendlyByteBuf buf = PacketByteBufs.create();
-                c.serializeDataOnServer(buf);
+            FriendlyByteBuf header = PacketByteBufs.create();
+            new Chunker(-1, uuid, chunkCount, size, origin).serializeDataOnServer(header);
+
+            for (ServerPlayer player : players) {
+                ServerPlayNetworking.send(player, DESCRIPTOR.IDENTIFIER, header);
+                new Transfer(player).sendNext();
+            }
+        }
+
+        private FriendlyByteBuf createChunk(int serialNo) {
+            final int offset = serialNo * MAX_PAYLOAD_SIZE;
+            final int length = Math.min(MAX_PAYLOAD_SIZE, size - offset);
+
+            //Sending Header. Make sure to change HEADER_SIZE if you change this!
+            ByteBuf header = Unpooled.buffer(HEADER_SIZE, HEADER_SIZE);
+            header.writeByte(PROTOCOL_VERSION);
+            header.writeLong(uuid.getMostSignificantBits());
+            header.writeLong(uuid.getLeastSignificantBits());
+            header.writeInt(serialNo);
+            header.writeInt(length);
+
+            return new FriendlyByteBuf(Unpooled.wrappedBuffer(header, networkedBuf.slice(start + offset, length)));
+        }
+
+        private class Transfer implements PacketSendListener {
+            private final ServerPlayer player;
+            private int nextSerial = 0;
+            private int inFlight = 0;
+            private boolean aborted = false;
+
+            Transfer(ServerPlayer player) {
+                this.player = player;
+            }
 
-                for (ServerPlayer player : players) {
-                    ServerPlayNetworking.send(player, DESCRIPTOR.IDENTIFIER, buf);
+            void sendNext() {
+                while (true) {
+                    final int serialNo;
+                    synchronized (this) {
+                        if (aborted || nextSerial >= chunkCount || inFlight >= MAX_CHUNKS_IN_FLIGHT) {
+                            return;
+                        }
+                        serialNo = nextSerial++;
+                        inFlight++;
+                    }
+
+                    player.connection.send(
+                            ServerPlayNetworking.createS2CPacket(DESCRIPTOR.IDENTIFIER, createChunk(serialNo)),
+                            this
+                    );
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                synchronized (this) {
+                    inFlight--;
                 }
+                sendNext();
+            }
+
+            @Override
+            public @Nullable Packet<?> onFailure() {
+                synchronized (this) {
+                    aborted = true;
+                }
+                BCLib.LOGGER.warning("Packet-Chunk Transfer " + uuid + " to " + player.getScoreboardName() + " failed");
+                return null;
             }
         }
     }
 
-    //header = version + UUID + serialNo + size, see serializeDataOnServer
+    //header = version + UUID + serialNo + size, see PacketChunkSender#createChunk
     private static final int HEADER_SIZE = 1 + 16 + 4 + 4;
 
+    //version 1 sends the total size in the header chunk
+    private static final int PROTOCOL_VERSION = 1;
+
     public static final int MAX_PACKET_SIZE = 1024 * 1024;
     private static final int MAX_PAYLOAD_SIZE = MAX_PACKET_SIZE - HEADER_SIZE;
 
@@ -204,15 +274,21 @@ public class Chunker extends DataHandler.FromServer {
     private int serialNo;
     private UUID uuid;
     private int chunkCount;
-    private FriendlyByteBuf networkedBuf;
+    private int size;
     private ResourceLocation origin;
 
-    protected Chunker(int serialNo, UUID uuid, FriendlyByteBuf networkedBuf, int chunkCount, ResourceLocation origin) {
+    protected Chunker(
+            int serialNo,
+            UUID uuid,
+            int chunkCount,
+            int size,
+            ResourceLocation origin
+    ) {
         super(DESCRIPTOR.IDENTIFIER);
         this.serialNo = serialNo;
         this.uuid = uuid;
-        this.networkedBuf = networkedBuf;
         this.chunkCount = chunkCount;
+        this.size = size;
         this.origin = origin;
     }
 
@@ -223,24 +299,18 @@ public class Chunker extends DataHandler.FromServer {
 
     @Override
     protected void serializeDataOnServer(FriendlyByteBuf buf) {
-        //Sending Header. Make sure to change HEADER_SIZE if you change this!
-        buf.writeByte(0);
+        buf.writeByte(PROTOCOL_VERSION);
         buf.writeLong(uuid.getMostSignificantBits());
         buf.writeLong(uuid.getLeastSignificantBits());
         buf.writeInt(serialNo);
 
-        //sending Payload
+        //Payload chunks are created by PacketChunkSender#createChunk
         if (serialNo == -1) {
             //this is our header-Chunk that transports status information
             buf.writeInt(chunkCount);
             writeString(buf, origin.getNamespace());
             writeString(buf, origin.getPath());
-        } else {
-            //this is an actual payload chunk
-            buf.capacity(MAX_PACKET_SIZE);
-            final int size = Math.min(MAX_PAYLOAD_SIZE, networkedBuf.readableBytes());
             buf.writeInt(size);
-            networkedBuf.readBytes(buf, size);
         }
     }
 
@@ -256,10 +326,11 @@ public class Chunker extends DataHandler.FromServer {
             chunkCount = buf.readInt();
             final String namespace = readString(buf);
             final String path = readString(buf);
+            size = version >= 1 ? buf.readInt() : 0;
             ResourceLocation ident = new ResourceLocation(namespace, path);
             BCLib.LOGGER.info("Receiving " + chunkCount + " + Packet-Chunks for " + ident);
 
-            receiver = PacketChunkReceiver.getOrCreate(uuid, chunkCount, ident);
+            receiver = PacketChunkReceiver.getOrCreate(uuid, chunkCount, size, ident);
         } else {
             receiver = PacketChunkReceiver.get(uuid);
             if (receiver != null) {
@@ -0,0 +1,170 @@
+package org.betterx.bclib.api.v2.dataexchange.handler.autosync;
+
+import net.minecraft.network.FriendlyByteBuf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Splits files into content-defined blocks for the delta transfer of {@link SendFileSignatures} and
+ * {@link SendFileBlocks}.
+ * <p>
+ * Block boundaries are chosen by a rolling (gear) hash over the content, so an insertion or removal only changes the
+ * blocks around the edit. The remaining blocks keep their hash and can be copied from the file the client already has.
+ */
+class FileBlocks {
+    static final int MIN_BLOCK_SIZE = 2 * 1024;
+    static final int MAX_BLOCK_SIZE = 64 * 1024;
+    //13 bits give an average block size of about 8 KiB (plus the minimum size)
+    private static final long BOUNDARY_MASK = -1L << (64 - 13);
+    private static final long[] GEAR = new long[256];
+    private static final int MAX_CACHED_SIGNATURES = 256;
+    //access ordered, guarded by itself
+    private static final LinkedHashMap<SignatureKey, Signature> SIGNATURES = new LinkedHashMap<>(16, 0.75f, true);
+
+    static {
+        //fixed seed, client and server have to cut at the same positions
+        final Random random = new Random(0x6263_6c69_625f_7379L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    record Digest(long high, long low) {
+        void serialize(FriendlyByteBuf buf) {
+            buf.writeLong(high);
+            buf.writeLong(low);
+        }
+
+        static Digest deserialize(FriendlyByteBuf buf) {
+            return new Digest(buf.readLong(), buf.readLong());
+        }
+    }
+
+    record Block(int offset, int length, Digest digest) {
+    }
+
+    /**
+     * The size, the hash and the blocks of the content of a file.
+     */
+    record Signature(int length, byte[] hash, List<Block> blocks) {
+        static Signature of(byte[] content) {
+            return new Signature(content.length, hash(content), split(content));
+        }
+    }
+
+    private record SignatureKey(String path, long length, long modified) {
+    }
+
+    /**
+     * Returns the signature of {@code content}, which was just read from {@code file}. Signatures are cached until
+     * the size or the modification time of the file changes, so files that are offered to many clients are only
+     * split once.
+     */
+    static Signature signature(File file, byte[] content) {
+        final SignatureKey key = new SignatureKey(file.getAbsolutePath(), file.length(), file.lastModified());
+        //the file changed while it was read (or was not read at all), the content does not belong to the key
+        if (key.length != content.length) return Signature.of(content);
+
+        Signature signature;
+        synchronized (SIGNATURES) {
+            signature = SIGNATURES.get(key);
+        }
+        if (signature != null) return signature;
+
+        signature = Signature.of(content);
+        synchronized (SIGNATURES) {
+            SIGNATURES.put(key, signature);
+            if (SIGNATURES.size() > MAX_CACHED_SIGNATURES) {
+                final Iterator<SignatureKey> eldest = SIGNATURES.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return signature;
+    }
+
+    static List<Block> split(byte[] data) {
+        final MessageDigest sha = sha256();
+        final List<Block> blocks = new ArrayList<>(data.length / (8 * 1024) + 1);
+        int start = 0;
+        while (start < data.length) {
+            final int end = findBoundary(data, start);
+            sha.update(data, start, end - start);
+            final ByteBuffer hash = ByteBuffer.wrap(sha.digest());
+            blocks.add(new Block(start, end - start, new Digest(hash.getLong(), hash.getLong())));
+            start = end;
+        }
+        return blocks;
+    }
+
+    private static int findBoundary(byte[] data, int start) {
+        final int limit = Math.min(data.length, start + MAX_BLOCK_SIZE);
+        long hash = 0;
+        for (int i = start + MIN_BLOCK_SIZE; i < limit; i++) {
+            hash = (hash << 1) + GEAR[data[i] & 0xFF];
+            if ((hash & BOUNDARY_MASK) == 0) return i + 1;
+        }
+        return limit;
+    }
+
+    static byte[] hash(byte[] data) {
+        return sha256().digest(data);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            //every Java implementation has to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static byte[] compress(byte[] data) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            final byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] decompress(byte[] data, int length) throws DataFormatException {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            final byte[] result = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                final int count = inflater.inflate(result, read, length - read);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Unexpected end of compressed data");
+                }
+                read += count;
+            }
+            if (read != length) throw new DataFormatException("Expected " + length + " bytes, got " + read);
+            return result;
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -84,12 +84,22 @@ public class HelloClient extends DataHandler.FromServer {
         //write BCLibVersion (=protocol version)
         buf.writeInt(ModUtil.convertModVersion(vbclib));
 
+        //everything else is the same for all players
+        HelloManifest.write(buf);
+    }
+
+    /**
+     * Writes the mods, files and folders the server offers. Called by {@link HelloManifest} when the offer needs to
+     * be rebuilt.
+     */
+    static void serializeOffer(FriendlyByteBuf buf) {
         if (Configs.SERVER_CONFIG.isOfferingMods() || Configs.SERVER_CONFIG.isOfferingInfosForMods()) {
             List<String> mods = DataExchangeAPI.registeredMods();
-            final List<String> inmods = mods;
+            final Set<String> inmods = new HashSet<>(mods);
             if (Configs.SERVER_CONFIG.isOfferingAllMods() || Configs.SERVER_CONFIG.isOfferingInfosForMods()) {
-                mods = new ArrayList<>(inmods.size());
-                mods.addAll(inmods);
+                final List<String> registered = mods;
+                mods = new ArrayList<>(registered.size());
+                mods.addAll(registered);
                 mods.addAll(ModUtil
                         .getMods()
                         .entrySet()
@@ -101,9 +111,10 @@ public class HelloClient extends DataHandler.FromServer {
                 );
             }
 
+            final Set<String> excluded = new HashSet<>(Configs.SERVER_CONFIG.get(ServerConfig.EXCLUDED_MODS));
             mods = mods
                     .stream()
-                    .filter(entry -> !Configs.SERVER_CONFIG.get(ServerConfig.EXCLUDED_MODS).contains(entry))
+                    .filter(entry -> !excluded.contains(entry))
                     .collect(Collectors.toList());
 
             //write Plugin Versions
@@ -0,0 +1,190 @@
+package org.betterx.bclib.api.v2.dataexchange.handler.autosync;
+
+import org.betterx.bclib.BCLib;
+import org.betterx.bclib.api.v2.dataexchange.DataExchangeAPI;
+import org.betterx.bclib.config.Configs;
+import org.betterx.bclib.config.ServerConfig;
+
+import net.minecraft.network.FriendlyByteBuf;
+
+import io.netty.buffer.Unpooled;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * The serialized offer of a {@link HelloClient} message (mods, files and sync folders).
+ * <p>
+ * The offer is built once and the same bytes are sent to every joining player. It is rebuilt when one of the config
+ * values it depends on changes, or when a file watcher reports a change to one of the offered files or sync folders.
+ */
+class HelloManifest {
+    private record Manifest(
+            boolean offerMods,
+            boolean offerModInfos,
+            boolean offerAllMods,
+            boolean offerFiles,
+            boolean offerConfigs,
+            List<String> excludedMods,
+            List<String> registeredMods,
+            int autoSyncFiles,
+            int syncFolders,
+            byte[] data
+    ) {
+        //compares against the live config values without copying them
+        boolean isCurrent() {
+            return offerMods == Configs.SERVER_CONFIG.isOfferingMods()
+                    && offerModInfos == Configs.SERVER_CONFIG.isOfferingInfosForMods()
+                    && offerAllMods == Configs.SERVER_CONFIG.isOfferingAllMods()
+                    && offerFiles == Configs.SERVER_CONFIG.isOfferingFiles()
+                    && offerConfigs == Configs.SERVER_CONFIG.isOfferingConfigs()
+                    && autoSyncFiles == AutoSync.getAutoSyncFiles().size()
+                    && syncFolders == AutoSync.syncFolderDescriptions.size()
+                    && excludedMods.equals(Configs.SERVER_CONFIG.get(ServerConfig.EXCLUDED_MODS))
+                    && registeredMods.equals(DataExchangeAPI.registeredMods());
+        }
+    }
+
+    private static final Object LOCK = new Object();
+    private static volatile Manifest manifest;
+    //set by the watcher thread, handled on the next join
+    private static volatile boolean filesChanged = false;
+    private static WatchService watcher;
+    //the offered files and folders, only changes to those trigger a rebuild
+    private static volatile Set<Path> watchedFiles = Set.of();
+    private static volatile List<Path> watchedFolders = List.of();
+
+    static void write(FriendlyByteBuf buf) {
+        Manifest current = manifest;
+        if (current == null || filesChanged || !current.isCurrent()) {
+            synchronized (LOCK) {
+                current = manifest;
+                if (current == null || filesChanged || !current.isCurrent()) {
+                    current = build();
+                    manifest = current;
+                }
+            }
+        }
+        buf.writeBytes(current.data);
+    }
+
+    private static Manifest build() {
+        final long start = System.nanoTime();
+        if (filesChanged) {
+            filesChanged = false;
+            AutoSync.getAutoSyncFiles().forEach(AutoFileSyncEntry::invalidateFileHash);
+            AutoSync.syncFolderDescriptions.forEach(SyncFolderDescriptor::invalidateCache);
+            AutoSync.loadSyncFolder();
+        }
+        watchFiles();
+
+        final FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        HelloClient.serializeOffer(buf);
+        final byte[] data = new byte[buf.readableBytes()];
+        buf.readBytes(data);
+        buf.release();
+
+        BCLib.LOGGER.info(
+                "Built AutoSync offer ({} bytes) in {} ms",
+                data.length,
+                (System.nanoTime() - start) / 1_000_000
+        );
+        return new Manifest(
+                Configs.SERVER_CONFIG.isOfferingMods(),
+                Configs.SERVER_CONFIG.isOfferingInfosForMods(),
+                Configs.SERVER_CONFIG.isOfferingAllMods(),
+                Configs.SERVER_CONFIG.isOfferingFiles(),
+                Configs.SERVER_CONFIG.isOfferingConfigs(),
+                new ArrayList<>(Configs.SERVER_CONFIG.get(ServerConfig.EXCLUDED_MODS)),
+                new ArrayList<>(DataExchangeAPI.registeredMods()),
+                AutoSync.getAutoSyncFiles().size(),
+                AutoSync.syncFolderDescriptions.size(),
+                data
+        );
+    }
+
+    private static void watchFiles() {
+        try {
+            if (watcher == null) {
+                watcher = FileSystems.getDefault().newWatchService();
+                final Thread watchThread = new Thread(HelloManifest::watch, "BCLib AutoSync Watcher");
+                watchThread.setDaemon(true);
+                watchThread.start();
+            }
+
+            final Set<Path> files = new HashSet<>();
+            final List<Path> folders = new ArrayList<>();
+            //registering a folder again is a no-op, so new sub folders are picked up on every rebuild
+            for (AutoFileSyncEntry entry : AutoSync.getAutoSyncFiles()) {
+                final Path file = entry.fileName.toPath().toAbsolutePath().normalize();
+                files.add(file);
+                if (file.getParent() != null) register(file.getParent());
+            }
+            for (SyncFolderDescriptor desc : AutoSync.syncFolderDescriptions) {
+                folders.add(desc.localFolder.toAbsolutePath().normalize());
+                if (!Files.isDirectory(desc.localFolder)) continue;
+                try (Stream<Path> tree = Files.walk(desc.localFolder)) {
+                    tree.filter(Files::isDirectory).forEach(HelloManifest::register);
+                }
+            }
+            watchedFiles = files;
+            watchedFolders = folders;
+        } catch (IOException | RuntimeException e) {
+            BCLib.LOGGER.warning("Unable to watch the AutoSync files, changes need a restart: " + e.getMessage());
+        }
+    }
+
+    private static void register(Path folder) {
+        if (!Files.isDirectory(folder)) return;
+        try {
+            folder.register(
+                    watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY
+            );
+        } catch (IOException e) {
+            BCLib.LOGGER.warning("Unable to watch " + folder + ": " + e.getMessage());
+        }
+    }
+
+    private static void watch() {
+        while (true) {
+            final WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            final Path folder = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                        || (event.context() instanceof Path name && isWatched(folder.resolve(name)))) {
+                    filesChanged = true;
+                }
+            }
+            key.reset();
+        }
+    }
+
+    //other files in the watched folders (like our own config saves) do not change the offer
+    private static boolean isWatched(Path path) {
+        final Path file = path.toAbsolutePath().normalize();
+        if (watchedFiles.contains(file)) return true;
+        for (Path folder : watchedFolders) {
+            if (file.startsWith(folder)) return true;
+        }
+        return false;
+    }
+}
@@ -55,7 +55,9 @@ import java.io.File;
  * 		<td>{@link SendFiles}</td>
  * 		<td>--&gt;</td>
  * 		<td></td>
- * 		<td>Send Files from the Server to the Client</td>
+ * 		<td>Send Files from the Server to the Client. Clients that support it get the block hashes
+ * 		({@link SendFileSignatures}) instead, request the missing blocks ({@link RequestFileBlocks}) and receive them
+ * 		compressed ({@link SendFileBlocks})</td>
  * 	</tr>
  * </table>
  */
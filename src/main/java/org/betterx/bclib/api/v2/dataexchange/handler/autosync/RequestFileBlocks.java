@@ -0,0 +1,187 @@
+package org.betterx.bclib.api.v2.dataexchange.handler.autosync;
+
+import org.betterx.bclib.BCLib;
+import org.betterx.bclib.api.v2.dataexchange.DataHandler;
+import org.betterx.bclib.api.v2.dataexchange.DataHandlerDescriptor;
+import org.betterx.bclib.config.Configs;
+
+import net.minecraft.Util;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.entity.player.Player;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.networking.v1.PacketSender;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Requests the blocks of the files offered by {@link SendFileSignatures} that are missing on the client.
+ */
+public class RequestFileBlocks extends DataHandler.FromClient {
+    public static final DataHandlerDescriptor DESCRIPTOR = new DataHandlerDescriptor(
+            new ResourceLocation(
+                    BCLib.MOD_ID,
+                    "request_file_blocks"
+            ),
+            RequestFileBlocks::new,
+            false,
+            false
+    );
+
+    //payloads sent by the client are limited to 32 KiB
+    private static final int MAX_REQUEST_SIZE = 30 * 1024;
+
+    //the files the client waits for, used by SendFileBlocks to rebuild them
+    //written on the game thread, read on the network thread
+    static volatile String pendingToken = "";
+    static volatile List<SendFileSignatures.PendingFile> pendingFiles = List.of();
+
+    private String token;
+    private List<SendFileSignatures.PendingFile> files;
+
+    private RequestFileBlocks() {
+        this(null, null);
+    }
+
+    RequestFileBlocks(String token, List<SendFileSignatures.PendingFile> files) {
+        super(DESCRIPTOR.IDENTIFIER);
+        this.token = token;
+        this.files = files;
+    }
+
+    @Environment(EnvType.CLIENT)
+    @Override
+    protected void serializeDataOnClient(FriendlyByteBuf buf) {
+        List<List<int[]>> ranges = new ArrayList<>(files.size());
+        int size = 0;
+        for (SendFileSignatures.PendingFile file : files) {
+            final List<int[]> missing = file.missingRanges();
+            ranges.add(missing);
+            size += 2 * 5 + missing.size() * 2 * 5;
+        }
+
+        if (size > MAX_REQUEST_SIZE) {
+            //too fragmented, request one range from the first to the last missing block of every file instead
+            for (int i = 0; i < ranges.size(); i++) {
+                final List<int[]> missing = ranges.get(i);
+                if (missing.size() > 1) {
+                    final int[] first = missing.get(0);
+                    final int[] last = missing.get(missing.size() - 1);
+                    ranges.set(i, List.of(new int[]{first[0], last[0] + last[1] - first[0]}));
+                }
+            }
+        }
+
+        writeString(buf, token);
+        buf.writeVarInt(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            final SendFileSignatures.PendingFile file = files.get(i);
+            file.requested.clear();
+            file.requested.addAll(ranges.get(i));
+
+            buf.writeVarInt(file.index);
+            buf.writeVarInt(file.requested.size());
+            for (int[] range : file.requested) {
+                buf.writeVarInt(range[0]);
+                buf.writeVarInt(range[1]);
+            }
+        }
+
+        pendingToken = token;
+        pendingFiles = files;
+    }
+
+    private List<Integer> receivedIndices;
+    private List<List<int[]>> receivedRanges;
+
+    @Override
+    protected void deserializeIncomingDataOnServer(FriendlyByteBuf buf, Player player, PacketSender responseSender) {
+        token = readString(buf);
+        final int size = buf.readVarInt();
+        //the counts are sent by the client and are not used as initial capacity
+        receivedIndices = new ArrayList<>();
+        receivedRanges = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            receivedIndices.add(buf.readVarInt());
+            final int rangeCount = buf.readVarInt();
+            final List<int[]> ranges = new ArrayList<>();
+            for (int r = 0; r < rangeCount; r++) {
+                ranges.add(new int[]{buf.readVarInt(), buf.readVarInt()});
+            }
+            receivedRanges.add(ranges);
+        }
+    }
+
+    @Override
+    protected void runOnServerGameThread(MinecraftServer server, Player player) {
+        if (!Configs.SERVER_CONFIG.isAllowingAutoSync()) {
+            BCLib.LOGGER.info("Auto-Sync was disabled on the server.");
+            return;
+        }
+
+        final List<SendFileSignatures.OfferedFile> offered = SendFileSignatures.takeOffered(player.getUUID(), token);
+        if (offered == null) {
+            BCLib.LOGGER.error("Client requested blocks for unknown File Transfer " + token);
+            return;
+        }
+
+        //reading and compressing the files happens in the background, only the reply is sent from the server thread
+        CompletableFuture
+                .supplyAsync(() -> collectBlocks(offered), Util.backgroundExecutor())
+                .whenCompleteAsync((data, error) -> {
+                    if (error != null) BCLib.LOGGER.error("Failed to send blocks for File Transfer " + token, error);
+                    else reply(new SendFileBlocks(data, token), server);
+                }, server);
+    }
+
+    private List<SendFileBlocks.FileData> collectBlocks(List<SendFileSignatures.OfferedFile> offered) {
+        final boolean[] sent = new boolean[offered.size()];
+        final List<SendFileBlocks.FileData> data = new ArrayList<>();
+        for (int i = 0; i < receivedIndices.size(); i++) {
+            final int index = receivedIndices.get(i);
+            if (index < 0 || index >= offered.size() || sent[index]) {
+                BCLib.LOGGER.error("Client requested blocks for an unknown or duplicate File (" + index + ")");
+                continue;
+            }
+            sent[index] = true;
+
+            final SendFileSignatures.OfferedFile file = offered.get(index);
+            final byte[] content = file.entry().getTransferableContent();
+            final FileBlocks.Signature signature = FileBlocks.signature(file.entry().fileName, content);
+            if (!MessageDigest.isEqual(signature.hash(), file.signature().hash())) {
+                BCLib.LOGGER.error("File " + file.entry() + " changed since it was offered to the Client");
+                continue;
+            }
+
+            //the ranges come from the client, every block is sent at most once
+            final List<FileBlocks.Block> blocks = signature.blocks();
+            final boolean[] requested = new boolean[blocks.size()];
+            for (int[] range : receivedRanges.get(i)) {
+                final int start = Math.max(0, range[0]);
+                final long end = Math.min(blocks.size(), (long) range[0] + Math.max(0, range[1]));
+                for (int b = start; b < end; b++) {
+                    requested[b] = true;
+                }
+            }
+
+            final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+            for (int b = 0; b < requested.length; b++) {
+                if (requested[b]) {
+                    final FileBlocks.Block block = blocks.get(b);
+                    raw.write(content, block.offset(), block.length());
+                }
+            }
+
+            final byte[] bytes = raw.toByteArray();
+            data.add(new SendFileBlocks.FileData(index, bytes.length, FileBlocks.compress(bytes)));
+        }
+        return data;
+    }
+}
@@ -5,6 +5,7 @@ import org.betterx.bclib.api.v2.dataexchange.DataHandler;
 import org.betterx.bclib.api.v2.dataexchange.DataHandlerDescriptor;
 import org.betterx.bclib.config.Configs;
 
+import net.minecraft.Util;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
@@ -17,6 +18,7 @@ import net.fabricmc.fabric.api.networking.v1.PacketSender;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 public class RequestFiles extends DataHandler.FromClient {
@@ -29,6 +31,8 @@ public class RequestFiles extends DataHandler.FromClient {
             false,
             false
     );
+    //appended after the requested files by clients that understand the delta transfer of SendFileSignatures
+    private static final int DELTA_TRANSFER_MARKER = 0x62636c64;
     static String currentToken = "";
 
     protected List<AutoSyncID> files;
@@ -63,9 +67,12 @@ public class RequestFiles extends DataHandler.FromClient {
         for (AutoSyncID a : files) {
             a.serializeData(buf);
         }
+
+        buf.writeInt(DELTA_TRANSFER_MARKER);
     }
 
     String receivedToken = "";
+    private boolean acceptsDeltaTransfer = false;
 
     @Override
     protected void deserializeIncomingDataOnServer(FriendlyByteBuf buf, Player player, PacketSender responseSender) {
@@ -82,6 +89,8 @@ public class RequestFiles extends DataHandler.FromClient {
                 BCLib.LOGGER.info("	- " + asid);
         }
 
+        //older clients end the message after the files
+        acceptsDeltaTransfer = buf.readableBytes() >= 4 && buf.readInt() == DELTA_TRANSFER_MARKER;
 
     }
 
@@ -97,7 +106,19 @@ public class RequestFiles extends DataHandler.FromClient {
                                                    .filter(e -> e != null)
                                                    .collect(Collectors.toList());
 
-        reply(new SendFiles(syncEntries, receivedToken), server);
+        if (acceptsDeltaTransfer) {
+            //reading and splitting the files happens in the background, only the reply is sent from the server thread
+            final UUID playerID = player.getUUID();
+            final String token = receivedToken;
+            CompletableFuture
+                    .supplyAsync(() -> SendFileSignatures.offer(syncEntries, token, playerID), Util.backgroundExecutor())
+                    .whenCompleteAsync((message, error) -> {
+                        if (error != null) BCLib.LOGGER.error("Failed to prepare File Transfer " + token, error);
+                        else reply(message, server);
+                    }, server);
+        } else {
+            reply(new SendFiles(syncEntries, receivedToken), server);
+        }
     }
 
     public static void newToken() {
@@ -0,0 +1,211 @@
+package org.betterx.bclib.api.v2.dataexchange.handler.autosync;
+
+import org.betterx.bclib.BCLib;
+import org.betterx.bclib.api.v2.dataexchange.DataHandler;
+import org.betterx.bclib.api.v2.dataexchange.DataHandlerDescriptor;
+import org.betterx.bclib.config.Configs;
+import org.betterx.bclib.util.Pair;
+import org.betterx.worlds.together.util.PathUtil;
+
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.networking.v1.PacketSender;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.DataFormatException;
+
+/**
+ * Sends the deflate compressed blocks requested with {@link RequestFileBlocks}. The client rebuilds the files from
+ * these blocks and the blocks it already has, and writes them like {@link SendFiles}.
+ */
+public class SendFileBlocks extends DataHandler.FromServer {
+    public static final DataHandlerDescriptor DESCRIPTOR = new DataHandlerDescriptor(
+            new ResourceLocation(
+                    BCLib.MOD_ID,
+                    "send_file_blocks"
+            ),
+            SendFileBlocks::new,
+            false,
+            false
+    );
+
+    /**
+     * The requested blocks of one file.
+     *
+     * @param index      The index of the file in {@link SendFileSignatures}
+     * @param length     The uncompressed size of all requested blocks
+     * @param compressed The deflate compressed blocks
+     */
+    record FileData(int index, int length, byte[] compressed) {
+    }
+
+    private List<FileData> files;
+    private String token;
+
+    public SendFileBlocks() {
+        this(null, "");
+    }
+
+    SendFileBlocks(List<FileData> files, String token) {
+        super(DESCRIPTOR.IDENTIFIER);
+        this.files = files;
+        this.token = token;
+    }
+
+    @Override
+    protected boolean prepareDataOnServer() {
+        if (!Configs.SERVER_CONFIG.isAllowingAutoSync()) {
+            BCLib.LOGGER.info("Auto-Sync was disabled on the server.");
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    protected void serializeDataOnServer(FriendlyByteBuf buf) {
+        writeString(buf, token);
+        buf.writeVarInt(files.size());
+
+        long compressed = 0;
+        for (FileData file : files) {
+            buf.writeVarInt(file.index);
+            buf.writeVarInt(file.length);
+            buf.writeByteArray(file.compressed);
+            compressed += file.compressed.length;
+        }
+
+        if (Configs.MAIN_CONFIG.verboseLogging())
+            BCLib.LOGGER.info("Sending blocks of " + files.size() + " Files to Client (" + PathUtil.humanReadableFileSize(compressed) + ")");
+    }
+
+    private Map<Integer, FileData> received;
+    private List<SendFileSignatures.PendingFile> pending;
+
+    @Environment(EnvType.CLIENT)
+    @Override
+    protected void deserializeIncomingDataOnClient(FriendlyByteBuf buf, PacketSender responseSender) {
+        received = null;
+        token = readString(buf);
+        if (!token.equals(RequestFiles.currentToken) || !token.equals(RequestFileBlocks.pendingToken)) {
+            RequestFiles.newToken();
+            BCLib.LOGGER.error("Unrequested File Transfer!");
+            return;
+        }
+        RequestFiles.newToken();
+
+        received = new HashMap<>();
+        final int size = buf.readVarInt();
+        for (int i = 0; i < size; i++) {
+            final FileData data = new FileData(buf.readVarInt(), buf.readVarInt(), buf.readByteArray());
+            received.put(data.index, data);
+        }
+
+        pending = RequestFileBlocks.pendingFiles;
+        RequestFileBlocks.pendingFiles = List.of();
+    }
+
+    /**
+     * Rebuilds the files from the local and the received blocks. This decompresses and hashes every file, so it
+     * should not be called from the network or the game thread.
+     */
+    @Environment(EnvType.CLIENT)
+    private static List<Pair<AutoFileSyncEntry, byte[]>> rebuildAll(
+            List<SendFileSignatures.PendingFile> pending,
+            Map<Integer, FileData> received
+    ) {
+        final List<Pair<AutoFileSyncEntry, byte[]>> receivedFiles = new ArrayList<>(pending.size());
+        long transferred = 0;
+        long total = 0;
+        for (SendFileSignatures.PendingFile file : pending) {
+            final FileData data = received.get(file.index);
+            if (data == null) {
+                BCLib.LOGGER.error("   - Server did not send the blocks of " + file.entry);
+                continue;
+            }
+
+            final byte[] content;
+            try {
+                content = rebuild(file, FileBlocks.decompress(data.compressed, data.length));
+            } catch (DataFormatException e) {
+                BCLib.LOGGER.error("   - Failed to receive File " + file.entry + ": " + e.getMessage());
+                continue;
+            }
+            if (content == null || !MessageDigest.isEqual(file.hash, FileBlocks.hash(content))) {
+                BCLib.LOGGER.error("   - Failed to receive File " + file.entry + ", the rebuilt File does not match the File on the server.");
+                continue;
+            }
+
+            receivedFiles.add(new Pair<>(file.entry, content));
+            transferred += data.compressed.length;
+            total += content.length;
+            if (Configs.MAIN_CONFIG.verboseLogging())
+                BCLib.LOGGER.info("	- " + file.type + file.entry + " (" + PathUtil.humanReadableFileSize(data.compressed.length) + " transferred for " + PathUtil.humanReadableFileSize(content.length) + ")");
+        }
+
+        BCLib.LOGGER.info(
+                "Received {} Files ({}) with {} of transferred blocks",
+                receivedFiles.size(),
+                PathUtil.humanReadableFileSize(total),
+                PathUtil.humanReadableFileSize(transferred)
+        );
+        return receivedFiles;
+    }
+
+    /**
+     * @return The content of the file, or {@code null} if the blocks do not fit the block hashes
+     */
+    private static byte[] rebuild(SendFileSignatures.PendingFile file, byte[] requestedBlocks) {
+        final boolean[] requested = new boolean[file.blocks.size()];
+        for (int[] range : file.requested) {
+            for (int b = range[0]; b < range[0] + range[1]; b++) {
+                requested[b] = true;
+            }
+        }
+
+        final byte[] content = new byte[file.length];
+        int read = 0;
+        for (int b = 0; b < requested.length; b++) {
+            final FileBlocks.Block block = file.blocks.get(b);
+            if (requested[b]) {
+                if (read + block.length() > requestedBlocks.length) return null;
+                System.arraycopy(requestedBlocks, read, content, block.offset(), block.length());
+                read += block.length();
+            } else {
+                if (file.basisOffsets[b] < 0) return null;
+                System.arraycopy(file.basis, file.basisOffsets[b], content, block.offset(), block.length());
+            }
+        }
+        return read == requestedBlocks.length ? content : null;
+    }
+
+    @Environment(EnvType.CLIENT)
+    @Override
+    protected void runOnClientGameThread(Minecraft client) {
+        if (received != null) {
+            final List<SendFileSignatures.PendingFile> pending = this.pending;
+            final Map<Integer, FileData> received = this.received;
+            //rebuilding happens in the background, the files are written from the game thread
+            CompletableFuture
+                    .supplyAsync(() -> rebuildAll(pending, received), Util.backgroundExecutor())
+                    .whenCompleteAsync((receivedFiles, error) -> {
+                        if (error != null) {
+                            BCLib.LOGGER.error("Failed to rebuild the Files of File Transfer " + token, error);
+                        } else {
+                            SendFiles.writeReceivedFiles(receivedFiles);
+                            SendFiles.openConfirmRestart(client);
+                        }
+                    }, client);
+        }
+    }
+}
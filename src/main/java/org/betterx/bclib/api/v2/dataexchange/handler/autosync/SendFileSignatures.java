@@ -0,0 +1,295 @@
+package org.betterx.bclib.api.v2.dataexchange.handler.autosync;
+
+import org.betterx.bclib.BCLib;
+import org.betterx.bclib.api.v2.dataexchange.DataExchangeAPI;
+import org.betterx.bclib.api.v2.dataexchange.DataHandler;
+import org.betterx.bclib.api.v2.dataexchange.DataHandlerDescriptor;
+import org.betterx.bclib.config.Configs;
+import org.betterx.bclib.util.Pair;
+import org.betterx.worlds.together.util.PathUtil;
+
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.networking.v1.PacketSender;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * First step of the delta transfer that replaces {@link SendFiles} for clients that support it.
+ * <p>
+ * The server sends the block hashes ({@link FileBlocks}) of all requested files. The client compares them with the
+ * blocks of the files it already has and requests the missing ones with {@link RequestFileBlocks}. The server
+ * answers with {@link SendFileBlocks}.
+ */
+public class SendFileSignatures extends DataHandler.FromServer {
+    public static final DataHandlerDescriptor DESCRIPTOR = new DataHandlerDescriptor(
+            new ResourceLocation(
+                    BCLib.MOD_ID,
+                    "send_file_signatures"
+            ),
+            SendFileSignatures::new,
+            false,
+            false
+    );
+
+    private static final int MAX_PENDING_TRANSFERS = 64;
+    //files offered by the server, by the player and the token of the request, guarded by itself
+    //clients that never finish a transfer must not keep the offers alive forever, the oldest offer is dropped first
+    private static final Map<Offer, List<OfferedFile>> OFFERED = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Offer, List<OfferedFile>> eldest) {
+            return size() > MAX_PENDING_TRANSFERS;
+        }
+    };
+
+    private record Offer(UUID player, String token) {
+    }
+
+    /**
+     * A file offered by the server, with the signature that was sent to the client.
+     */
+    record OfferedFile(AutoFileSyncEntry entry, FileBlocks.Signature signature) {
+    }
+
+    /**
+     * A file the client accepted and that is rebuilt from local blocks and the blocks sent by the server.
+     */
+    static class PendingFile {
+        final int index;
+        final AutoFileSyncEntry entry;
+        final String type;
+        final int length;
+        final byte[] hash;
+        final List<FileBlocks.Block> blocks;
+        //the content of the local file and the offset of each block in it (-1 if the block is missing),
+        //set by matchLocalBlocks()
+        byte[] basis;
+        int[] basisOffsets;
+        //pairs of first block and block count that were requested from the server
+        final List<int[]> requested = new ArrayList<>();
+
+        PendingFile(
+                int index,
+                AutoFileSyncEntry entry,
+                String type,
+                int length,
+                byte[] hash,
+                List<FileBlocks.Block> blocks
+        ) {
+            this.index = index;
+            this.entry = entry;
+            this.type = type;
+            this.length = length;
+            this.hash = hash;
+            this.blocks = blocks;
+        }
+
+        /**
+         * Reads the local file and finds the blocks that do not need to be transferred. This reads and splits the
+         * whole file, so it should not be called from the network or the game thread.
+         */
+        void matchLocalBlocks() {
+            basis = entry.fileName == null ? new byte[0] : entry.getTransferableContent();
+            basisOffsets = new int[blocks.size()];
+
+            final Map<FileBlocks.Digest, FileBlocks.Block> localBlocks = new HashMap<>();
+            for (FileBlocks.Block block : FileBlocks.split(basis)) {
+                localBlocks.putIfAbsent(block.digest(), block);
+            }
+            for (int i = 0; i < basisOffsets.length; i++) {
+                final FileBlocks.Block block = blocks.get(i);
+                final FileBlocks.Block local = localBlocks.get(block.digest());
+                basisOffsets[i] = local != null && local.length() == block.length() ? local.offset() : -1;
+            }
+        }
+
+        List<int[]> missingRanges() {
+            final List<int[]> ranges = new ArrayList<>();
+            int i = 0;
+            while (i < basisOffsets.length) {
+                if (basisOffsets[i] >= 0) {
+                    i++;
+                    continue;
+                }
+                final int first = i;
+                while (i < basisOffsets.length && basisOffsets[i] < 0) i++;
+                ranges.add(new int[]{first, i - first});
+            }
+            return ranges;
+        }
+
+        int missingBytes() {
+            int missing = 0;
+            for (int i = 0; i < basisOffsets.length; i++) {
+                if (basisOffsets[i] < 0) missing += blocks.get(i).length();
+            }
+            return missing;
+        }
+    }
+
+    private List<OfferedFile> files;
+    private String token;
+
+    public SendFileSignatures() {
+        this(null, "");
+    }
+
+    private SendFileSignatures(List<OfferedFile> files, String token) {
+        super(DESCRIPTOR.IDENTIFIER);
+        this.files = files;
+        this.token = token;
+    }
+
+    /**
+     * Reads and splits the offered files and remembers them for the {@link RequestFileBlocks} of the player. This
+     * reads every file, so it should not be called from the server thread.
+     */
+    static SendFileSignatures offer(List<AutoFileSyncEntry> entries, String token, UUID player) {
+        final List<OfferedFile> files = new ArrayList<>(entries.size());
+        for (AutoFileSyncEntry entry : entries) {
+            if (entry == null || entry.fileName == null || !entry.fileName.exists()) continue;
+            files.add(new OfferedFile(entry, FileBlocks.signature(entry.fileName, entry.getTransferableContent())));
+        }
+
+        synchronized (OFFERED) {
+            OFFERED.put(new Offer(player, token), files);
+        }
+        return new SendFileSignatures(files, token);
+    }
+
+    /**
+     * @return The files that were offered to the player for the given token, can only be taken once
+     */
+    static List<OfferedFile> takeOffered(UUID player, String token) {
+        synchronized (OFFERED) {
+            return OFFERED.remove(new Offer(player, token));
+        }
+    }
+
+    @Override
+    protected boolean prepareDataOnServer() {
+        if (!Configs.SERVER_CONFIG.isAllowingAutoSync()) {
+            BCLib.LOGGER.info("Auto-Sync was disabled on the server.");
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    protected void serializeDataOnServer(FriendlyByteBuf buf) {
+        writeString(buf, token);
+        buf.writeInt(files.size());
+
+        if (Configs.MAIN_CONFIG.verboseLogging())
+            BCLib.LOGGER.info("Sending block hashes of " + files.size() + " Files to Client:");
+        for (OfferedFile file : files) {
+            final FileBlocks.Signature signature = file.signature;
+
+            file.entry.serializeIdentity(buf);
+            buf.writeInt(signature.length());
+            buf.writeByteArray(signature.hash());
+            buf.writeVarInt(signature.blocks().size());
+            for (FileBlocks.Block block : signature.blocks()) {
+                buf.writeVarInt(block.length());
+                block.digest().serialize(buf);
+            }
+
+            if (Configs.MAIN_CONFIG.verboseLogging())
+                BCLib.LOGGER.info("	- " + file.entry + " (" + PathUtil.humanReadableFileSize(signature.length()) + ", " + signature.blocks().size() + " blocks)");
+        }
+    }
+
+    private List<PendingFile> pendingFiles;
+
+    @Environment(EnvType.CLIENT)
+    @Override
+    protected void deserializeIncomingDataOnClient(FriendlyByteBuf buf, PacketSender responseSender) {
+        pendingFiles = null;
+        if (Configs.CLIENT_CONFIG.isAcceptingConfigs() || Configs.CLIENT_CONFIG.isAcceptingFiles() || Configs.CLIENT_CONFIG.isAcceptingMods()) {
+            token = readString(buf);
+            if (!token.equals(RequestFiles.currentToken)) {
+                RequestFiles.newToken();
+                BCLib.LOGGER.error("Unrequested File Transfer!");
+                return;
+            }
+
+            int size = buf.readInt();
+            pendingFiles = new ArrayList<>(size);
+            if (Configs.MAIN_CONFIG.verboseLogging())
+                BCLib.LOGGER.info("Server sent block hashes of " + size + " Files:");
+            for (int i = 0; i < size; i++) {
+                final Pair<AutoFileSyncEntry, AutoSyncID> id = AutoFileSyncEntry.deserializeIdentity(buf);
+                final int length = buf.readInt();
+                final byte[] hash = buf.readByteArray();
+                final int blockCount = buf.readVarInt();
+                final List<FileBlocks.Block> blocks = new ArrayList<>(blockCount);
+                int offset = 0;
+                for (int b = 0; b < blockCount; b++) {
+                    final int blockLength = buf.readVarInt();
+                    blocks.add(new FileBlocks.Block(offset, blockLength, FileBlocks.Digest.deserialize(buf)));
+                    offset += blockLength;
+                }
+
+                if (id.first == null) {
+                    if (Configs.MAIN_CONFIG.verboseLogging())
+                        BCLib.LOGGER.error("   - Failed to receive File " + id.second + ", possibly sent from a Mod that is not installed on the client.");
+                    continue;
+                }
+                if (offset != length) {
+                    BCLib.LOGGER.error("   - Invalid block hashes for " + id.first + ", skipping the File.");
+                    continue;
+                }
+
+                final String type = SendFiles.acceptedType(id.first);
+                if (type == null) {
+                    if (Configs.MAIN_CONFIG.verboseLogging())
+                        BCLib.LOGGER.info("	- Ignoring " + id.first + " (" + PathUtil.humanReadableFileSize(length) + ")");
+                    continue;
+                }
+
+                pendingFiles.add(new PendingFile(i, id.first, type, length, hash, blocks));
+            }
+        }
+    }
+
+    @Environment(EnvType.CLIENT)
+    @Override
+    protected void runOnClientGameThread(Minecraft client) {
+        if (pendingFiles != null) {
+            final List<PendingFile> files = pendingFiles;
+            final String token = this.token;
+            //reading and splitting the local files happens in the background, the request is sent from the game thread
+            CompletableFuture
+                    .runAsync(() -> matchLocalBlocks(files), Util.backgroundExecutor())
+                    .whenCompleteAsync((result, error) -> {
+                        if (error != null) {
+                            BCLib.LOGGER.error("Failed to compare the local Files with File Transfer " + token, error);
+                            RequestFiles.newToken();
+                        } else {
+                            DataExchangeAPI.send(new RequestFileBlocks(token, files));
+                        }
+                    }, client);
+        }
+    }
+
+    @Environment(EnvType.CLIENT)
+    private static void matchLocalBlocks(List<PendingFile> files) {
+        for (PendingFile file : files) {
+            file.matchLocalBlocks();
+            if (Configs.MAIN_CONFIG.verboseLogging())
+                BCLib.LOGGER.info("	- " + file.type + file.entry + " (" + PathUtil.humanReadableFileSize(file.missingBytes()) + " of " + PathUtil.humanReadableFileSize(file.length) + " missing)");
+        }
+    }
+}
@@ -19,8 +19,10 @@ import net.fabricmc.fabric.api.networking.v1.PacketSender;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -112,21 +114,12 @@ public class SendFiles extends DataHandler.FromServer {
             for (int i = 0; i < size; i++) {
                 Triple<AutoFileSyncEntry, byte[], AutoSyncID> p = AutoFileSyncEntry.deserializeContent(buf);
                 if (p.first != null) {
-                    final String type;
-                    if (p.first.isConfigFile() && Configs.CLIENT_CONFIG.isAcceptingConfigs()) {
+                    final String type = acceptedType(p.first);
+                    if (type != null) {
                         receivedFiles.add(p);
-                        type = "Accepted Config ";
-                    } else if (p.first instanceof AutoFileSyncEntry.ForModFileRequest && Configs.CLIENT_CONFIG.isAcceptingMods()) {
-                        receivedFiles.add(p);
-                        type = "Accepted Mod ";
-                    } else if (Configs.CLIENT_CONFIG.isAcceptingFiles()) {
-                        receivedFiles.add(p);
-                        type = "Accepted File ";
-                    } else {
-                        type = "Ignoring ";
                     }
                     if (Configs.MAIN_CONFIG.verboseLogging())
-                        BCLib.LOGGER.info("	- " + type + p.first + " (" + PathUtil.humanReadableFileSize(p.second.length) + ")");
+                        BCLib.LOGGER.info("	- " + (type == null ? "Ignoring " : type) + p.first + " (" + PathUtil.humanReadableFileSize(p.second.length) + ")");
                 } else {
                     if (Configs.MAIN_CONFIG.verboseLogging())
                         BCLib.LOGGER.error("   - Failed to receive File " + p.third + ", possibly sent from a Mod that is not installed on the client.");
@@ -135,20 +128,39 @@ public class SendFiles extends DataHandler.FromServer {
         }
     }
 
+    /**
+     * @return A description of the accepted type of file, or {@code null} if the client does not accept the file
+     */
+    @Environment(EnvType.CLIENT)
+    static String acceptedType(AutoFileSyncEntry entry) {
+        if (entry.isConfigFile() && Configs.CLIENT_CONFIG.isAcceptingConfigs()) {
+            return "Accepted Config ";
+        } else if (entry instanceof AutoFileSyncEntry.ForModFileRequest && Configs.CLIENT_CONFIG.isAcceptingMods()) {
+            return "Accepted Mod ";
+        } else if (Configs.CLIENT_CONFIG.isAcceptingFiles()) {
+            return "Accepted File ";
+        }
+        return null;
+    }
+
     @Environment(EnvType.CLIENT)
     @Override
     protected void runOnClientGameThread(Minecraft client) {
         if (Configs.CLIENT_CONFIG.isAcceptingConfigs() || Configs.CLIENT_CONFIG.isAcceptingFiles() || Configs.CLIENT_CONFIG.isAcceptingMods()) {
-            BCLib.LOGGER.info("Writing Files:");
+            writeReceivedFiles(receivedFiles);
+            showConfirmRestart(client);
+        }
+    }
 
-            for (Pair<AutoFileSyncEntry, byte[]> entry : receivedFiles) {
-                final AutoFileSyncEntry e = entry.first;
-                final byte[] data = entry.second;
+    @Environment(EnvType.CLIENT)
+    static void writeReceivedFiles(List<Pair<AutoFileSyncEntry, byte[]>> files) {
+        BCLib.LOGGER.info("Writing Files:");
 
-                writeSyncedFile(e, data, e.fileName);
-            }
+        for (Pair<AutoFileSyncEntry, byte[]> entry : files) {
+            final AutoFileSyncEntry e = entry.first;
+            final byte[] data = entry.second;
 
-            showConfirmRestart(client);
+            writeSyncedFile(e, data, e.fileName);
         }
     }
 
@@ -195,7 +207,14 @@ public class SendFiles extends DataHandler.FromServer {
             if (!parentFile.exists()) {
                 parentFile.mkdirs();
             }
-            Files.write(path, data);
+            //write next to the target and move it in place, so an interrupted write never leaves a broken file
+            final Path tempPath = path.resolveSibling(path.getFileName() + ".bclib_sync");
+            Files.write(tempPath, data);
+            try {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException atomicMoveNotSupported) {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
             if (removeAfter != null) {
                 final String bakFileName = removeAfter.toFile().getName();
                 String collisionFreeName = bakFileName;
@@ -220,6 +239,11 @@ public class SendFiles extends DataHandler.FromServer {
 
     @Environment(EnvType.CLIENT)
     protected void showConfirmRestart(Minecraft client) {
+        openConfirmRestart(client);
+    }
+
+    @Environment(EnvType.CLIENT)
+    static void openConfirmRestart(Minecraft client) {
         client.setScreen(new ConfirmRestartScreen(() -> {
             Minecraft.getInstance()
                      .setScreen(null);
@@ -12,6 +12,7 @@ import net.minecraft.network.FriendlyByteBuf;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.jetbrains.annotations.NotNull;
 
@@ -109,12 +110,16 @@ public class SyncFolderDescriptor {
 
     public void loadCache() {
         if (fileCache == null) {
-            fileCache = new ArrayList<>(8);
-            PathUtil.fileWalker(localFolder.toFile(), p -> fileCache.add(new SubFile(
-                    localFolder.relativize(p)
-                               .toString(),
-                    FileHash.create(p.toFile())
-            )));
+            final List<Path> files = new ArrayList<>(8);
+            PathUtil.fileWalker(localFolder.toFile(), files::add);
+            fileCache = files.parallelStream()
+                             .map(p -> new SubFile(
+                                     localFolder.relativize(p)
+                                                .toString(),
+                                     FileHash.create(p.toFile())
+                             ))
+                             .collect(Collectors.toCollection(ArrayList::new));
+            FileHash.saveCache();
 			
 			/*//this tests if we can trick the system to load files that are not beneath the base-folder
 			if (!BCLib.isClient()) {
@@ -29,6 +29,10 @@ import java.io.*;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -44,10 +48,10 @@ public class DataFixerAPI {
     static final Logger LOGGER = new Logger("DataFixerAPI");
 
     static class State {
-        public boolean didFail = false;
+        public volatile boolean didFail = false;
         protected ArrayList<String> errors = new ArrayList<>();
 
-        public void addError(String s) {
+        public synchronized void addError(String s) {
             errors.add(s);
         }
 
@@ -184,7 +188,7 @@ public class DataFixerAPI {
 
                         @Override
                         public void incAtomic(int maxProgress) {
-                            int percentage = (100 * counter.incrementAndGet()) / maxProgress;
+                            int percentage = (int) ((100L * counter.incrementAndGet()) / maxProgress);
                             if (Util.getMillis() - this.timeStamp >= 1000L) {
                                 this.timeStamp = Util.getMillis();
                                 BCLib.LOGGER.info("Patching... {}%", percentage);
@@ -313,7 +317,8 @@ public class DataFixerAPI {
         progress.progressStage(Component.translatable("message.bclib.datafixer.progress.reading"));
         List<File> players = getAllPlayers(dir);
         List<File> regions = getAllRegions(dir, null);
-        final int maxProgress = players.size() + regions.size() + 4;
+        //regions report their progress per chunk
+        final int maxProgress = players.size() + regions.size() * CHUNKS_PER_REGION + 4;
         progress.incAtomic(maxProgress);
 
         progress.progressStage(Component.translatable("message.bclib.datafixer.progress.players"));
@@ -337,10 +342,7 @@ public class DataFixerAPI {
         progress.incAtomic(maxProgress);
 
         progress.progressStage(Component.translatable("message.bclib.datafixer.progress.regions"));
-        regions.parallelStream().forEach((file) -> {
-            fixRegion(profile, state, file);
-            progress.incAtomic(maxProgress);
-        });
+        fixRegions(profile, state, regions, () -> progress.incAtomic(maxProgress));
 
         if (!state.didFail) {
             progress.progressStage(Component.translatable("message.bclib.datafixer.progress.saving"));
@@ -446,75 +448,184 @@ public class DataFixerAPI {
         return _changed;
     }
 
-    private static void fixRegion(MigrationProfile data, State state, File file) {
+    private static final int CHUNKS_PER_REGION = 32 * 32;
+
+    /**
+     * Fixes all chunks of the given region files.
+     * <p>
+     * Chunks are decoded and patched on a bounded pool, a region stays open until the last of its chunks was written.
+     * {@link RegionFile} is not thread-safe, so every access to a region (reads, writes and closing) holds the lock
+     * of the region file instance.
+     * <p>
+     * If the profile has no block state patchers, only id replacements can change a chunk. In that case the
+     * uncompressed chunk data is first scanned for any of the replaced ids and chunks without a match are never
+     * decoded.
+     */
+    private static void fixRegions(MigrationProfile data, State state, List<File> regions, Runnable onChunkDone) {
+        final NbtStringMatcher prescan = data.statePatchers.isEmpty()
+                ? new NbtStringMatcher(data.idReplacements.keySet())
+                : null;
+        if (prescan != null && data.idReplacements.isEmpty()) {
+            LOGGER.info("No id replacements, skipping regions");
+            for (int i = 0; i < regions.size() * CHUNKS_PER_REGION; i++) {
+                onChunkDone.run();
+            }
+            return;
+        }
+
+        final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        //limits the number of chunks that are read but not yet written
+        final Semaphore inFlight = new Semaphore(threads * 4);
         try {
-            Path path = file.toPath();
-            LOGGER.info("Inspecting " + path);
-            boolean[] changed = new boolean[1];
-            RegionFile region = new RegionFile(path, path.getParent(), true);
-
-            for (int x = 0; x < 32; x++) {
-                for (int z = 0; z < 32; z++) {
-                    ChunkPos pos = new ChunkPos(x, z);
-                    changed[0] = false;
-                    if (region.hasChunk(pos) && !state.didFail) {
-                        DataInputStream input = region.getChunkDataInputStream(pos);
-                        CompoundTag root = NbtIo.read(input);
-                        // if ((root.toString().contains("betternether:chest") || root.toString().contains("bclib:chest"))) {
-                        //   NbtIo.write(root, new File(file.toString() + "-" + x + "-" + z + ".nbt"));
-                        // }
-                        input.close();
-
-                        //Checking TileEntities
-                        ListTag tileEntities = root.getCompound("Level")
-                                                   .getList("TileEntities", Tag.TAG_COMPOUND);
-                        fixItemArrayWithID(tileEntities, changed, data, true);
-
-                        //Checking Entities
-                        ListTag entities = root.getList("Entities", Tag.TAG_COMPOUND);
-                        fixItemArrayWithID(entities, changed, data, true);
-
-                        //Checking Block Palette
-                        ListTag sections = root.getCompound("Level")
-                                               .getList("Sections", Tag.TAG_COMPOUND);
-                        sections.forEach((tag) -> {
-                            ListTag palette = ((CompoundTag) tag).getList("Palette", Tag.TAG_COMPOUND);
-                            palette.forEach((blockTag) -> {
-                                CompoundTag blockTagCompound = ((CompoundTag) blockTag);
-                                changed[0] |= data.replaceStringFromIDs(blockTagCompound, "Name");
-                            });
+            for (File file : regions) {
+                if (state.didFail) {
+                    for (int i = 0; i < CHUNKS_PER_REGION; i++) onChunkDone.run();
+                    continue;
+                }
+
+                final Path path = file.toPath();
+                LOGGER.info("Inspecting " + path);
+                final RegionFile region;
+                try {
+                    region = new RegionFile(path, path.getParent(), true);
+                } catch (Exception e) {
+                    BCLib.LOGGER.error("Failed fixing Region.");
+                    state.addError("Failed fixing Region in " + file.getName() + " (" + e.getMessage() + ")");
+                    state.didFail = true;
+                    e.printStackTrace();
+                    for (int i = 0; i < CHUNKS_PER_REGION; i++) onChunkDone.run();
+                    continue;
+                }
+
+                //the submitting loop holds one reference, every pending chunk another one
+                final AtomicInteger pending = new AtomicInteger(1);
+                for (int x = 0; x < 32; x++) {
+                    for (int z = 0; z < 32; z++) {
+                        final ChunkPos pos = new ChunkPos(x, z);
+                        final boolean hasChunk;
+                        synchronized (region) {
+                            hasChunk = region.hasChunk(pos);
+                        }
+                        if (state.didFail || !hasChunk) {
+                            onChunkDone.run();
+                            continue;
+                        }
 
+                        inFlight.acquireUninterruptibly();
+                        pending.incrementAndGet();
+                        executor.execute(() -> {
                             try {
-                                changed[0] |= data.patchBlockState(
-                                        palette,
-                                        ((CompoundTag) tag).getList(
-                                                "BlockStates",
-                                                Tag.TAG_LONG
-                                        )
-                                );
-                            } catch (PatchDidiFailException e) {
-                                BCLib.LOGGER.error("Failed fixing BlockState in " + pos);
-                                state.addError("Failed fixing BlockState in " + pos + " (" + e.getMessage() + ")");
-                                state.didFail = true;
-                                changed[0] = false;
-                                e.printStackTrace();
+                                fixChunk(data, state, file, region, pos, prescan);
+                            } finally {
+                                inFlight.release();
+                                onChunkDone.run();
+                                if (pending.decrementAndGet() == 0) closeRegion(state, file, region);
                             }
                         });
+                    }
+                }
+                if (pending.decrementAndGet() == 0) closeRegion(state, file, region);
+            }
+        } finally {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    LOGGER.info("Waiting for region fixes to finish");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 
-                        if (changed[0]) {
-                            LOGGER.warning("Writing '{}': {}/{}", file, x, z);
-                            // NbtIo.write(root, new File(file.toString() + "-" + x + "-" + z + "-changed.nbt"));
-                            DataOutputStream output = region.getChunkDataOutputStream(pos);
-                            NbtIo.write(root, output);
-                            output.close();
-                        }
+    private static void closeRegion(State state, File file, RegionFile region) {
+        try {
+            synchronized (region) {
+                region.close();
+            }
+        } catch (IOException e) {
+            BCLib.LOGGER.error("Failed fixing Region.");
+            state.addError("Failed fixing Region in " + file.getName() + " (" + e.getMessage() + ")");
+            state.didFail = true;
+            e.printStackTrace();
+        }
+    }
+
+    private static void fixChunk(
+            MigrationProfile data,
+            State state,
+            File file,
+            RegionFile region,
+            ChunkPos pos,
+            NbtStringMatcher prescan
+    ) {
+        if (state.didFail) return;
+        try {
+            final byte[] raw;
+            synchronized (region) {
+                try (DataInputStream input = region.getChunkDataInputStream(pos)) {
+                    if (input == null) return;
+                    raw = input.readAllBytes();
+                }
+            }
+            if (prescan != null && !prescan.matches(raw)) return;
+
+            final boolean[] changed = new boolean[1];
+            CompoundTag root = NbtIo.read(new DataInputStream(new ByteArrayInputStream(raw)));
+
+            //Checking TileEntities
+            ListTag tileEntities = root.getCompound("Level")
+                                       .getList("TileEntities", Tag.TAG_COMPOUND);
+            fixItemArrayWithID(tileEntities, changed, data, true);
+
+            //Checking Entities
+            ListTag entities = root.getList("Entities", Tag.TAG_COMPOUND);
+            fixItemArrayWithID(entities, changed, data, true);
+
+            //Checking Block Palette
+            ListTag sections = root.getCompound("Level")
+                                   .getList("Sections", Tag.TAG_COMPOUND);
+            sections.forEach((tag) -> {
+                ListTag palette = ((CompoundTag) tag).getList("Palette", Tag.TAG_COMPOUND);
+                palette.forEach((blockTag) -> {
+                    CompoundTag blockTagCompound = ((CompoundTag) blockTag);
+                    changed[0] |= data.replaceStringFromIDs(blockTagCompound, "Name");
+                });
+
+                try {
+                    changed[0] |= data.patchBlockState(
+                            palette,
+                            ((CompoundTag) tag).getList(
+                                    "BlockStates",
+                                    Tag.TAG_LONG
+                            )
+                    );
+                } catch (PatchDidiFailException e) {
+                    BCLib.LOGGER.error("Failed fixing BlockState in " + pos);
+                    state.addError("Failed fixing BlockState in " + pos + " (" + e.getMessage() + ")");
+                    state.didFail = true;
+                    changed[0] = false;
+                    e.printStackTrace();
+                }
+            });
+
+            if (changed[0] && !state.didFail) {
+                LOGGER.warning("Writing '{}': {}/{}", file, pos.x, pos.z);
+                //encode outside of the lock, only the (compressed) write needs the region
+                final ByteArrayOutputStream encoded = new ByteArrayOutputStream(raw.length);
+                try (DataOutputStream encoder = new DataOutputStream(encoded)) {
+                    NbtIo.write(root, encoder);
+                }
+                synchronized (region) {
+                    try (DataOutputStream output = region.getChunkDataOutputStream(pos)) {
+                        encoded.writeTo(output);
                     }
                 }
             }
-            region.close();
         } catch (Exception e) {
             BCLib.LOGGER.error("Failed fixing Region.");
-            state.addError("Failed fixing Region in " + file.getName() + " (" + e.getMessage() + ")");
+            state.addError("Failed fixing Region in " + file.getName() + " at " + pos + " (" + e.getMessage() + ")");
             state.didFail = true;
             e.printStackTrace();
         }
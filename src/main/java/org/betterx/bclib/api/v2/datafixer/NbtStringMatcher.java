@@ -0,0 +1,109 @@
+package org.betterx.bclib.api.v2.datafixer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton that looks for NBT strings in raw, uncompressed NBT data.
+ * <p>
+ * NBT stores strings as modified UTF-8 with a two byte length prefix. The patterns include that prefix, so a match
+ * means that a string tag (or a compound key) is exactly equal to one of the strings, longer ids that only contain
+ * one of them do not match. The automaton is a complete DFA over the bytes that occur in the patterns, every input
+ * byte costs one table lookup.
+ */
+class NbtStringMatcher {
+    private final int[] byteClass = new int[256];
+    private final int classCount;
+    private final int[] transitions;
+    private final boolean[] accepting;
+
+    NbtStringMatcher(Collection<String> strings) {
+        final List<byte[]> patterns = new ArrayList<>(strings.size());
+        int totalLength = 0;
+        int classes = 1;
+        for (String s : strings) {
+            final byte[] pattern = encode(s);
+            patterns.add(pattern);
+            totalLength += pattern.length;
+            for (byte b : pattern) {
+                if (byteClass[b & 0xFF] == 0) byteClass[b & 0xFF] = classes++;
+            }
+        }
+        this.classCount = classes;
+
+        //build the trie, -1 marks a missing edge
+        int[] table = new int[(totalLength + 1) * classCount];
+        Arrays.fill(table, -1);
+        final boolean[] accept = new boolean[totalLength + 1];
+        int nodes = 1;
+        for (byte[] pattern : patterns) {
+            int node = 0;
+            for (byte b : pattern) {
+                final int index = node * classCount + byteClass[b & 0xFF];
+                if (table[index] < 0) table[index] = nodes++;
+                node = table[index];
+            }
+            accept[node] = true;
+        }
+
+        //turn the trie into a DFA by following the failure links in breadth first order
+        final int[] fail = new int[nodes];
+        final int[] queue = new int[nodes];
+        int head = 0;
+        int tail = 0;
+        for (int c = 0; c < classCount; c++) {
+            final int child = table[c];
+            if (child < 0) {
+                table[c] = 0;
+            } else {
+                fail[child] = 0;
+                queue[tail++] = child;
+            }
+        }
+        while (head < tail) {
+            final int node = queue[head++];
+            accept[node] |= accept[fail[node]];
+            for (int c = 0; c < classCount; c++) {
+                final int index = node * classCount + c;
+                final int fallback = table[fail[node] * classCount + c];
+                if (table[index] < 0) {
+                    table[index] = fallback;
+                } else {
+                    fail[table[index]] = fallback;
+                    queue[tail++] = table[index];
+                }
+            }
+        }
+
+        this.transitions = Arrays.copyOf(table, nodes * classCount);
+        this.accepting = Arrays.copyOf(accept, nodes);
+    }
+
+    private static byte[] encode(String s) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(s.length() + 2);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(s);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return {@code true} if any of the strings occurs in {@code data}
+     */
+    boolean matches(byte[] data) {
+        int node = 0;
+        for (byte b : data) {
+            node = transitions[node * classCount + byteClass[b & 0xFF]];
+            if (accepting[node]) return true;
+        }
+        return false;
+    }
+}
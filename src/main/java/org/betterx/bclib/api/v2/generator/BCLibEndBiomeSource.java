@@ -13,7 +13,6 @@ import com.mojang.serialization.codecs.RecordCodecBuilder;
 import net.minecraft.core.Holder;
 import net.minecraft.core.QuartPos;
 import net.minecraft.core.Registry;
-import net.minecraft.core.SectionPos;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.world.level.biome.Biome;
@@ -58,6 +57,8 @@ public class BCLibEndBiomeSource extends BCLBiomeSource implements BiomeSourceWi
     private BiomePicker endCenterBiomePicker;
     private BiomePicker endBarrensBiomePicker;
     private List<BiomeDecider> deciders;
+    private BiomeDecider[] deciderArray;
+    private final ThreadLocal<LookupCache> lookupCache = ThreadLocal.withInitial(LookupCache::new);
 
     private BCLEndBiomeSourceConfig config;
 
@@ -102,6 +103,7 @@ public class BCLibEndBiomeSource extends BCLBiomeSource implements BiomeSourceWi
                                              .filter(d -> d.canProvideFor(this))
                                              .map(d -> d.createInstance(this))
                                              .toList();
+        this.deciderArray = deciders.toArray(new BiomeDecider[0]);
 
         this.endLandBiomePicker = new BiomePicker();
         this.endVoidBiomePicker = new BiomePicker();
@@ -240,23 +242,19 @@ public class BCLibEndBiomeSource extends BCLBiomeSource implements BiomeSourceWi
                 ? ((long) config.innerVoidRadiusSquared + 1)
                 : (long) posX * (long) posX + (long) posZ * (long) posZ;
 
-
+        //bcl maps are bounded and ignore this, maps from custom deciders may rely on it for eviction
         if ((biomeX & 63) == 0 || (biomeZ & 63) == 0) {
             mapLand.clearCache();
             mapVoid.clearCache();
             mapCenter.clearCache();
-            mapVoid.clearCache();
-            for (BiomeDecider decider : deciders) {
+            mapBarrens.clearCache();
+            for (BiomeDecider decider : deciderArray) {
                 decider.clearMapCache();
             }
         }
 
+        double d = lookupCache.get().erosion(sampler, biomeX, biomeY, biomeZ);
         BiomeAPI.BiomeType suggestedType;
-
-
-        int x = (SectionPos.blockToSectionCoord(posX) * 2 + 1) * 8;
-        int z = (SectionPos.blockToSectionCoord(posZ) * 2 + 1) * 8;
-        double d = sampler.erosion().compute(new DensityFunction.SinglePointContext(x, posY, z));
         if (dist <= (long) config.innerVoidRadiusSquared) {
             suggestedType = BiomeAPI.BiomeType.END_CENTER;
         } else {
@@ -273,6 +271,7 @@ public class BCLibEndBiomeSource extends BCLBiomeSource implements BiomeSourceWi
             }
         }
 
+        final BiomeDecider[] deciders = this.deciderArray;
         final BiomeAPI.BiomeType originalType = suggestedType;
         for (BiomeDecider decider : deciders) {
             suggestedType = decider
@@ -327,4 +326,68 @@ public class BCLibEndBiomeSource extends BCLBiomeSource implements BiomeSourceWi
         rebuildBiomes(true);
         this.initMap(currentSeed);
     }
+
+    /**
+     * Per-thread scratch state for {@link #getNoiseBiome(int, int, int, Climate.Sampler)}.
+     * <p>
+     * The erosion is sampled at the center of the chunk section, so all 16 quarts of one y-layer in a section share
+     * the same value. Chunks fill their biomes section by section, the cache keeps the erosion of the current section
+     * and only samples the density function once per layer.
+     */
+    private static final class LookupCache {
+        private final MutableContext context = new MutableContext();
+        private final double[] erosion = new double[4];
+        private Climate.Sampler sampler;
+        private int sectionX;
+        private int sectionY;
+        private int sectionZ;
+        private int sampledLayers;
+
+        double erosion(Climate.Sampler sampler, int biomeX, int biomeY, int biomeZ) {
+            final int sectionX = QuartPos.toSection(biomeX);
+            final int sectionY = QuartPos.toSection(biomeY);
+            final int sectionZ = QuartPos.toSection(biomeZ);
+            if (sampler != this.sampler
+                    || sectionX != this.sectionX
+                    || sectionY != this.sectionY
+                    || sectionZ != this.sectionZ) {
+                this.sampler = sampler;
+                this.sectionX = sectionX;
+                this.sectionY = sectionY;
+                this.sectionZ = sectionZ;
+                this.sampledLayers = 0;
+            }
+
+            final int layer = biomeY & 3;
+            if ((sampledLayers & (1 << layer)) == 0) {
+                context.x = (sectionX * 2 + 1) * 8;
+                context.y = QuartPos.toBlock(biomeY);
+                context.z = (sectionZ * 2 + 1) * 8;
+                erosion[layer] = sampler.erosion().compute(context);
+                sampledLayers |= 1 << layer;
+            }
+            return erosion[layer];
+        }
+    }
+
+    private static final class MutableContext implements DensityFunction.FunctionContext {
+        private int x;
+        private int y;
+        private int z;
+
+        @Override
+        public int blockX() {
+            return x;
+        }
+
+        @Override
+        public int blockY() {
+            return y;
+        }
+
+        @Override
+        public int blockZ() {
+            return z;
+        }
+    }
 }
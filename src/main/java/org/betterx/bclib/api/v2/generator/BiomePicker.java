@@ -16,6 +16,7 @@ import net.minecraft.world.level.levelgen.WorldgenRandom;
 
 import com.google.common.collect.Lists;
 
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -76,6 +77,50 @@ public class BiomePicker {
         return biomes.isEmpty();
     }
 
+    /**
+     * @return All biomes this picker can return (including sub-biomes and edges), sorted by their id
+     */
+    public List<ActualBiome> getAllBiomes() {
+        List<ActualBiome> result = Lists.newArrayList(all.values());
+        result.sort(Comparator.comparing(biome -> biome.key.location().toString()));
+        return result;
+    }
+
+    /**
+     * Hashes everything that influences the results of this picker: the order of the picked biomes and the
+     * weights, edges, sub-biomes and parents of all known biomes.
+     *
+     * @return The fingerprint of the current biome setup
+     */
+    public long getFingerprint() {
+        long hash = 1;
+        for (ActualBiome biome : biomes) {
+            hash = mix(hash, biome.key.location().toString());
+        }
+        for (ActualBiome biome : getAllBiomes()) {
+            hash = mix(hash, biome.key.location().toString());
+            hash = mix(hash, biome.isValid ? 1 : 0);
+            hash = mix(hash, Float.floatToIntBits(biome.bclBiome.settings.getGenChance()));
+            hash = mix(hash, biome.bclBiome.settings.getEdgeSize());
+            hash = mix(hash, biome.edge == null ? "" : biome.edge.key.location().toString());
+            hash = mix(hash, biome.parent == null ? "" : biome.parent.key.location().toString());
+            for (int i = 0; i < biome.subbiomes.size(); i++) {
+                hash = mix(hash, biome.subbiomes.get(i).key.location().toString());
+                hash = mix(hash, Float.floatToIntBits(biome.subbiomes.getWeight(i)));
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        return mix(hash, value.hashCode());
+    }
+
+    private static long mix(long hash, int value) {
+        hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
     public void rebuild() {
         WeightedList<ActualBiome> list = new WeightedList<>();
 
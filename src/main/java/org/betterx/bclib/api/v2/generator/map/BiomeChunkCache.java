@@ -0,0 +1,173 @@
+package org.betterx.bclib.api.v2.generator.map;
+
+import org.betterx.bclib.config.Configs;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache for the chunks of a {@link org.betterx.bclib.interfaces.BiomeMap}.
+ * <p>
+ * Keys are packed chunk positions. The cache is split into segments that are locked independently, each segment
+ * evicts with the clock (second chance) algorithm, so chunks that are still used by other worldgen threads survive
+ * when the cache is full.
+ *
+ * @param <T> The chunk type
+ */
+public class BiomeChunkCache<T> {
+    private static final int SEGMENT_COUNT = 16;
+
+    private final Segment<T>[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache with the size from the generator config.
+     */
+    public BiomeChunkCache() {
+        this(Configs.GENERATOR_CONFIG.biomeChunkCacheSize());
+    }
+
+    @SuppressWarnings("unchecked")
+    public BiomeChunkCache(int capacity) {
+        int segmentCapacity = Math.max(4, (capacity + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+    }
+
+    private Segment<T> segment(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return segments[(int) (hash >>> 60) & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * @return The cached chunk or {@code null}
+     */
+    public T get(long key) {
+        T value = segment(key).get(key);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Stores a chunk unless another thread stored one for the same key first.
+     *
+     * @return The chunk that is in the cache after the call
+     */
+    public T putIfAbsent(long key, T value) {
+        return segment(key).putIfAbsent(key, value, evictions);
+    }
+
+    public void clear() {
+        for (Segment<T> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<T> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return "BiomeChunkCache{size=" + size()
+                + ", hits=" + hits
+                + ", misses=" + getMisses()
+                + ", evictions=" + getEvictions()
+                + ", hitRate=" + (total == 0 ? 0 : (100 * hits / total)) + "%}";
+    }
+
+    private static final class Segment<T> {
+        private final Long2IntOpenHashMap slots;
+        private final long[] keys;
+        private final Object[] values;
+        private final boolean[] referenced;
+        private int size;
+        private int hand;
+
+        Segment(int capacity) {
+            slots = new Long2IntOpenHashMap(capacity);
+            slots.defaultReturnValue(-1);
+            keys = new long[capacity];
+            values = new Object[capacity];
+            referenced = new boolean[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized T get(long key) {
+            int slot = slots.get(key);
+            if (slot < 0) {
+                return null;
+            }
+            referenced[slot] = true;
+            return (T) values[slot];
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized T putIfAbsent(long key, T value, LongAdder evictions) {
+            int slot = slots.get(key);
+            if (slot >= 0) {
+                referenced[slot] = true;
+                return (T) values[slot];
+            }
+
+            if (size < keys.length) {
+                slot = size++;
+            } else {
+                while (referenced[hand]) {
+                    referenced[hand] = false;
+                    hand = (hand + 1) % keys.length;
+                }
+                slot = hand;
+                hand = (hand + 1) % keys.length;
+                slots.remove(keys[slot]);
+                evictions.increment();
+            }
+
+            keys[slot] = key;
+            values[slot] = value;
+            referenced[slot] = false;
+            slots.put(key, slot);
+            return value;
+        }
+
+        synchronized void clear() {
+            slots.clear();
+            Arrays.fill(values, null);
+            Arrays.fill(referenced, false);
+            size = 0;
+            hand = 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+}
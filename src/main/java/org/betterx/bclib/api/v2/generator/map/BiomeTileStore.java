@@ -0,0 +1,305 @@
+package org.betterx.bclib.api.v2.generator.map;
+
+import org.betterx.bclib.BCLib;
+import org.betterx.bclib.api.v2.generator.BiomePicker;
+import org.betterx.bclib.config.Configs;
+import org.betterx.bclib.interfaces.BiomeChunk;
+import org.betterx.worlds.together.world.WorldConfig;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Persists generated {@link BiomeChunk}s of a {@link org.betterx.bclib.interfaces.BiomeMap} in the world folder.
+ * <p>
+ * Chunks are grouped into regions of 32x32 map chunks, every region is a memory mapped file that stores one
+ * {@code short} per cell. A cell holds the index of its biome in the sorted biome list of the picker plus one, so
+ * a zero in the first cell marks a chunk that was not stored yet. The folder name contains the map type, the seed
+ * and {@link BiomePicker#getFingerprint()}, a different biome setup never reads tiles of an old one.
+ * <p>
+ * Regions are written back when they are evicted, when a level is saved and when the server stops. Once the server
+ * stopped, folders of an older format and folders that were not opened for {@link #STALE_DAYS} days are deleted.
+ * <p>
+ * Only the output of the chunk generator is stored, chunk processors still run after a chunk was loaded. Reads and
+ * writes of a chunk hold a lock of its region, so a chunk stored on one worldgen thread is completely visible to the
+ * others.
+ */
+public class BiomeTileStore {
+    private static final String FOLDER = "bclib_biome_tiles";
+    //increase when the layout of the region files changes, folders of other versions are deleted
+    private static final int FORMAT_VERSION = 1;
+    private static final int STALE_DAYS = 30;
+    private static final int REGION_BITS = 5;
+    private static final int REGION_SIZE = 1 << REGION_BITS;
+    private static final int REGION_MASK = REGION_SIZE - 1;
+    private static final int MAX_OPEN_REGIONS = 64;
+    private static final int LOCK_COUNT = 64;
+
+    private final Path folder;
+    private final int side;
+    private final int chunkBytes;
+    private final List<BiomePicker.ActualBiome> palette;
+    private final Object2IntOpenHashMap<BiomePicker.ActualBiome> paletteIndex;
+    //access ordered, guarded by itself
+    private final Long2ObjectLinkedOpenHashMap<MappedByteBuffer> regions = new Long2ObjectLinkedOpenHashMap<>();
+    //locks are picked by region key, a region that is mapped again after an eviction keeps its lock
+    private final Object[] locks = new Object[LOCK_COUNT];
+    private volatile boolean failed;
+
+    //stores of the running server, guarded by itself
+    private static final List<BiomeTileStore> OPEN = new ArrayList<>();
+
+    private BiomeTileStore(Path folder, int side, BiomePicker picker) {
+        this.folder = folder;
+        this.side = side;
+        this.chunkBytes = side * side * 2;
+        this.palette = picker.getAllBiomes();
+        this.paletteIndex = new Object2IntOpenHashMap<>(palette.size());
+        this.paletteIndex.defaultReturnValue(-1);
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        for (int i = 0; i < palette.size(); i++) {
+            paletteIndex.put(palette.get(i), i);
+        }
+    }
+
+    /**
+     * Creates a store for a biome map.
+     *
+     * @param type   Name of the map implementation
+     * @param seed   Seed that was passed to the map
+     * @param side   Number of cells along one side of a map chunk
+     * @param picker The picker of the map
+     * @return The store or {@code null} if stores are disabled or no world is loaded
+     */
+    public static BiomeTileStore open(String type, long seed, int side, BiomePicker picker) {
+        if (!Configs.GENERATOR_CONFIG.biomeTileStore()) return null;
+        final File dataDir = WorldConfig.getDataDir();
+        if (dataDir == null) return null;
+
+        final Path folder = dataDir.toPath().resolve(FOLDER).resolve(String.format(
+                Locale.ROOT,
+                "v%d_%s_%016x_%016x",
+                FORMAT_VERSION,
+                type,
+                seed,
+                picker.getFingerprint()
+        ));
+        final BiomeTileStore store = new BiomeTileStore(folder, side, picker);
+        synchronized (OPEN) {
+            OPEN.add(store);
+        }
+        return store;
+    }
+
+    @ApiStatus.Internal
+    public static void registerLifecycleEvents() {
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> closeAll());
+    }
+
+    /**
+     * Writes the changed regions of all open stores back to their files.
+     */
+    @ApiStatus.Internal
+    public static void flushAll() {
+        final List<BiomeTileStore> stores;
+        synchronized (OPEN) {
+            stores = new ArrayList<>(OPEN);
+        }
+        stores.forEach(BiomeTileStore::flush);
+    }
+
+    private static void closeAll() {
+        final List<BiomeTileStore> stores;
+        synchronized (OPEN) {
+            stores = new ArrayList<>(OPEN);
+            OPEN.clear();
+        }
+
+        final Set<Path> used = new HashSet<>();
+        for (BiomeTileStore store : stores) {
+            store.close();
+            used.add(store.folder);
+        }
+        used.stream().map(Path::getParent).distinct().forEach(root -> deleteStale(root, used));
+    }
+
+    private static void deleteStale(Path root, Set<Path> used) {
+        final String prefix = "v" + FORMAT_VERSION + "_";
+        final long staleBefore = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(STALE_DAYS);
+        final List<Path> folders;
+        try (Stream<Path> list = Files.list(root)) {
+            folders = list.toList();
+        } catch (IOException e) {
+            BCLib.LOGGER.warning("Unable to clean up biome tiles in " + root + ": " + e.getMessage());
+            return;
+        }
+
+        for (Path folder : folders) {
+            if (used.contains(folder)) continue;
+            try {
+                if (folder.getFileName().toString().startsWith(prefix)
+                        && Files.getLastModifiedTime(folder).toMillis() >= staleBefore) continue;
+                try (Stream<Path> files = Files.walk(folder)) {
+                    for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.delete(file);
+                    }
+                }
+                BCLib.LOGGER.info("Deleted stale biome tiles " + folder.getFileName());
+            } catch (IOException e) {
+                BCLib.LOGGER.warning("Unable to delete biome tiles in " + folder + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads a stored chunk.
+     *
+     * @return The biomes in {@code x * side + z} order or {@code null} if the chunk was not stored
+     */
+    public BiomePicker.ActualBiome[] load(int cx, int cz) {
+        final MappedByteBuffer region = getRegion(cx, cz);
+        if (region == null) return null;
+
+        final int offset = chunkOffset(cx, cz);
+        final BiomePicker.ActualBiome[] biomes = new BiomePicker.ActualBiome[side * side];
+        synchronized (lock(cx, cz)) {
+            if (region.getShort(offset) == 0) return null;
+
+            for (int i = 0; i < biomes.length; i++) {
+                int index = (region.getShort(offset + (i << 1)) & 0xFFFF) - 1;
+                if (index < 0 || index >= palette.size()) {
+                    return null;
+                }
+                biomes[i] = palette.get(index);
+            }
+        }
+        return biomes;
+    }
+
+    /**
+     * Stores a freshly generated chunk. Chunks that contain biomes that are unknown to the picker are skipped.
+     */
+    public void store(int cx, int cz, BiomeChunk chunk) {
+        final short[] cells = new short[side * side];
+        for (int x = 0; x < side; x++) {
+            for (int z = 0; z < side; z++) {
+                int index = paletteIndex.getInt(chunk.getBiome(x, z));
+                if (index < 0) return;
+                cells[x * side + z] = (short) (index + 1);
+            }
+        }
+
+        final MappedByteBuffer region = getRegion(cx, cz);
+        if (region == null) return;
+
+        //the first cell marks the chunk as complete, so it is written last in case the game stops while writing
+        final int offset = chunkOffset(cx, cz);
+        synchronized (lock(cx, cz)) {
+            for (int i = 1; i < cells.length; i++) {
+                region.putShort(offset + (i << 1), cells[i]);
+            }
+            region.putShort(offset, cells[0]);
+        }
+    }
+
+    private void flush() {
+        synchronized (regions) {
+            regions.values().forEach(MappedByteBuffer::force);
+        }
+    }
+
+    private void close() {
+        synchronized (regions) {
+            regions.values().forEach(MappedByteBuffer::force);
+            regions.clear();
+        }
+        //marks the folder as used, see deleteStale
+        try {
+            if (Files.isDirectory(folder)) {
+                Files.setLastModifiedTime(folder, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+        } catch (IOException e) {
+            BCLib.LOGGER.warning("Unable to touch biome tiles in " + folder + ": " + e.getMessage());
+        }
+    }
+
+    private static long regionKey(int cx, int cz) {
+        final int rx = cx >> REGION_BITS;
+        final int rz = cz >> REGION_BITS;
+        return (long) rx << 32 | (rz & 0xFFFFFFFFL);
+    }
+
+    private Object lock(int cx, int cz) {
+        return locks[(int) HashCommon.mix(regionKey(cx, cz)) & (LOCK_COUNT - 1)];
+    }
+
+    private int chunkOffset(int cx, int cz) {
+        return ((cx & REGION_MASK) << REGION_BITS | (cz & REGION_MASK)) * chunkBytes;
+    }
+
+    private MappedByteBuffer getRegion(int cx, int cz) {
+        if (failed) return null;
+
+        final int rx = cx >> REGION_BITS;
+        final int rz = cz >> REGION_BITS;
+        final long key = regionKey(cx, cz);
+        synchronized (regions) {
+            MappedByteBuffer region = regions.getAndMoveToLast(key);
+            if (region != null) return region;
+
+            if (regions.size() >= MAX_OPEN_REGIONS) {
+                //the mapping is released once the buffer is collected
+                regions.removeFirst().force();
+            }
+
+            try {
+                Files.createDirectories(folder);
+                final Path file = folder.resolve("r." + rx + "." + rz + ".bin");
+                try (FileChannel channel = FileChannel.open(
+                        file,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE
+                )) {
+                    final long size = (long) REGION_SIZE * REGION_SIZE * chunkBytes;
+                    region = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                }
+            } catch (IOException e) {
+                BCLib.LOGGER.error("Unable to open biome tile store in " + folder + ", disabling it", e);
+                failed = true;
+                return null;
+            }
+
+            regions.putAndMoveToLast(key, region);
+            return region;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BiomeTileStore{" + folder + ", palette=" + palette.size() + '}';
+    }
+}
@@ -9,7 +9,7 @@ import net.minecraft.world.level.levelgen.WorldgenRandom;
 import java.util.Arrays;
 
 public class HexBiomeChunk implements BiomeChunk {
-    private static final short SIDE = 32;
+    static final short SIDE = 32;
     private static final byte SIDE_PRE = 4;
     private static final short SIZE = SIDE * SIDE;
     private static final short MAX_SIDE = SIZE - SIDE;
@@ -94,6 +94,15 @@ public class HexBiomeChunk implements BiomeChunk {
         System.arraycopy(outBuffer, 0, this.biomes, 0, SIZE);
     }
 
+    /**
+     * Creates a chunk from stored biomes.
+     *
+     * @param biomes The biomes in {@code x * side + z} order
+     */
+    HexBiomeChunk(BiomePicker.ActualBiome[] biomes) {
+        System.arraycopy(biomes, 0, this.biomes, 0, SIZE);
+    }
+
     private void circle(
             BiomePicker.ActualBiome[] buffer,
             short center,
@@ -1,6 +1,8 @@
 package org.betterx.bclib.api.v2.generator.map.hex;
 
 import org.betterx.bclib.api.v2.generator.BiomePicker;
+import org.betterx.bclib.api.v2.generator.map.BiomeChunkCache;
+import org.betterx.bclib.api.v2.generator.map.BiomeTileStore;
 import org.betterx.bclib.interfaces.BiomeChunk;
 import org.betterx.bclib.interfaces.BiomeMap;
 import org.betterx.bclib.interfaces.TriConsumer;
@@ -11,9 +13,6 @@ import net.minecraft.util.RandomSource;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.levelgen.WorldgenRandom;
 
-import com.google.common.collect.Maps;
-
-import java.util.Map;
 import java.util.Random;
 
 public class HexBiomeMap implements BiomeMap {
@@ -25,8 +24,9 @@ public class HexBiomeMap implements BiomeMap {
     private static final float[] EDGE_CIRCLE_X;
     private static final float[] EDGE_CIRCLE_Z;
 
-    private final Map<ChunkPos, HexBiomeChunk> chunks = Maps.newConcurrentMap();
+    private final BiomeChunkCache<HexBiomeChunk> chunks = new BiomeChunkCache<>();
     private final BiomePicker picker;
+    private final BiomeTileStore tiles;
 
     private final OpenSimplexNoise[] noises = new OpenSimplexNoise[2];
     private TriConsumer<Integer, Integer, Integer> processor;
@@ -43,13 +43,16 @@ public class HexBiomeMap implements BiomeMap {
         noises[1] = new OpenSimplexNoise(random.nextInt());
         noiseIterations = (byte) Math.min(Math.ceil(Math.log(scale) / Math.log(2)), 5);
         this.seed = random.nextInt();
+        this.tiles = BiomeTileStore.open("hex", seed, HexBiomeChunk.SIDE, picker);
     }
 
     @Override
     public void clearCache() {
-        if (chunks.size() > 127) {
-            chunks.clear();
-        }
+        //the chunk cache is bounded and evicts on its own
+    }
+
+    public BiomeChunkCache<HexBiomeChunk> getCache() {
+        return chunks;
     }
 
     @Override
@@ -78,15 +81,28 @@ public class HexBiomeMap implements BiomeMap {
 
     @Override
     public BiomeChunk getChunk(final int cx, final int cz, final boolean update) {
-        final ChunkPos pos = new ChunkPos(cx, cz);
+        final long pos = ChunkPos.asLong(cx, cz);
         HexBiomeChunk chunk = chunks.get(pos);
         if (chunk == null) {
-            WorldgenRandom random = new WorldgenRandom(RandomSource.create(MHelper.getSeed(seed, cx, cz)));
-            chunk = new HexBiomeChunk(random, picker);
+            chunk = createChunk(cx, cz);
             if (update && processor != null) {
                 processor.accept(cx, cz, chunk.getSide());
             }
-            chunks.put(pos, chunk);
+            chunk = chunks.putIfAbsent(pos, chunk);
+        }
+        return chunk;
+    }
+
+    private HexBiomeChunk createChunk(int cx, int cz) {
+        BiomePicker.ActualBiome[] stored = tiles == null ? null : tiles.load(cx, cz);
+        if (stored != null) {
+            return new HexBiomeChunk(stored);
+        }
+
+        WorldgenRandom random = new WorldgenRandom(RandomSource.create(MHelper.getSeed(seed, cx, cz)));
+        HexBiomeChunk chunk = new HexBiomeChunk(random, picker);
+        if (tiles != null) {
+            tiles.store(cx, cz, chunk);
         }
         return chunk;
     }
@@ -37,6 +37,16 @@ public class SquareBiomeChunk implements BiomeChunk {
         }
     }
 
+    /**
+     * Creates a chunk from stored biomes.
+     *
+     * @param biomes The biomes in {@code x * side + z} order
+     */
+    SquareBiomeChunk(BiomePicker.ActualBiome[] biomes) {
+        this.biomes = new BiomePicker.ActualBiome[CAPACITY];
+        System.arraycopy(biomes, 0, this.biomes, 0, CAPACITY);
+    }
+
     @Override
     public BiomePicker.ActualBiome getBiome(int x, int z) {
         return biomes[getIndex(x & MASK_WIDTH, z & MASK_WIDTH)];
@@ -1,6 +1,8 @@
 package org.betterx.bclib.api.v2.generator.map.square;
 
 import org.betterx.bclib.api.v2.generator.BiomePicker;
+import org.betterx.bclib.api.v2.generator.map.BiomeChunkCache;
+import org.betterx.bclib.api.v2.generator.map.BiomeTileStore;
 import org.betterx.bclib.interfaces.BiomeChunk;
 import org.betterx.bclib.interfaces.BiomeMap;
 import org.betterx.bclib.interfaces.TriConsumer;
@@ -11,16 +13,14 @@ import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.levelgen.LegacyRandomSource;
 import net.minecraft.world.level.levelgen.WorldgenRandom;
 
-import com.google.common.collect.Maps;
-
-import java.util.Map;
 
 public class SquareBiomeMap implements BiomeMap {
-    private final Map<ChunkPos, SquareBiomeChunk> maps = Maps.newHashMap();
+    private final BiomeChunkCache<SquareBiomeChunk> maps = new BiomeChunkCache<>();
     private final OpenSimplexNoise noiseX;
     private final OpenSimplexNoise noiseZ;
     private final WorldgenRandom random;
     private final BiomePicker picker;
+    private final BiomeTileStore tiles;
 
     private final int sizeXZ;
     private final int depth;
@@ -36,13 +36,16 @@ public class SquareBiomeMap implements BiomeMap {
         depth = (int) Math.ceil(Math.log(size) / Math.log(2)) - 2;
         this.size = 1 << depth;
         this.picker = picker;
+        this.tiles = BiomeTileStore.open("square", seed, SquareBiomeChunk.WIDTH, picker);
     }
 
     @Override
     public void clearCache() {
-        if (maps.size() > 32) {
-            maps.clear();
-        }
+        //the chunk cache is bounded and evicts on its own
+    }
+
+    public BiomeChunkCache<SquareBiomeChunk> getCache() {
+        return maps;
     }
 
     @Override
@@ -80,14 +83,10 @@ public class SquareBiomeMap implements BiomeMap {
 
     @Override
     public BiomeChunk getChunk(int cx, int cz, boolean update) {
-        ChunkPos cpos = new ChunkPos(cx, cz);
+        long cpos = ChunkPos.asLong(cx, cz);
         SquareBiomeChunk chunk = maps.get(cpos);
         if (chunk == null) {
-            synchronized (random) {
-                random.setLargeFeatureWithSalt(0, cpos.x, cpos.z, 0);
-                chunk = new SquareBiomeChunk(random, picker);
-            }
-            maps.put(cpos, chunk);
+            chunk = maps.putIfAbsent(cpos, createChunk(cx, cz));
 
             if (update && processor != null) {
                 processor.accept(cx, cz, chunk.getSide());
@@ -97,6 +96,23 @@ public class SquareBiomeMap implements BiomeMap {
         return chunk;
     }
 
+    private SquareBiomeChunk createChunk(int cx, int cz) {
+        BiomePicker.ActualBiome[] stored = tiles == null ? null : tiles.load(cx, cz);
+        if (stored != null) {
+            return new SquareBiomeChunk(stored);
+        }
+
+        SquareBiomeChunk chunk;
+        synchronized (random) {
+            random.setLargeFeatureWithSalt(0, cx, cz, 0);
+            chunk = new SquareBiomeChunk(random, picker);
+        }
+        if (tiles != null) {
+            tiles.store(cx, cz, chunk);
+        }
+        return chunk;
+    }
+
     private BiomePicker.ActualBiome getRawBiome(double bx, double bz) {
         double x = bx * size / sizeXZ;
         double z = bz * size / sizeXZ;
@@ -125,17 +141,12 @@ public class SquareBiomeMap implements BiomeMap {
             z += (ix / 2) & 1;
         }
 
-        ChunkPos cpos = new ChunkPos(
-                MHelper.floor(x / SquareBiomeChunk.WIDTH),
-                MHelper.floor(z / SquareBiomeChunk.WIDTH)
-        );
+        final int cx = MHelper.floor(x / SquareBiomeChunk.WIDTH);
+        final int cz = MHelper.floor(z / SquareBiomeChunk.WIDTH);
+        final long cpos = ChunkPos.asLong(cx, cz);
         SquareBiomeChunk chunk = maps.get(cpos);
         if (chunk == null) {
-            synchronized (random) {
-                random.setLargeFeatureWithSalt(0, cpos.x, cpos.z, 0);
-                chunk = new SquareBiomeChunk(random, picker);
-            }
-            maps.put(cpos, chunk);
+            chunk = maps.putIfAbsent(cpos, createChunk(cx, cz));
         }
 
         return chunk.getBiome(MHelper.floor(x), MHelper.floor(z));
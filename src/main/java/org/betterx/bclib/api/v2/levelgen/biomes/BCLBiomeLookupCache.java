@@ -0,0 +1,86 @@
+package org.betterx.bclib.api.v2.levelgen.biomes;
+
+import org.betterx.worlds.together.world.event.WorldBootstrap;
+
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.world.level.biome.Biome;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Identity keyed cache that maps {@link Biome} instances to their {@link BCLBiome}.
+ * <p>
+ * Reads are lock free and do not allocate. The cache belongs to the registries that were active when it was filled
+ * and starts over as soon as {@link InternalBiomeAPI#biomeRegistry} or the last world {@link RegistryAccess} change,
+ * or when {@link #invalidateAll()} is called because new {@link BCLBiome}s were registered.
+ */
+class BCLBiomeLookupCache {
+    private static final Object NONE = new Object();
+    private static volatile int epoch = 0;
+
+    private final Function<Biome, Result> resolver;
+    private volatile Generation generation = new Generation(null, null, -1);
+
+    private static class Generation {
+        private final RegistryAccess access;
+        private final Registry<Biome> biomes;
+        private final int epoch;
+        //Biome does not override equals/hashCode, so this map is keyed by identity
+        private final Map<Biome, Object> values = new ConcurrentHashMap<>();
+
+        private Generation(RegistryAccess access, Registry<Biome> biomes, int epoch) {
+            this.access = access;
+            this.biomes = biomes;
+            this.epoch = epoch;
+        }
+    }
+
+    /**
+     * The value computed for a biome.
+     *
+     * @param biome     The {@link BCLBiome} or {@code null}
+     * @param cacheable {@code false} if the value is only a fallback (for example because the biome is not in the
+     *                  active registries) and has to be computed again on the next lookup
+     */
+    record Result(BCLBiome biome, boolean cacheable) {
+    }
+
+    /**
+     * @param resolver Computes the value for a biome that is not cached yet
+     */
+    BCLBiomeLookupCache(Function<Biome, Result> resolver) {
+        this.resolver = resolver;
+    }
+
+    BCLBiome get(Biome biome) {
+        Generation current = generation;
+        final RegistryAccess access = WorldBootstrap.getLastRegistryAccess();
+        final Registry<Biome> biomes = InternalBiomeAPI.biomeRegistry;
+        final int currentEpoch = epoch;
+        if (current.access != access || current.biomes != biomes || current.epoch != currentEpoch) {
+            current = new Generation(access, biomes, currentEpoch);
+            generation = current;
+        }
+
+        final Object cached = current.values.get(biome);
+        if (cached != null) {
+            return cached == NONE ? null : (BCLBiome) cached;
+        }
+
+        final Result result = resolver.apply(biome);
+        if (result.cacheable) {
+            current.values.put(biome, result.biome == null ? NONE : result.biome);
+        }
+        return result.biome;
+    }
+
+    /**
+     * Drops the content of all caches.
+     */
+    static synchronized void invalidateAll() {
+        epoch++;
+    }
+}
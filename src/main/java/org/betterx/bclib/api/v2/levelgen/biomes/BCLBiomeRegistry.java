@@ -95,6 +95,7 @@ public class BCLBiomeRegistry {
                 biome.getBCLBiomeKey(),
                 biome
         );
+        BCLBiomeLookupCache.invalidateAll();
 
         return biome.getBCLBiomeKey();
     }
@@ -228,6 +229,7 @@ public class BCLBiomeRegistry {
     }
 
     private static void onBiomeLoad(Registry<BCLBiome> registry, int rawID, ResourceLocation id, BCLBiome biome) {
+        BCLBiomeLookupCache.invalidateAll();
         //this ensures that all BCL Manage Biomes get added to the fabric Biome-API on load
         if (!"minecraft".equals(id.getNamespace())) {
             if (biome.getIntendedType().is(BiomeAPI.BiomeType.BCL_NETHER)) {
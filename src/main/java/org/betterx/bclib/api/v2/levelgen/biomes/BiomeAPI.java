@@ -455,19 +455,28 @@ public class BiomeAPI {
      * @return {@link BCLBiome} or {@code BiomeAPI.EMPTY_BIOME}.
      */
     public static BCLBiome getRenderBiome(Biome biome) {
-        BCLBiome endBiome = InternalBiomeAPI.CLIENT.get(biome);
-        if (endBiome == null) {
-            var acc = WorldBootstrap.getLastRegistryAccessOrElseBuiltin();
-            if (acc != null) {
-                final Registry<BCLBiome> reg = BCLBiomeRegistry.registryOrNull();
-                ResourceLocation id = acc
-                        .registryOrThrow(Registries.BIOME)
-                        .getKey(biome);
-                endBiome = BCLBiomeRegistry.getBiomeOrEmpty(id, reg);
-                InternalBiomeAPI.CLIENT.put(biome, endBiome);
-            }
+        return InternalBiomeAPI.RENDER_BIOMES.get(biome);
+    }
+
+    static BCLBiomeLookupCache.Result resolveRenderBiome(Biome biome) {
+        var acc = WorldBootstrap.getLastRegistryAccessOrElseBuiltin();
+        //registries are not ready yet
+        if (acc == null) return new BCLBiomeLookupCache.Result(null, false);
+
+        final Registry<BCLBiome> reg = BCLBiomeRegistry.registryOrNull();
+        ResourceLocation id = acc
+                .registryOrThrow(Registries.BIOME)
+                .getKey(biome);
+        return new BCLBiomeLookupCache.Result(BCLBiomeRegistry.getBiomeOrEmpty(id, reg), true);
+    }
+
+    static BCLBiomeLookupCache.Result resolveBiome(Biome biome) {
+        final ResourceKey<Biome> key = getBiomeKey(biome);
+        if (key == null) {
+            //not in the active registry (for example a synced client biome), resolve through the empty biome uncached
+            return new BCLBiomeLookupCache.Result(getBiome(getBiomeID(biome)), false);
         }
-        return endBiome;
+        return new BCLBiomeLookupCache.Result(getBiome(key.location()), true);
     }
 
     /**
@@ -542,7 +551,7 @@ public class BiomeAPI {
      * @return {@link BCLBiome} or {@code null}.
      */
     public static @Nullable BCLBiome getBiome(Biome biome) {
-        return getBiome(BiomeAPI.getBiomeID(biome));
+        return InternalBiomeAPI.BIOMES.get(biome);
     }
 
     /**
@@ -552,6 +561,7 @@ public class BiomeAPI {
      * @return {@link BCLBiome} or {@code null}.
      */
     public static @Nullable BCLBiome getBiome(Holder<Biome> biome) {
+        //the key of a holder is always right, its value may be from another registry than the active one
         return getBiome(BiomeAPI.getBiomeID(biome));
     }
 
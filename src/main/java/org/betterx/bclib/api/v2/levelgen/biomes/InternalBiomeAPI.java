@@ -54,7 +54,8 @@ public class InternalBiomeAPI {
             "OTHER_END_BARRENS",
             BiomeAPI.BiomeType.END_BARRENS
     );
-    static final Map<Biome, BCLBiome> CLIENT = Maps.newHashMap();
+    static final BCLBiomeLookupCache BIOMES = new BCLBiomeLookupCache(BiomeAPI::resolveBiome);
+    static final BCLBiomeLookupCache RENDER_BIOMES = new BCLBiomeLookupCache(BiomeAPI::resolveRenderBiome);
     static final Map<Holder<PlacedFeature>, Integer> FEATURE_ORDER = Maps.newHashMap();
 
     static final Map<HolderGetter<Biome>, AtomicInteger> BIOME_ADDITIONS = Maps.newHashMap();
@@ -80,7 +81,7 @@ public class InternalBiomeAPI {
 
             if (biomeRegistry != InternalBiomeAPI.biomeRegistry) {
                 InternalBiomeAPI.biomeRegistry = biomeRegistry;
-                CLIENT.clear();
+                BCLBiomeLookupCache.invalidateAll();
 
                 BIOMES_TO_SORT.forEach(id -> {
                     Biome b = biomeRegistry.get(id);
@@ -1,6 +1,7 @@
 package org.betterx.bclib.api.v2.levelgen.structures;
 
 import org.betterx.bclib.BCLib;
+import org.betterx.bclib.config.Configs;
 import org.betterx.bclib.util.BlocksHelper;
 
 import net.minecraft.core.BlockPos;
@@ -12,6 +13,8 @@ import net.minecraft.nbt.NbtAccounter;
 import net.minecraft.nbt.NbtIo;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.packs.PackType;
+import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.util.RandomSource;
 import net.minecraft.world.level.ServerLevelAccessor;
 import net.minecraft.world.level.block.Mirror;
@@ -20,10 +23,12 @@ import net.minecraft.world.level.levelgen.structure.BoundingBox;
 import net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings;
 import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
 
-import com.google.common.collect.Maps;
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -32,16 +37,32 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
 public class StructureNBT {
+    private static final StructureTemplateCache TEMPLATE_CACHE = new StructureTemplateCache(
+            Configs.GENERATOR_CONFIG.structureCacheSize(),
+            StructureNBT::_readStructureFromJar
+    );
+
     public final ResourceLocation location;
+    /**
+     * The template of this structure. Subclasses from other mods get it when they are constructed, like before
+     * templates were cached. Instances of {@link StructureNBT} and {@link StructureWorldNBT} leave it {@code null}
+     * and read templates from mod resources on first use through a bounded cache.
+     *
+     * @deprecated Use {@link #getStructure()}, which works for all instances
+     */
+    @Deprecated
     protected StructureTemplate structure;
 
 
     protected StructureNBT(ResourceLocation location) {
         this.location = location;
-        this.structure = readStructureFromJar(location);
+        //subclasses from other mods may read the field directly, so only our own classes use the lazy path
+        this.structure = usesLazyTemplate(getClass()) ? null : TEMPLATE_CACHE.get(location);
     }
 
     protected StructureNBT(ResourceLocation location, StructureTemplate structure) {
@@ -49,6 +70,43 @@ public class StructureNBT {
         this.structure = structure;
     }
 
+    private static boolean usesLazyTemplate(Class<?> type) {
+        return type == StructureNBT.class || type == StructureWorldNBT.class;
+    }
+
+    @Nullable
+    protected StructureTemplate getStructure() {
+        if (structure != null) return structure;
+        return TEMPLATE_CACHE.get(location);
+    }
+
+    /**
+     * Looks up templates that were missing again after resources are reloaded.
+     */
+    @ApiStatus.Internal
+    public static void registerReloadListener() {
+        ResourceManagerHelper
+                .get(PackType.SERVER_DATA)
+                .registerReloadListener(new SimpleSynchronousResourceReloadListener() {
+                    @Override
+                    public ResourceLocation getFabricId() {
+                        return BCLib.makeID("structure_template_cache");
+                    }
+
+                    @Override
+                    public void onResourceManagerReload(ResourceManager manager) {
+                        TEMPLATE_CACHE.clearMissing();
+                    }
+                });
+    }
+
+    /**
+     * @return Hit, miss and load time statistics of the template cache
+     */
+    public static String getTemplateCacheStats() {
+        return TEMPLATE_CACHE.toString();
+    }
+
     public static Rotation getRandomRotation(RandomSource random) {
         return Rotation.getRandom(random);
     }
@@ -57,7 +115,7 @@ public class StructureNBT {
         return Mirror.values()[random.nextInt(3)];
     }
 
-    private static final Map<ResourceLocation, StructureNBT> STRUCTURE_CACHE = Maps.newHashMap();
+    private static final Map<ResourceLocation, StructureNBT> STRUCTURE_CACHE = new ConcurrentHashMap<>();
 
     public static StructureNBT create(ResourceLocation location) {
         return STRUCTURE_CACHE.computeIfAbsent(location, r -> new StructureNBT(r));
@@ -67,7 +125,7 @@ public class StructureNBT {
         BlockPos newPos = getCenteredPos(pos, rotation, mirror);
         if (newPos == null) return false;
         StructurePlaceSettings data = new StructurePlaceSettings().setRotation(rotation).setMirror(mirror);
-        structure.placeInWorld(
+        getStructure().placeInWorld(
                 world,
                 newPos,
                 newPos,
@@ -79,6 +137,11 @@ public class StructureNBT {
     }
 
     public boolean generateAt(ServerLevelAccessor world, BlockPos pos, Rotation rotation, Mirror mirror) {
+        final StructureTemplate structure = getStructure();
+        if (structure == null) {
+            BCLib.LOGGER.error("No structure: " + location.toString());
+            return false;
+        }
         StructurePlaceSettings data = new StructurePlaceSettings().setRotation(rotation).setMirror(mirror);
         structure.placeInWorld(
                 world,
@@ -93,6 +156,7 @@ public class StructureNBT {
 
     @Nullable
     private BlockPos getCenteredPos(BlockPos pos, Rotation rotation, Mirror mirror) {
+        final StructureTemplate structure = getStructure();
         if (structure == null) {
             BCLib.LOGGER.error("No structure: " + location.toString());
             return null;
@@ -107,25 +171,21 @@ public class StructureNBT {
         return pos.offset(-blockpos2.getX() >> 1, 0, -blockpos2.getZ() >> 1);
     }
 
-    private static final Map<ResourceLocation, StructureTemplate> READER_CACHE = Maps.newHashMap();
-
-    private static StructureTemplate readStructureFromJar(ResourceLocation resource) {
-        return READER_CACHE.computeIfAbsent(resource, r -> _readStructureFromJar(r));
-    }
-
     private static String getStructurePath(ResourceLocation resource) {
         return "data/" + resource.getNamespace() + "/structures/" + resource.getPath();
     }
 
+    /**
+     * @return The template or {@code null} if there is no such resource
+     * @throws UncheckedIOException If the resource exists but could not be read
+     */
     private static StructureTemplate _readStructureFromJar(ResourceLocation resource) {
-        try {
-            InputStream inputstream = MinecraftServer.class.getResourceAsStream("/" + getStructurePath(resource) + ".nbt");
+        try (InputStream inputstream = MinecraftServer.class.getResourceAsStream("/" + getStructurePath(resource) + ".nbt")) {
+            if (inputstream == null) return null;
             return readStructureFromStream(inputstream);
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException(e);
         }
-
-        return null;
     }
 
     /**
@@ -215,6 +275,7 @@ public class StructureNBT {
     }
 
     public BlockPos getSize(Rotation rotation) {
+        final StructureTemplate structure = getStructure();
         if (rotation == Rotation.NONE || rotation == Rotation.CLOCKWISE_180)
             return new BlockPos(structure.getSize());
         else {
@@ -230,11 +291,11 @@ public class StructureNBT {
     }
 
     public BoundingBox getBoundingBox(BlockPos pos, Rotation rotation, Mirror mirror) {
-        return structure.getBoundingBox(new StructurePlaceSettings().setRotation(rotation).setMirror(mirror), pos);
+        return getStructure().getBoundingBox(new StructurePlaceSettings().setRotation(rotation).setMirror(mirror), pos);
     }
 
     public BoundingBox getCenteredBoundingBox(BlockPos pos, Rotation rotation, Mirror mirror) {
-        return structure.getBoundingBox(
+        return getStructure().getBoundingBox(
                 new StructurePlaceSettings().setRotation(rotation).setMirror(mirror),
                 getCenteredPos(pos, rotation, mirror)
         );
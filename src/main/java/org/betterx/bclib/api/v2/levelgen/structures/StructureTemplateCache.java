@@ -0,0 +1,142 @@
+package org.betterx.bclib.api.v2.levelgen.structures;
+
+import org.betterx.bclib.BCLib;
+
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache for {@link StructureTemplate}s that are read from mod resources.
+ * <p>
+ * The most recently used templates are strongly reachable. Templates that drop out of that set are only softly
+ * referenced, so they stay available until the garbage collector needs the memory. Concurrent requests for a
+ * template that is not loaded share a single load.
+ * <p>
+ * Templates the loader reports as missing ({@code null}) are not looked up again until {@link #clearMissing()} is
+ * called. Failed loads (the loader threw an exception) are not remembered and are retried on the next request.
+ */
+class StructureTemplateCache {
+    private final int capacity;
+    private final Function<ResourceLocation, StructureTemplate> loader;
+    private final Map<ResourceLocation, SoftReference<StructureTemplate>> templates = new ConcurrentHashMap<>();
+    private final Map<ResourceLocation, CompletableFuture<StructureTemplate>> loading = new ConcurrentHashMap<>();
+    //templates that do not exist, cleared on resource reload
+    private final Set<ResourceLocation> missing = ConcurrentHashMap.newKeySet();
+    //access ordered, guarded by itself
+    private final LinkedHashMap<ResourceLocation, StructureTemplate> recent;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    StructureTemplateCache(int capacity, Function<ResourceLocation, StructureTemplate> loader) {
+        this.capacity = Math.max(1, capacity);
+        this.loader = loader;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ResourceLocation, StructureTemplate> eldest) {
+                return size() > StructureTemplateCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @return The template or {@code null} if it does not exist or could not be read
+     */
+    StructureTemplate get(ResourceLocation location) {
+        StructureTemplate template = getCached(location);
+        if (template != null) {
+            hits.increment();
+            touch(location, template);
+            return template;
+        }
+        if (missing.contains(location)) return null;
+        misses.increment();
+
+        final CompletableFuture<StructureTemplate> load = new CompletableFuture<>();
+        final CompletableFuture<StructureTemplate> running = loading.putIfAbsent(location, load);
+        if (running != null) {
+            return running.join();
+        }
+
+        try {
+            //another thread may have finished loading after our first lookup
+            template = getCached(location);
+            if (template == null) {
+                template = load(location);
+            }
+            load.complete(template);
+            return template;
+        } finally {
+            //never leave waiting threads behind, even if the loader failed with an error
+            if (!load.isDone()) load.complete(null);
+            loading.remove(location, load);
+        }
+    }
+
+    private StructureTemplate getCached(ResourceLocation location) {
+        final SoftReference<StructureTemplate> reference = templates.get(location);
+        return reference == null ? null : reference.get();
+    }
+
+    private StructureTemplate load(ResourceLocation location) {
+        final long start = System.nanoTime();
+        final StructureTemplate template;
+        try {
+            template = loader.apply(location);
+        } catch (RuntimeException e) {
+            //may be temporary, the next request tries again
+            BCLib.LOGGER.error("Unable to load Structure " + location, e);
+            return null;
+        } finally {
+            loadNanos.add(System.nanoTime() - start);
+            loads.increment();
+        }
+
+        if (template == null) {
+            missing.add(location);
+        } else {
+            templates.put(location, new SoftReference<>(template));
+            touch(location, template);
+        }
+        return template;
+    }
+
+    /**
+     * Forgets which templates were missing, so they are looked up again on the next request.
+     */
+    void clearMissing() {
+        missing.clear();
+    }
+
+    private void touch(ResourceLocation location, StructureTemplate template) {
+        synchronized (recent) {
+            recent.put(location, template);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final long loadCount = loads.sum();
+        return String.format(
+                Locale.ROOT,
+                "StructureTemplateCache{hits=%d, misses=%d, loads=%d, avgLoadMs=%.2f, capacity=%d}",
+                hits.sum(),
+                misses.sum(),
+                loadCount,
+                loadCount == 0 ? 0.0 : loadNanos.sum() / 1_000_000.0 / loadCount,
+                capacity
+        );
+    }
+}
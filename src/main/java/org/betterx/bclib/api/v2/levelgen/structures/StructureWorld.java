@@ -1,10 +1,14 @@
 package org.betterx.bclib.api.v2.levelgen.structures;
 
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.BlockPos.MutableBlockPos;
+import net.minecraft.core.SectionPos;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
+import net.minecraft.util.Mth;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.WorldGenLevel;
 import net.minecraft.world.level.block.Block;
@@ -12,13 +16,16 @@ import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.levelgen.structure.BoundingBox;
 
-import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 public class StructureWorld {
-    private final Map<ChunkPos, Part> parts = Maps.newHashMap();
-    private ChunkPos lastPos;
+    private final Long2ObjectOpenHashMap<Part> parts = new Long2ObjectOpenHashMap<>();
+    private long lastPos = Long.MIN_VALUE;
     private Part lastPart;
     private int minX = Integer.MAX_VALUE;
     private int minY = Integer.MAX_VALUE;
@@ -44,14 +51,18 @@ public class StructureWorld {
             Part part = new Part(compound);
             int x = compound.getInt("x");
             int z = compound.getInt("z");
-            parts.put(new ChunkPos(x, z), part);
+            parts.put(ChunkPos.asLong(x, z), part);
         });
     }
 
     public void setBlock(BlockPos pos, BlockState state) {
-        ChunkPos cPos = new ChunkPos(pos);
+        final int cx = SectionPos.blockToSectionCoord(pos.getX());
+        final int cz = SectionPos.blockToSectionCoord(pos.getZ());
+        final long cPos = ChunkPos.asLong(cx, cz);
 
-        if (cPos.equals(lastPos)) {
+        if (cPos == lastPos) {
+            if (pos.getY() < minY) minY = pos.getY();
+            if (pos.getY() > maxY) maxY = pos.getY();
             lastPart.addBlock(pos, state);
             return;
         }
@@ -61,10 +72,10 @@ public class StructureWorld {
             part = new Part();
             parts.put(cPos, part);
 
-            if (cPos.x < minX) minX = cPos.x;
-            if (cPos.x > maxX) maxX = cPos.x;
-            if (cPos.z < minZ) minZ = cPos.z;
-            if (cPos.z > maxZ) maxZ = cPos.z;
+            if (cx < minX) minX = cx;
+            if (cx > maxX) maxX = cx;
+            if (cz < minZ) minZ = cz;
+            if (cz > maxZ) maxZ = cz;
         }
         if (pos.getY() < minY) minY = pos.getY();
         if (pos.getY() > maxY) maxY = pos.getY();
@@ -75,7 +86,7 @@ public class StructureWorld {
     }
 
     public boolean placeChunk(WorldGenLevel world, ChunkPos chunkPos) {
-        Part part = parts.get(chunkPos);
+        Part part = parts.get(chunkPos.toLong());
         if (part != null) {
             ChunkAccess chunk = world.getChunk(chunkPos.x, chunkPos.z);
             part.placeChunk(chunk);
@@ -94,8 +105,9 @@ public class StructureWorld {
         tag.putInt("maxZ", maxZ);
         ListTag map = new ListTag();
         tag.put("parts", map);
-        parts.forEach((pos, part) -> {
-            map.add(part.toNBT(pos.x, pos.z));
+        parts.long2ObjectEntrySet().forEach(entry -> {
+            final long pos = entry.getLongKey();
+            map.add(entry.getValue().toNBT(ChunkPos.getX(pos), ChunkPos.getZ(pos)));
         });
         return tag;
     }
@@ -108,12 +120,23 @@ public class StructureWorld {
     }
 
     private static final class Part {
-        Map<BlockPos, BlockState> blocks = Maps.newHashMap();
+        private final Int2ObjectOpenHashMap<Section> sections = new Int2ObjectOpenHashMap<>();
+        private int lastSectionY = Integer.MIN_VALUE;
+        private Section lastSection;
 
         public Part() {
         }
 
         public Part(CompoundTag tag) {
+            if (tag.contains("sections")) {
+                tag.getList("sections", Tag.TAG_COMPOUND).forEach(element -> {
+                    CompoundTag section = (CompoundTag) element;
+                    sections.put(section.getInt("y"), new Section(section));
+                });
+                return;
+            }
+
+            //format that stored one compound per block
             ListTag map = tag.getList("blocks", 10);
             ListTag map2 = tag.getList("states", 10);
             BlockState[] states = new BlockState[map2.size()];
@@ -129,18 +152,33 @@ public class StructureWorld {
                 BlockPos pos = NbtUtils.readBlockPos(block.getCompound("pos"));
                 int stateID = block.getInt("state");
                 BlockState state = stateID < states.length ? states[stateID] : Block.stateById(stateID);
-                blocks.put(pos, state);
+                addBlock(pos, state);
             });
         }
 
         void addBlock(BlockPos pos, BlockState state) {
-            BlockPos inner = new BlockPos(pos.getX() & 15, pos.getY(), pos.getZ() & 15);
-            blocks.put(inner, state);
+            final int sectionY = SectionPos.blockToSectionCoord(pos.getY());
+            if (sectionY != lastSectionY || lastSection == null) {
+                lastSection = sections.computeIfAbsent(sectionY, y -> new Section());
+                lastSectionY = sectionY;
+            }
+            lastSection.set(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15, state);
         }
 
         void placeChunk(ChunkAccess chunk) {
-            blocks.forEach((pos, state) -> {
-                chunk.setBlockState(pos, state, false);
+            final MutableBlockPos pos = new MutableBlockPos();
+            final int baseX = chunk.getPos().getMinBlockX();
+            final int baseZ = chunk.getPos().getMinBlockZ();
+            sections.int2ObjectEntrySet().forEach(entry -> {
+                final int baseY = SectionPos.sectionToBlockCoord(entry.getIntKey());
+                final Section section = entry.getValue();
+                for (int index = 0; index < Section.SIZE; index++) {
+                    final BlockState state = section.get(index);
+                    if (state != null) {
+                        pos.set(baseX + (index & 15), baseY + (index >> 8), baseZ + ((index >> 4) & 15));
+                        chunk.setBlockState(pos, state, false);
+                    }
+                }
             });
         }
 
@@ -148,28 +186,122 @@ public class StructureWorld {
             CompoundTag tag = new CompoundTag();
             tag.putInt("x", x);
             tag.putInt("z", z);
-            ListTag map = new ListTag();
-            tag.put("blocks", map);
-            ListTag stateMap = new ListTag();
-            tag.put("states", stateMap);
-
-            int[] id = new int[1];
-            Map<BlockState, Integer> states = Maps.newHashMap();
-
-            blocks.forEach((pos, state) -> {
-                int stateID = states.getOrDefault(states, -1);
-                if (stateID < 0) {
-                    stateID = id[0]++;
-                    states.put(state, stateID);
-                    stateMap.add(NbtUtils.writeBlockState(state));
+            ListTag list = new ListTag();
+            tag.put("sections", list);
+            sections.int2ObjectEntrySet().forEach(entry -> {
+                CompoundTag section = entry.getValue().toNBT();
+                section.putInt("y", entry.getIntKey());
+                list.add(section);
+            });
+            return tag;
+        }
+    }
+
+    /**
+     * The blocks of a 16x16x16 section, stored like a vanilla {@link net.minecraft.world.level.chunk.PalettedContainer}:
+     * a palette of states and one bit packed palette index per block. Index {@code 0} marks blocks that were not set.
+     */
+    private static final class Section {
+        static final int SIZE = 16 * 16 * 16;
+        private static final int MIN_BITS = 2;
+
+        private final List<BlockState> palette = new ArrayList<>();
+        private final Reference2IntOpenHashMap<BlockState> ids = new Reference2IntOpenHashMap<>();
+        private int bits;
+        private long[] data;
+
+        Section() {
+            palette.add(null);
+            ids.defaultReturnValue(-1);
+            ids.put(null, 0);
+            bits = MIN_BITS;
+            data = new long[storageSize(bits)];
+        }
+
+        Section(CompoundTag tag) {
+            this();
+            ListTag states = tag.getList("palette", Tag.TAG_COMPOUND);
+            for (int i = 0; i < states.size(); i++) {
+                BlockState state = NbtUtils.readBlockState(
+                        BuiltInRegistries.BLOCK.asLookup(),
+                        states.getCompound(i)
+                );
+                //ids of duplicate states (blocks that were removed since) keep their slot
+                ids.putIfAbsent(state, palette.size());
+                palette.add(state);
+            }
+
+            final int storedBits = tag.getInt("bits");
+            final long[] stored = tag.getLongArray("data");
+            if (storedBits >= MIN_BITS && stored.length == storageSize(storedBits)) {
+                bits = storedBits;
+                data = stored;
+            } else {
+                bits = bitsFor(palette.size());
+                data = new long[storageSize(bits)];
+            }
+        }
+
+        private static int bitsFor(int paletteSize) {
+            return Math.max(MIN_BITS, Mth.ceillog2(paletteSize));
+        }
+
+        private static int storageSize(int bits) {
+            final int valuesPerLong = 64 / bits;
+            return (SIZE + valuesPerLong - 1) / valuesPerLong;
+        }
+
+        private static int getIndex(long[] data, int bits, int index) {
+            final int valuesPerLong = 64 / bits;
+            final int shift = (index % valuesPerLong) * bits;
+            return (int) ((data[index / valuesPerLong] >>> shift) & ((1L << bits) - 1));
+        }
+
+        private static void setIndex(long[] data, int bits, int index, int value) {
+            final int valuesPerLong = 64 / bits;
+            final int cell = index / valuesPerLong;
+            final int shift = (index % valuesPerLong) * bits;
+            final long mask = ((1L << bits) - 1) << shift;
+            data[cell] = (data[cell] & ~mask) | (((long) value << shift) & mask);
+        }
+
+        BlockState get(int index) {
+            final int id = getIndex(data, bits, index);
+            return id < palette.size() ? palette.get(id) : null;
+        }
+
+        void set(int x, int y, int z, BlockState state) {
+            int id = ids.getInt(state);
+            if (id < 0) {
+                id = palette.size();
+                palette.add(state);
+                ids.put(state, id);
+                if (id >= 1 << bits) {
+                    resize(bits + 1);
                 }
+            }
+            setIndex(data, bits, (y << 8) | (z << 4) | x, id);
+        }
 
-                CompoundTag block = new CompoundTag();
-                block.put("pos", NbtUtils.writeBlockPos(pos));
-                block.putInt("state", stateID);
-                map.add(block);
-            });
+        private void resize(int newBits) {
+            final long[] newData = new long[storageSize(newBits)];
+            for (int i = 0; i < SIZE; i++) {
+                setIndex(newData, newBits, i, getIndex(data, bits, i));
+            }
+            data = newData;
+            bits = newBits;
+        }
 
+        CompoundTag toNBT() {
+            CompoundTag tag = new CompoundTag();
+            ListTag states = new ListTag();
+            //the first entry is the marker for blocks that were not set
+            for (int i = 1; i < palette.size(); i++) {
+                states.add(NbtUtils.writeBlockState(palette.get(i)));
+            }
+            tag.put("palette", states);
+            tag.putInt("bits", bits);
+            tag.putLongArray("data", data);
             return tag;
         }
     }
@@ -15,9 +15,8 @@ import net.minecraft.world.level.block.Mirror;
 import net.minecraft.world.level.block.Rotation;
 import net.minecraft.world.level.levelgen.structure.BoundingBox;
 
-import com.google.common.collect.Maps;
-
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class StructureWorldNBT extends StructureNBT {
     public static final Codec<StructureWorldNBT> CODEC =
@@ -57,7 +56,7 @@ public class StructureWorldNBT extends StructureNBT {
         this.chance = chance;
     }
 
-    private static final Map<String, StructureWorldNBT> READER_CACHE = Maps.newHashMap();
+    private static final Map<String, StructureWorldNBT> READER_CACHE = new ConcurrentHashMap<>();
 
     public static StructureWorldNBT create(ResourceLocation location, int offsetY, StructurePlacementType type) {
         return create(location, offsetY, type, 1.0f);
@@ -116,7 +115,7 @@ public class StructureWorldNBT extends StructureNBT {
     }
 
     private boolean containsBedrock(LevelAccessor level, BlockPos startPos) {
-        for (int i = 0; i < this.structure.getSize().getY(); i += 2) {
+        for (int i = 0; i < getStructure().getSize().getY(); i += 2) {
             if (level.getBlockState(startPos.above(i)).is(Blocks.BEDROCK)) {
                 return true;
             }
@@ -164,7 +163,7 @@ public class StructureWorldNBT extends StructureNBT {
         final MutableBlockPos POS = new MutableBlockPos();
         int airCount = 0;
 
-        MutableBlockPos size = new MutableBlockPos().set(new BlockPos(structure.getSize()).rotate(rotation));
+        MutableBlockPos size = new MutableBlockPos().set(new BlockPos(getStructure().getSize()).rotate(rotation));
         size.setX(Math.abs(size.getX()) >> 1);
         size.setZ(Math.abs(size.getZ()) >> 1);
 
@@ -192,7 +191,7 @@ public class StructureWorldNBT extends StructureNBT {
         final MutableBlockPos POS = new MutableBlockPos();
         int lavaCount = 0;
 
-        MutableBlockPos size = new MutableBlockPos().set(new BlockPos(structure.getSize()).rotate(rotation));
+        MutableBlockPos size = new MutableBlockPos().set(new BlockPos(getStructure().getSize()).rotate(rotation));
         size.setX(Math.abs(size.getX()) >> 1);
         size.setZ(Math.abs(size.getZ()) >> 1);
 
@@ -219,7 +218,7 @@ public class StructureWorldNBT extends StructureNBT {
         final MutableBlockPos POS = new MutableBlockPos();
         int airCount = 0;
 
-        MutableBlockPos size = new MutableBlockPos().set(new BlockPos(structure.getSize()).rotate(rotation));
+        MutableBlockPos size = new MutableBlockPos().set(new BlockPos(getStructure().getSize()).rotate(rotation));
         size.setX(Math.abs(size.getX()) >> 1);
         size.setZ(Math.abs(size.getZ()) >> 1);
 
@@ -247,7 +246,7 @@ public class StructureWorldNBT extends StructureNBT {
         final MutableBlockPos POS = new MutableBlockPos();
         int airCount = 0;
 
-        MutableBlockPos size = new MutableBlockPos().set(new BlockPos(structure.getSize()).rotate(rotation));
+        MutableBlockPos size = new MutableBlockPos().set(new BlockPos(getStructure().getSize()).rotate(rotation));
         size.setX(Math.abs(size.getX()));
         size.setZ(Math.abs(size.getZ()));
 
@@ -274,6 +273,6 @@ public class StructureWorldNBT extends StructureNBT {
     }
 
     public boolean loaded() {
-        return structure != null;
+        return getStructure() != null;
     }
 }
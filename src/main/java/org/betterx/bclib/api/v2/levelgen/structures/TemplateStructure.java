@@ -1,5 +1,7 @@
 package org.betterx.bclib.api.v2.levelgen.structures;
 
+import org.betterx.bclib.util.WeightedSampler;
+
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import net.minecraft.core.BlockPos;
@@ -29,6 +31,7 @@ import java.util.function.BiPredicate;
 
 public abstract class TemplateStructure extends Structure {
     protected final List<Config> configs;
+    private final WeightedSampler sampler;
 
     public static <T extends TemplateStructure> Codec<T> simpleTemplateCodec(BiFunction<StructureSettings, List<Config>, T> instancer) {
         return RecordCodecBuilder.create((instance) -> instance
@@ -59,17 +62,13 @@ public abstract class TemplateStructure extends Structure {
     ) {
         super(structureSettings);
         this.configs = configs;
+        this.sampler = WeightedSampler.ofWeights(configs, Config::chance);
     }
 
     protected Config randomConfig(RandomSource random) {
         if (this.configs.size() > 1) {
-            final float chanceSum = configs.parallelStream().map(c -> c.chance()).reduce(0.0f, (p, c) -> p + c);
-            float rnd = random.nextFloat() * chanceSum;
-
-            for (Config c : configs) {
-                rnd -= c.chance();
-                if (rnd <= 0) return c;
-            }
+            final int index = sampler.firstAtLeast(random.nextFloat() * sampler.total());
+            if (index < configs.size()) return configs.get(index);
         } else {
             return this.configs.get(0);
         }
@@ -138,6 +137,9 @@ public abstract class TemplateStructure extends Structure {
                         - 4
                         - (searchStep > 0 ? (structureTemplate.getSize(Rotation.NONE).getY() + config.offsetY) : 0);
 
+        //the height we find has to be in a valid biome, skip sampling the noise if there is none in the range
+        if (!hasValidBiomeInRange(ctx, seaLevel, maxHeight)) return Optional.empty();
+
         BlockPos halfSize = new BlockPos(
                 structureTemplate.getSize().getX() / 2,
                 0,
@@ -243,6 +245,21 @@ public abstract class TemplateStructure extends Structure {
         return true;
     }
 
+    /**
+     * Tests the biomes that {@link BCLStructure#isValidBiome(GenerationContext, int)} can see for a height between
+     * {@code minY} (inclusive) and {@code maxY} (exclusive).
+     */
+    private boolean hasValidBiomeInRange(GenerationContext ctx, int minY, int maxY) {
+        if (maxY <= minY) return false;
+        final int lastQuart = QuartPos.fromBlock(maxY - 1);
+        for (int quartY = QuartPos.fromBlock(minY); quartY <= lastQuart; quartY++) {
+            if (BCLStructure.isValidBiome(ctx, Math.max(minY, QuartPos.toBlock(quartY)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private float airRatio(NoiseColumn column, int y, int height, int searchStep) {
         int airCount = 0;
         for (int i = y; i < y + height && i > y - height; i += searchStep) {
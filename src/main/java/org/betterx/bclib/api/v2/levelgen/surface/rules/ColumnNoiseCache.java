@@ -0,0 +1,50 @@
+package org.betterx.bclib.api.v2.levelgen.surface.rules;
+
+import java.util.Arrays;
+
+/**
+ * Caches the values of a 2D noise for the chunk column a worldgen thread is currently working on.
+ * <p>
+ * Every thread owns a 16x16 array for the chunk it last queried. Values are computed the first time a column is
+ * requested and reused for all further blocks in that column, so a surface rule only evaluates its noise once per
+ * column even when it is tested for many y levels or by many rules.
+ */
+public final class ColumnNoiseCache {
+    @FunctionalInterface
+    public interface NoiseSampler {
+        double sample(int blockX, int blockZ);
+    }
+
+    private final NoiseSampler sampler;
+    private final ThreadLocal<Column> columns = ThreadLocal.withInitial(Column::new);
+
+    public ColumnNoiseCache(NoiseSampler sampler) {
+        this.sampler = sampler;
+    }
+
+    public double get(int blockX, int blockZ) {
+        final Column column = columns.get();
+        final int chunkX = blockX >> 4;
+        final int chunkZ = blockZ >> 4;
+        if (column.chunkX != chunkX || column.chunkZ != chunkZ) {
+            column.chunkX = chunkX;
+            column.chunkZ = chunkZ;
+            Arrays.fill(column.computed, 0);
+        }
+
+        final int index = (blockX & 15) << 4 | (blockZ & 15);
+        final long mask = 1L << index;
+        if ((column.computed[index >> 6] & mask) == 0) {
+            column.values[index] = sampler.sample(blockX, blockZ);
+            column.computed[index >> 6] |= mask;
+        }
+        return column.values[index];
+    }
+
+    private static final class Column {
+        private int chunkX = Integer.MIN_VALUE;
+        private int chunkZ = Integer.MIN_VALUE;
+        private final double[] values = new double[16 * 16];
+        private final long[] computed = new long[4];
+    }
+}
@@ -12,12 +12,11 @@ import net.minecraft.util.valueproviders.FloatProvider;
 import net.minecraft.world.level.levelgen.SurfaceRules;
 import net.minecraft.world.level.levelgen.ThreadSafeLegacyRandomSource;
 
-import com.google.common.collect.Maps;
-
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ThresholdCondition extends SurfaceNoiseCondition {
-    private static final Map<Long, Context> NOISES = Maps.newHashMap();
+    private static final Map<Long, Context> NOISES = new ConcurrentHashMap<>();
     public static final Codec<ThresholdCondition> CODEC = RecordCodecBuilder.create(instance -> instance
             .group(
                     Codec.LONG.fieldOf("seed").forGetter(p -> p.noiseContext.seed),
@@ -29,6 +28,7 @@ public class ThresholdCondition extends SurfaceNoiseCondition {
             .apply(instance, ThresholdCondition::new));
     public static final KeyDispatchDataCodec<ThresholdCondition> KEY_CODEC = KeyDispatchDataCodec.of(CODEC);
     private final Context noiseContext;
+    private final ColumnNoiseCache noiseCache;
     private final double threshold;
     private final FloatProvider range;
     private final double scaleX;
@@ -41,19 +41,12 @@ public class ThresholdCondition extends SurfaceNoiseCondition {
         this.scaleZ = scaleZ;
 
         noiseContext = NOISES.computeIfAbsent(noiseSeed, seed -> new Context(seed));
+        noiseCache = new ColumnNoiseCache((x, z) -> noiseContext.noise.eval(x * scaleX, z * scaleZ));
     }
 
     @Override
     public boolean test(SurfaceRulesContextAccessor context) {
-        final double x = context.getBlockX() * scaleX;
-        final double z = context.getBlockZ() * scaleZ;
-        if (noiseContext.lastX == x && noiseContext.lastZ == z)
-            return noiseContext.lastValue + range.sample(noiseContext.random) > threshold;
-        double value = noiseContext.noise.eval(x, z);
-
-        noiseContext.lastX = x;
-        noiseContext.lastZ = z;
-        noiseContext.lastValue = value;
+        final double value = noiseCache.get(context.getBlockX(), context.getBlockZ());
         return value + range.sample(noiseContext.random) > threshold;
     }
 
@@ -67,10 +60,6 @@ public class ThresholdCondition extends SurfaceNoiseCondition {
         public final RandomSource random;
         public final long seed;
 
-        public double lastX = Integer.MIN_VALUE;
-        public double lastZ = Integer.MIN_VALUE;
-        public double lastValue = 0;
-
         Context(long seed) {
             this.seed = seed;
             this.noise = new OpenSimplexNoise(seed);
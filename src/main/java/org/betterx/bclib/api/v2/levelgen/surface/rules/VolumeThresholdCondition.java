@@ -12,12 +12,11 @@ import net.minecraft.util.valueproviders.FloatProvider;
 import net.minecraft.world.level.levelgen.SurfaceRules;
 import net.minecraft.world.level.levelgen.ThreadSafeLegacyRandomSource;
 
-import com.google.common.collect.Maps;
-
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class VolumeThresholdCondition extends VolumeNoiseCondition {
-    private static final Map<Long, VolumeThresholdCondition.Context> NOISES = Maps.newHashMap();
+    private static final Map<Long, VolumeThresholdCondition.Context> NOISES = new ConcurrentHashMap<>();
     public static final Codec<VolumeThresholdCondition> CODEC = RecordCodecBuilder.create(instance -> instance
             .group(
                     Codec.LONG.fieldOf("seed").forGetter(p -> p.noiseContext.seed),
@@ -62,19 +61,15 @@ public class VolumeThresholdCondition extends VolumeNoiseCondition {
         final double y = yy * scaleY;
         final double z = zz * scaleZ;
 
-        if (noiseContext.lastX == x
-                && noiseContext.lastY == y
-                && noiseContext.lastZ == z)
-            return noiseContext.lastValue + range.sample(noiseContext.random);
-
-        double value = noiseContext.noise.eval(x, y, z);
-
-        noiseContext.lastX = x;
-        noiseContext.lastZ = z;
-        noiseContext.lastY = y;
-        noiseContext.lastValue = value;
+        final LastSample last = noiseContext.lastSample.get();
+        if (last.x != x || last.y != y || last.z != z) {
+            last.x = x;
+            last.y = y;
+            last.z = z;
+            last.value = noiseContext.noise.eval(x, y, z);
+        }
 
-        return value + range.sample(noiseContext.random);
+        return last.value + range.sample(noiseContext.random);
     }
 
     @Override
@@ -92,10 +87,8 @@ public class VolumeThresholdCondition extends VolumeNoiseCondition {
         public final RandomSource random;
         public final long seed;
 
-        double lastX = Integer.MIN_VALUE;
-        double lastY = Integer.MIN_VALUE;
-        double lastZ = Integer.MIN_VALUE;
-        double lastValue = 0;
+        //memo of the last sample, kept per thread so parallel surface builders do not overwrite each other
+        final ThreadLocal<LastSample> lastSample = ThreadLocal.withInitial(LastSample::new);
 
         Context(long seed) {
             this.seed = seed;
@@ -103,4 +96,11 @@ public class VolumeThresholdCondition extends VolumeNoiseCondition {
             this.random = new ThreadSafeLegacyRandomSource(seed * 3 + 1);
         }
     }
+
+    static class LastSample {
+        double x = Integer.MIN_VALUE;
+        double y = Integer.MIN_VALUE;
+        double z = Integer.MIN_VALUE;
+        double value = 0;
+    }
 }
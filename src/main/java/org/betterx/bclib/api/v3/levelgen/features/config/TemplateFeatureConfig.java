@@ -2,6 +2,7 @@ package org.betterx.bclib.api.v3.levelgen.features.config;
 
 import org.betterx.bclib.api.v2.levelgen.structures.StructurePlacementType;
 import org.betterx.bclib.api.v2.levelgen.structures.StructureWorldNBT;
+import org.betterx.bclib.util.WeightedSampler;
 
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
@@ -22,6 +23,7 @@ public class TemplateFeatureConfig implements FeatureConfiguration {
     );
 
     public final List<StructureWorldNBT> structures;
+    private final WeightedSampler sampler;
 
     public static StructureWorldNBT cfg(
             ResourceLocation location,
@@ -38,5 +40,13 @@ public class TemplateFeatureConfig implements FeatureConfiguration {
 
     public TemplateFeatureConfig(List<StructureWorldNBT> structures) {
         this.structures = structures;
+        this.sampler = WeightedSampler.ofWeights(structures, s -> s.chance);
+    }
+
+    /**
+     * @return The running sum of the chances of {@link #structures}
+     */
+    public WeightedSampler sampler() {
+        return sampler;
     }
 }
@@ -3,6 +3,7 @@ package org.betterx.bclib.api.v3.levelgen.features.features;
 import org.betterx.bclib.api.v2.levelgen.structures.StructureNBT;
 import org.betterx.bclib.api.v2.levelgen.structures.StructureWorldNBT;
 import org.betterx.bclib.api.v3.levelgen.features.config.TemplateFeatureConfig;
+import org.betterx.bclib.util.WeightedSampler;
 
 import com.mojang.serialization.Codec;
 import net.minecraft.util.RandomSource;
@@ -16,13 +17,9 @@ public class TemplateFeature<FC extends TemplateFeatureConfig> extends Feature<F
 
     protected StructureWorldNBT randomStructure(TemplateFeatureConfig cfg, RandomSource random) {
         if (cfg.structures.size() > 1) {
-            final float chanceSum = cfg.structures.parallelStream().map(c -> c.chance).reduce(0.0f, (p, c) -> p + c);
-            float rnd = random.nextFloat() * chanceSum;
-
-            for (StructureWorldNBT c : cfg.structures) {
-                rnd -= c.chance;
-                if (rnd <= 0) return c;
-            }
+            final WeightedSampler sampler = cfg.sampler();
+            final int index = sampler.firstAtLeast(random.nextFloat() * sampler.total());
+            if (index < cfg.structures.size()) return cfg.structures.get(index);
         } else {
             return cfg.structures.get(0);
         }
@@ -12,7 +12,7 @@ import net.minecraft.world.level.levelgen.placement.PlacementFilter;
 import net.minecraft.world.level.levelgen.placement.PlacementModifierType;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 
 public class InBiome extends PlacementFilter {
     public static final Codec<InBiome> CODEC = RecordCodecBuilder.create((instance) -> instance
@@ -29,10 +29,12 @@ public class InBiome extends PlacementFilter {
 
     public final List<ResourceLocation> biomeIDs;
     public final boolean negate;
+    private final Set<ResourceLocation> biomeIDSet;
 
     protected InBiome(boolean negate, List<ResourceLocation> biomeIDs) {
         this.biomeIDs = biomeIDs;
         this.negate = negate;
+        this.biomeIDSet = Set.copyOf(biomeIDs);
     }
 
     public static InBiome matchingID(ResourceLocation... id) {
@@ -54,9 +56,8 @@ public class InBiome extends PlacementFilter {
     @Override
     protected boolean shouldPlace(PlacementContext ctx, RandomSource random, BlockPos pos) {
         Holder<Biome> holder = ctx.getLevel().getBiome(pos);
-        Optional<ResourceLocation> biomeLocation = holder.unwrapKey().map(key -> key.location());
-        if (biomeLocation.isPresent()) {
-            boolean contains = biomeIDs.contains(biomeLocation.get());
+        if (holder instanceof Holder.Reference<Biome> ref) {
+            boolean contains = biomeIDSet.contains(ref.key().location());
             return negate != contains;
         }
         return false;
@@ -4,6 +4,7 @@ import org.betterx.bclib.api.v2.ModIntegrationAPI;
 import org.betterx.bclib.api.v2.PostInitAPI;
 import org.betterx.bclib.api.v2.dataexchange.DataExchangeAPI;
 import org.betterx.bclib.client.models.CustomModelBakery;
+import org.betterx.bclib.client.render.FogDensityField;
 import org.betterx.bclib.client.textures.AtlasSetManager;
 import org.betterx.bclib.client.textures.SpriteLister;
 import org.betterx.bclib.config.Configs;
@@ -40,6 +41,7 @@ public class BCLibClient implements ClientModInitializer, ModelResourceProvider,
         BaseBlockEntityRenders.register();
         DataExchangeAPI.prepareClientside();
         PostInitAPI.postInit(true);
+        FogDensityField.register();
         ModelLoadingRegistry.INSTANCE.registerResourceProvider(rm -> this);
         ModelLoadingRegistry.INSTANCE.registerVariantProvider(rm -> this);
 
@@ -147,7 +147,7 @@ public class ProgressScreen extends LayoutScreen implements ProgressListener, At
     @Override
     public void incAtomic(int maxProgress) {
         if (atomicCounter != null) {
-            progressStagePercentage((100 * atomicCounter.incrementAndGet()) / maxProgress);
+            progressStagePercentage((int) ((100L * atomicCounter.incrementAndGet()) / maxProgress));
         }
     }
 
@@ -20,7 +20,6 @@ import net.minecraft.world.level.biome.Biome;
 import net.minecraft.world.level.material.FogType;
 
 public class CustomFogRenderer {
-    private static final MutableBlockPos LAST_POS = new MutableBlockPos(0, -100, 0);
     private static final MutableBlockPos MUT_POS = new MutableBlockPos();
     private static final float[] FOG_DENSITY = new float[8];
     private static final int GRID_SIZE = 32;
@@ -116,11 +115,19 @@ public class CustomFogRenderer {
     }
 
     private static boolean shouldIgnore(Level level, int x, int y, int z) {
+        final int state = FogDensityField.getIgnoreState(level, x, y, z);
+        if (state != FogDensityField.UNKNOWN) {
+            return state == FogDensityField.IGNORED;
+        }
         Biome biome = level.getBiome(MUT_POS.set(x, y, z)).value();
         return BCLBiomeRegistry.isEmptyBiome(BiomeAPI.getRenderBiome(biome));
     }
 
     private static float getFogDensityI(Level level, int x, int y, int z) {
+        final float density = FogDensityField.getDensity(level, x, y, z);
+        if (!Float.isNaN(density)) {
+            return density;
+        }
         Biome biome = level.getBiome(MUT_POS.set(x, y, z)).value();
         BCLBiome renderBiome = BiomeAPI.getRenderBiome(biome);
         if (renderBiome == null) {
@@ -137,20 +144,19 @@ public class CustomFogRenderer {
         float dy = (float) (y - y1) / GRID_SIZE;
         float dz = (float) (z - z1) / GRID_SIZE;
 
-        if (LAST_POS.getX() != x1 || LAST_POS.getY() != y1 || LAST_POS.getZ() != z1) {
-            int x2 = x1 + GRID_SIZE;
-            int y2 = y1 + GRID_SIZE;
-            int z2 = z1 + GRID_SIZE;
-            LAST_POS.set(x1, y1, z1);
-            FOG_DENSITY[0] = getFogDensityI(level, x1, y1, z1);
-            FOG_DENSITY[1] = getFogDensityI(level, x2, y1, z1);
-            FOG_DENSITY[2] = getFogDensityI(level, x1, y2, z1);
-            FOG_DENSITY[3] = getFogDensityI(level, x2, y2, z1);
-            FOG_DENSITY[4] = getFogDensityI(level, x1, y1, z2);
-            FOG_DENSITY[5] = getFogDensityI(level, x2, y1, z2);
-            FOG_DENSITY[6] = getFogDensityI(level, x1, y2, z2);
-            FOG_DENSITY[7] = getFogDensityI(level, x2, y2, z2);
-        }
+        //the corners come from the precomputed density field, so they are sampled every frame and pick up
+        //chunks as soon as their biomes arrive
+        int x2 = x1 + GRID_SIZE;
+        int y2 = y1 + GRID_SIZE;
+        int z2 = z1 + GRID_SIZE;
+        FOG_DENSITY[0] = getFogDensityI(level, x1, y1, z1);
+        FOG_DENSITY[1] = getFogDensityI(level, x2, y1, z1);
+        FOG_DENSITY[2] = getFogDensityI(level, x1, y2, z1);
+        FOG_DENSITY[3] = getFogDensityI(level, x2, y2, z1);
+        FOG_DENSITY[4] = getFogDensityI(level, x1, y1, z2);
+        FOG_DENSITY[5] = getFogDensityI(level, x2, y1, z2);
+        FOG_DENSITY[6] = getFogDensityI(level, x1, y2, z2);
+        FOG_DENSITY[7] = getFogDensityI(level, x2, y2, z2);
 
         float a = Mth.lerp(dx, FOG_DENSITY[0], FOG_DENSITY[1]);
         float b = Mth.lerp(dx, FOG_DENSITY[2], FOG_DENSITY[3]);
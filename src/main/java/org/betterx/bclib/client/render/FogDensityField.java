@@ -0,0 +1,139 @@
+package org.betterx.bclib.client.render;
+
+import org.betterx.bclib.api.v2.levelgen.biomes.BCLBiome;
+import org.betterx.bclib.api.v2.levelgen.biomes.BCLBiomeRegistry;
+import org.betterx.bclib.api.v2.levelgen.biomes.BiomeAPI;
+import org.betterx.bclib.config.Configs;
+
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.Holder;
+import net.minecraft.core.QuartPos;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2FloatOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+
+/**
+ * Fog densities of the client chunks at biome (quart) resolution.
+ * <p>
+ * The field is filled when a chunk (or its biomes) arrive on the client and is dropped when the chunk unloads, so
+ * {@link CustomFogRenderer} does not need any biome or registry lookups while rendering. All methods are called from
+ * the client thread.
+ */
+@Environment(EnvType.CLIENT)
+public class FogDensityField {
+    static final int UNKNOWN = -1;
+    static final int NOT_IGNORED = 0;
+    static final int IGNORED = 1;
+
+    private static final Long2ObjectOpenHashMap<Column> COLUMNS = new Long2ObjectOpenHashMap<>();
+    private static Level currentLevel;
+
+    private static final class Column {
+        private final int minQuartY;
+        private final int maxQuartY;
+        //4x4x4 cells per section
+        private final float[] density;
+        //one bit per cell of a section, set if the cell has no render biome
+        private final long[] ignored;
+
+        private Column(int minQuartY, int sectionCount) {
+            this.minQuartY = minQuartY;
+            this.maxQuartY = minQuartY + sectionCount * 4 - 1;
+            this.density = new float[sectionCount * 64];
+            this.ignored = new long[sectionCount];
+        }
+
+        private int cellIndex(int quartX, int quartY, int quartZ) {
+            final int qy = Mth.clamp(quartY, minQuartY, maxQuartY) - minQuartY;
+            return qy << 4 | (quartZ & 3) << 2 | (quartX & 3);
+        }
+    }
+
+    public static void register() {
+        ClientChunkEvents.CHUNK_LOAD.register(FogDensityField::update);
+        ClientChunkEvents.CHUNK_UNLOAD.register((level, chunk) -> {
+            if (level == currentLevel) {
+                COLUMNS.remove(chunk.getPos().toLong());
+            }
+        });
+    }
+
+    /**
+     * Recomputes the densities of a chunk. Called when the chunk is loaded and when the server replaced its biomes.
+     */
+    public static void update(ClientLevel level, LevelChunk chunk) {
+        if (level != currentLevel) {
+            COLUMNS.clear();
+            currentLevel = level;
+        }
+        if (!Configs.CLIENT_CONFIG.renderCustomFog()) {
+            COLUMNS.remove(chunk.getPos().toLong());
+            return;
+        }
+
+        final LevelChunkSection[] sections = chunk.getSections();
+        final Column column = new Column(QuartPos.fromSection(chunk.getMinSection()), sections.length);
+        final Reference2FloatOpenHashMap<Holder<Biome>> densities = new Reference2FloatOpenHashMap<>();
+        final ReferenceOpenHashSet<Holder<Biome>> ignoredBiomes = new ReferenceOpenHashSet<>();
+        densities.defaultReturnValue(Float.NaN);
+
+        for (int s = 0; s < sections.length; s++) {
+            final PalettedContainerRO<Holder<Biome>> biomes = sections[s].getBiomes();
+            long ignored = 0;
+            for (int i = 0; i < 64; i++) {
+                final Holder<Biome> biome = biomes.get(i & 3, i >> 4, (i >> 2) & 3);
+                float density = densities.getFloat(biome);
+                if (Float.isNaN(density)) {
+                    final BCLBiome renderBiome = BiomeAPI.getRenderBiome(biome.value());
+                    density = renderBiome == null
+                            ? BCLBiomeRegistry.EMPTY_BIOME.settings.getFogDensity()
+                            : renderBiome.settings.getFogDensity();
+                    densities.put(biome, density);
+                    if (BCLBiomeRegistry.isEmptyBiome(renderBiome)) ignoredBiomes.add(biome);
+                }
+                if (ignoredBiomes.contains(biome)) ignored |= 1L << i;
+                column.density[s << 6 | i] = density;
+            }
+            column.ignored[s] = ignored;
+        }
+
+        COLUMNS.put(chunk.getPos().toLong(), column);
+    }
+
+    private static Column getColumn(Level level, int x, int z) {
+        if (level != currentLevel) return null;
+        return COLUMNS.get(ChunkPos.asLong(x >> 4, z >> 4));
+    }
+
+    /**
+     * @return The fog density of the render biome at the position or {@link Float#NaN} if the chunk is unknown
+     */
+    static float getDensity(Level level, int x, int y, int z) {
+        final Column column = getColumn(level, x, z);
+        if (column == null) return Float.NaN;
+        return column.density[column.cellIndex(QuartPos.fromBlock(x), QuartPos.fromBlock(y), QuartPos.fromBlock(z))];
+    }
+
+    /**
+     * @return {@link #IGNORED} if the position has no render biome, {@link #NOT_IGNORED} if it has one or
+     * {@link #UNKNOWN} if the chunk is unknown
+     */
+    static int getIgnoreState(Level level, int x, int y, int z) {
+        final Column column = getColumn(level, x, z);
+        if (column == null) return UNKNOWN;
+        final int index = column.cellIndex(QuartPos.fromBlock(x), QuartPos.fromBlock(y), QuartPos.fromBlock(z));
+        return (column.ignored[index >> 6] & (1L << (index & 63))) != 0 ? IGNORED : NOT_IGNORED;
+    }
+}
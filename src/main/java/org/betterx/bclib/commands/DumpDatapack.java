@@ -3,8 +3,7 @@ package org.betterx.bclib.commands;
 import org.betterx.bclib.BCLib;
 import org.betterx.bclib.api.v2.levelgen.biomes.BCLBiome;
 import org.betterx.bclib.api.v2.levelgen.biomes.BCLBiomeRegistry;
-import org.betterx.bclib.api.v2.levelgen.biomes.BiomeData;
-import org.betterx.bclib.blocks.BaseStairsBlock;
+import org.betterx.bclib.util.Pair;
 import org.betterx.worlds.together.surfaceRules.AssignedSurfaceRule;
 import org.betterx.worlds.together.surfaceRules.SurfaceRuleRegistry;
 
@@ -13,7 +12,6 @@ import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.JsonOps;
-import com.mojang.serialization.codecs.KeyDispatchCodec;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.core.Holder;
@@ -23,19 +21,15 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.Style;
 import net.minecraft.resources.RegistryOps;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.tags.TagEntry;
 import net.minecraft.tags.TagFile;
-import net.minecraft.util.KeyDispatchDataCodec;
-import net.minecraft.world.effect.MobEffect;
 import net.minecraft.world.level.biome.Biome;
-import net.minecraft.world.level.biome.BiomeSource;
 import net.minecraft.world.level.dimension.DimensionType;
 import net.minecraft.world.level.dimension.LevelStem;
-import net.minecraft.world.level.gameevent.GameEvent;
 import net.minecraft.world.level.levelgen.DensityFunction;
 import net.minecraft.world.level.levelgen.NoiseGeneratorSettings;
-import net.minecraft.world.level.levelgen.WorldGenSettings;
 import net.minecraft.world.level.levelgen.carver.ConfiguredWorldCarver;
 import net.minecraft.world.level.levelgen.feature.ConfiguredFeature;
 import net.minecraft.world.level.levelgen.flat.FlatLevelGeneratorPreset;
@@ -44,29 +38,37 @@ import net.minecraft.world.level.levelgen.presets.WorldPreset;
 import net.minecraft.world.level.levelgen.structure.Structure;
 import net.minecraft.world.level.levelgen.structure.StructureSet;
 import net.minecraft.world.level.levelgen.structure.pools.StructureTemplatePool;
-import net.minecraft.world.level.levelgen.structure.templatesystem.PosRuleTestType;
-import net.minecraft.world.level.levelgen.structure.templatesystem.RuleTestType;
 import net.minecraft.world.level.levelgen.structure.templatesystem.StructureProcessorList;
 import net.minecraft.world.level.levelgen.structure.templatesystem.StructureProcessorType;
 import net.minecraft.world.level.levelgen.synth.NormalNoise;
-import net.minecraft.world.level.material.Fluid;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
-import java.awt.Taskbar.Feature;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class DumpDatapack {
     public static LiteralArgumentBuilder<CommandSourceStack> register(LiteralArgumentBuilder<CommandSourceStack> bnContext) {
@@ -87,69 +89,9 @@ public class DumpDatapack {
     }
 
     private static final Map<ResourceLocation, Dumper> DUMPERS = new HashMap<>();
+    private static final AtomicBoolean RUNNING = new AtomicBoolean(false);
 
-    static int dumpDatapack(CommandContext<CommandSourceStack> ctx) {
-        File base = new File(System.getProperty("user.dir"), "bclib_datapack_dump");
-        dumpDatapack(base, ctx.getSource().getLevel().registryAccess(), ctx);
-
-
-        ctx.getSource().sendSuccess(
-                () -> Component.literal("Succesfully written to:\n    ").append(
-                        Component.literal(base.toString()).setStyle(Style.EMPTY.withUnderlined(true))
-                ),
-                false
-        );
-        return Command.SINGLE_SUCCESS;
-    }
-
-    public static void dumpDatapack(File base, RegistryAccess registryAccess, CommandContext<CommandSourceStack> ctx) {
-        final RegistryOps<JsonElement> registryOps = RegistryOps.create(JsonOps.INSTANCE, registryAccess);
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder = gsonBuilder.setPrettyPrinting();
-        Gson gson = gsonBuilder.create();
-
-        registryAccess.registries().forEach(r -> dump(base, r, registryOps, gson));
-
-        BCLib.LOGGER.info("- Serializing Dimensions ");
-
-        for (ServerLevel serverLevel : ctx.getSource().getLevel().getServer().getAllLevels()) {
-            File f1 = new File(base, serverLevel.dimension().location().getNamespace());
-            f1 = new File(f1, "dimension");
-            f1 = new File(f1, serverLevel.dimension().location().getPath() + ".json");
-            f1.getParentFile().mkdirs();
-
-            try {
-                LevelStem stem = new LevelStem(
-                        serverLevel.dimensionTypeRegistration(),
-                        serverLevel.getChunkSource().getGenerator()
-                );
-                Codec codec = LevelStem.CODEC;
-                var o = codec
-                        .encodeStart(registryOps, stem)
-                        .result()
-                        .orElse(new JsonObject());
-
-                String content = gson.toJson(o);
-                try {
-                    Files.writeString(f1.toPath(), content, StandardCharsets.UTF_8);
-                } catch (IOException e) {
-                    BCLib.LOGGER.error("        ->> Unable to WRITE: " + e.getMessage());
-                }
-            } catch (Exception e) {
-                BCLib.LOGGER.error("      ->> Unable to encode: " + e.getMessage());
-            }
-        }
-
-    }
-
-
-    private static <T> void dump(
-            File base, RegistryAccess.RegistryEntry<T> registry,
-            RegistryOps<JsonElement> registryOps,
-            Gson gson
-    ) {
-        BCLib.LOGGER.info("- Serializing: " + registry.key().toString());
-        DUMPERS.clear();
+    static {
         DUMPERS.put(Registries.BIOME.location(), new Dumper<>((Biome v) -> Biome.DIRECT_CODEC));
         DUMPERS.put(
                 Registries.CONFIGURED_FEATURE.location(),
@@ -206,281 +148,318 @@ public class DumpDatapack {
                 Registries.STRUCTURE_SET.location(),
                 new Dumper<>((StructureSet v) -> StructureSet.DIRECT_CODEC)
         );
+    }
 
-
-        Dumper d = DUMPERS.getOrDefault(registry.key().location(), new Dumper(v -> registry.value().byNameCodec()));
-        //Dumper d = DUMPERS.get(registry.key().location());
-        if (d != null)
-            dump(base, registry, registryOps, gson, d.codecFunction, d.contentTransform);
-        else
-            BCLib.LOGGER.warning("    No Codec Found");
-
+    /**
+     * A file of the dump, {@code value} is encoded with the codec returned by {@code codecFunction}.
+     */
+    private record Entry(String path, Object value, Function<Object, Codec<?>> codecFunction) {
     }
 
-    private static <T, S> void dump(
-            File base, RegistryAccess.RegistryEntry<T> registry,
+    /**
+     * Everything the dump needs, collected on the server thread so it can be encoded on other threads.
+     */
+    private record Snapshot(
             RegistryOps<JsonElement> registryOps,
-            Gson gson,
-            Function<Object, Codec<?>> codecFunction,
-            Function<Holder<T>, Object> contentTransform
+            List<Entry> dimensions,
+            Map<ResourceLocation, List<Entry>> tags,
+            Map<ResourceLocation, List<Entry>> content
     ) {
-        BCLib.LOGGER.info("   - Serializing Tags");
-        dumpTags(base, registry, registryOps, gson);
-
-        BCLib.LOGGER.info("   - Serializing Content");
-        int[] count = {0, 0};
-        registry
-                .value()
-                .entrySet()
-                .stream()
-                .map(e -> e.getKey()).map(key -> registry.value().getHolder(key).get())
-                .forEach(holder -> {
-                    File f1 = new File(base, holder.unwrapKey().get().location().getNamespace());
-                    f1 = new File(f1, registry.key().location().getPath());
-                    f1.mkdirs();
-                    f1 = new File(f1, holder.unwrapKey().get().location().getPath() + ".json");
-                    f1.getParentFile().mkdirs();
-                    //BCLib.LOGGER.info("     - " + f1);
-
-                    Object obj = contentTransform.apply(holder);
-                    try {
-                        Codec codec = codecFunction.apply(obj);
-                        var o = codec
-                                .encodeStart(registryOps, obj)
-                                .result()
-                                .orElse(new JsonObject());
-
-                        String content = gson.toJson(o);
-                        try {
-                            Files.writeString(f1.toPath(), content, StandardCharsets.UTF_8);
-                            count[0]++;
-                        } catch (IOException e) {
-                            count[1]++;
-                            BCLib.LOGGER.error("        ->> Unable to WRITE: " + e.getMessage());
-                        }
-                    } catch (Exception e) {
-                        count[1]++;
-                        BCLib.LOGGER.error("      ->> Unable to encode: " + e.getMessage());
-                    }
-                });
-        BCLib.LOGGER.info("     -> Wrote " + count[0] + " files (" + count[1] + " errors)");
+        int size() {
+            int size = dimensions.size();
+            for (List<Entry> e : tags.values()) size += e.size();
+            for (List<Entry> e : content.values()) size += e.size();
+            return size;
+        }
     }
 
+    static int dumpDatapack(CommandContext<CommandSourceStack> ctx) {
+        final CommandSourceStack source = ctx.getSource();
+        if (!RUNNING.compareAndSet(false, true)) {
+            source.sendFailure(Component.literal("A datapack dump is already running"));
+            return 0;
+        }
 
-    private static <T> void dumpDatapackOld(
-            File base,
-            RegistryAccess.RegistryEntry<T> registry,
-            RegistryOps<JsonElement> registryOps,
-            Gson gson
-    ) {
-        BCLib.LOGGER.info(registry.key().toString());
-        dumpTags(base, registry, registryOps, gson);
-
-        registry
-                .value()
-                .entrySet()
-                .stream()
-                .map(e -> e.getKey()).map(key -> registry.value().getHolder(key).get())
-                .forEach(holder -> {
-                    File f1 = new File(base, holder.unwrapKey().get().location().getNamespace());
-                    f1 = new File(f1, registry.key().location().getPath());
-                    f1.mkdirs();
-                    f1 = new File(f1, holder.unwrapKey().get().location().getPath() + ".json");
-                    f1.getParentFile().mkdirs();
-
-                    Codec[] codec = {null};
-
-                    //BCLib.LOGGER.info("   - " + f1);
-                    Object obj = holder;
-
-                    while (obj instanceof Holder<?>) {
-                        obj = ((Holder<?>) obj).value();
-                    }
-
-                    if (obj instanceof BiomeSource || obj instanceof Feature) {
-                        System.out.print("");
-                    }
-                    System.out.println(obj.getClass());
-
-                    if (obj instanceof Structure s) {
-                        codec[0] = s.type().codec();
-                    } else if (obj instanceof BCLBiome s) {
-                        codec[0] = BiomeData.CODEC;
-                    } else if (obj instanceof StructureProcessorList s) {
-                        codec[0] = StructureProcessorType.LIST_OBJECT_CODEC;
-                    } else if (obj instanceof GameEvent) {
-                        return;
-                    } else if (obj instanceof Fluid) {
-                        return;
-                    } else if (obj instanceof MobEffect) {
-                        return;
-                    } else if (obj instanceof BaseStairsBlock) {
-                        return;
-                    } else if (obj instanceof RuleTestType<?>) {
-                        codec[0] = registry.value().byNameCodec();
-                    } else if (obj instanceof PosRuleTestType<?>) {
-                        codec[0] = registry.value().byNameCodec();
-                    } else if (obj instanceof WorldGenSettings) {
-                        codec[0] = registry.value().byNameCodec();
-                    } else if (obj instanceof LevelStem) {
-                        codec[0] = registry.value().byNameCodec();
-                    }
-
-                    if (codec[0] == null) {
-                        for (Method m : obj.getClass().getMethods()) {
-                            if (!Modifier.isStatic(m.getModifiers())) {
-                                m.setAccessible(true);
-                                if (m.getParameterTypes().length == 0) {
-                                    if (Codec.class.isAssignableFrom(m.getReturnType())) {
-                                        try {
-                                            codec[0] = (Codec) m.invoke(obj);
-                                            BCLib.LOGGER.debug("      Got Codec from " + m);
-                                            break;
-                                        } catch (Exception e) {
-                                            BCLib.LOGGER.error("     !!! Unable to get Codec from " + m);
-                                        }
-                                    } else if (KeyDispatchCodec.class.isAssignableFrom(m.getReturnType())) {
-                                        try {
-                                            codec[0] = ((KeyDispatchCodec) m.invoke(obj)).codec();
-                                            BCLib.LOGGER.debug("      Got Codec from " + m);
-                                            break;
-                                        } catch (Exception e) {
-                                            BCLib.LOGGER.error("     !!! Unable to get Codec from " + m);
-                                        }
-                                    } else if (KeyDispatchDataCodec.class.isAssignableFrom(m.getReturnType())) {
-                                        try {
-                                            codec[0] = ((KeyDispatchDataCodec) m.invoke(obj)).codec();
-                                            BCLib.LOGGER.debug("      Got Codec from " + m);
-                                            break;
-                                        } catch (Exception e) {
-                                            BCLib.LOGGER.error("     !!! Unable to get Codec from " + m);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-
-                    if (codec[0] == null) {
-                        //Try to find DIRECT_CODEC field
-                        for (Field f : obj.getClass().getFields()) {
-                            if (Modifier.isStatic(f.getModifiers())) {
-                                if ("DIRECT_CODEC".equals(f.getName())) {
-                                    f.setAccessible(true);
-                                    try {
-                                        codec[0] = (Codec) f.get(null);
-                                        BCLib.LOGGER.debug("      Got Codec from " + f);
-                                    } catch (Exception e) {
-                                        BCLib.LOGGER.error("      !!! Unable to get Codec from " + f);
-                                    }
-                                }
-                            }
-                        }
-                    }
-
-                    //Try to find CODEC field
-                    if (codec[0] == null) {
-                        for (Field f : obj.getClass().getFields()) {
-                            if (Modifier.isStatic(f.getModifiers())) {
-                                if ("CODEC".equals(f.getName())) {
-                                    try {
-                                        f.setAccessible(true);
-                                        codec[0] = (Codec) f.get(null);
-                                        BCLib.LOGGER.debug("      Got Codec from " + f);
-                                    } catch (Exception e) {
-                                        BCLib.LOGGER.error("     !!! Unable to get Codec from " + f);
-                                    }
-                                }
-                            }
-                        }
-                    }
-
-                    //Try to find any Codec field
-                    if (codec[0] == null) {
-                        for (Field f : obj.getClass().getFields()) {
-                            if (Modifier.isStatic(f.getModifiers())) {
-                                if (Codec.class.isAssignableFrom(f.getType())) {
-                                    f.setAccessible(true);
-                                    try {
-                                        codec[0] = (Codec) f.get(null);
-                                        BCLib.LOGGER.debug("      Got Codec from " + f);
-                                    } catch (Exception e) {
-                                        BCLib.LOGGER.error("     !!! Unable to get Codec from " + f);
-                                    }
-                                }
-                            }
-                        }
-                    }
-
-                    if (codec[0] == null) {
-                        codec[0] = registry.value().byNameCodec();
-                    }
-
-                    if (codec[0] == null) {
-                        codec[0] = registry.value().byNameCodec();
-                    }
-
-
-                    if (codec[0] != null) {
-                        try {
-                            var o = codec[0]
-                                    .encodeStart(registryOps, obj)
-                                    .result()
-                                    .orElse(new JsonObject());
-
-                            String content = gson.toJson(o);
-                            try {
-                                Files.writeString(f1.toPath(), content, StandardCharsets.UTF_8);
-                            } catch (IOException e) {
-                                BCLib.LOGGER.error("      ->> Unable to WRITE: " + e.getMessage());
-                            }
-                        } catch (Exception e) {
-                            BCLib.LOGGER.error("      ->> Unable to encode: " + e.getMessage());
-                        }
-                    } else {
-                        BCLib.LOGGER.error("     !!! Could not determine Codec: " + obj.getClass());
-                    }
-                });
+        final MinecraftServer server = source.getServer();
+        final File target = new File(System.getProperty("user.dir"), "bclib_datapack_dump.zip");
+        final Snapshot snapshot;
+        try {
+            snapshot = snapshot(source.getLevel().registryAccess(), server);
+        } catch (RuntimeException e) {
+            RUNNING.set(false);
+            throw e;
+        }
 
+        source.sendSuccess(() -> Component.literal("Writing datapack dump in the background..."), false);
+        Thread dumpThread = new Thread(() -> {
+            try {
+                writeZip(target, snapshot, message -> server.execute(() -> source.sendSuccess(() -> message, false)));
+                server.execute(() -> source.sendSuccess(
+                        () -> Component.literal("Succesfully written to:\n    ").append(
+                                Component.literal(target.toString()).setStyle(Style.EMPTY.withUnderlined(true))
+                        ),
+                        false
+                ));
+            } catch (Exception e) {
+                BCLib.LOGGER.error("Unable to write datapack dump", e);
+                server.execute(() -> source.sendFailure(
+                        Component.literal("Unable to write datapack dump: " + e.getMessage())
+                ));
+            } finally {
+                RUNNING.set(false);
+            }
+        }, "BCLib Datapack Dump");
+        dumpThread.setDaemon(true);
+        dumpThread.start();
+        return Command.SINGLE_SUCCESS;
     }
 
-    private static <T> void dumpTags(
-            File base,
-            RegistryAccess.RegistryEntry<T> registry,
-            RegistryOps<JsonElement> registryOps,
-            Gson gson
-    ) {
-        // Tag Output
+    /**
+     * Writes the dump as a directory tree to {@code base} on the calling thread. Needs to be called from the server
+     * thread.
+     */
+    public static void dumpDatapack(File base, RegistryAccess registryAccess, CommandContext<CommandSourceStack> ctx) {
+        try {
+            writeDirectory(base, snapshot(registryAccess, ctx.getSource().getServer()), message -> {
+            });
+        } catch (Exception e) {
+            BCLib.LOGGER.error("Unable to write datapack dump", e);
+        }
+    }
+
+    /**
+     * Writes the dump as a zip archive to {@code target} on the calling thread. Needs to be called from the server
+     * thread.
+     */
+    public static void dumpDatapackZip(File target, RegistryAccess registryAccess, CommandContext<CommandSourceStack> ctx) {
+        try {
+            writeZip(target, snapshot(registryAccess, ctx.getSource().getServer()), message -> {
+            });
+        } catch (Exception e) {
+            BCLib.LOGGER.error("Unable to write datapack dump", e);
+        }
+    }
+
+    private static Snapshot snapshot(RegistryAccess registryAccess, MinecraftServer server) {
+        final RegistryOps<JsonElement> registryOps = RegistryOps.create(JsonOps.INSTANCE, registryAccess);
+
+        final List<Entry> dimensions = new ArrayList<>();
+        for (ServerLevel serverLevel : server.getAllLevels()) {
+            final ResourceLocation id = serverLevel.dimension().location();
+            dimensions.add(new Entry(
+                    id.getNamespace() + "/dimension/" + id.getPath() + ".json",
+                    new LevelStem(serverLevel.dimensionTypeRegistration(), serverLevel.getChunkSource().getGenerator()),
+                    v -> LevelStem.CODEC
+            ));
+        }
+
+        final Map<ResourceLocation, List<Entry>> tags = new LinkedHashMap<>();
+        final Map<ResourceLocation, List<Entry>> content = new LinkedHashMap<>();
+        registryAccess.registries().forEach(r -> {
+            tags.put(r.key().location(), snapshotTags(r));
+            content.put(r.key().location(), snapshotContent(r));
+        });
+        return new Snapshot(registryOps, dimensions, tags, content);
+    }
+
+    private static <T> List<Entry> snapshotTags(RegistryAccess.RegistryEntry<T> registry) {
+        final List<Entry> entries = new ArrayList<>();
         registry.value()
-                .getTagNames()
-                .map(tagKey -> registry.value().getTag(tagKey))
-                .filter(tag -> tag.isPresent())
-                .map(tag -> tag.get())
-                .forEach(tag -> {
-                    File f1 = new File(base, tag.key().location().getNamespace());
-                    f1 = new File(f1, "tags");
-                    f1 = new File(f1, registry.key().location().getPath());
-                    f1 = new File(f1, tag.key().location().getPath() + ".json");
-                    f1.getParentFile().mkdirs();
-
-                    TagFile tf = new TagFile(
-                            tag.stream()
-                               .map(holder -> holder.unwrapKey())
-                               .filter(k -> k.isPresent())
-                               .map(k -> TagEntry.element(k.get().location()))
-                               .toList(),
+                .getTags()
+                .forEach(pair -> {
+                    final ResourceLocation id = pair.getFirst().location();
+                    final TagFile tf = new TagFile(
+                            pair.getSecond()
+                                .stream()
+                                .map(holder -> holder.unwrapKey())
+                                .filter(k -> k.isPresent())
+                                .map(k -> TagEntry.element(k.get().location()))
+                                .toList(),
                             true
                     );
-                    var o = TagFile.CODEC
-                            .encodeStart(registryOps, tf)
-                            .result()
-                            .orElse(new JsonObject());
-                    String content = gson.toJson(o);
-                    try {
-                        Files.writeString(f1.toPath(), content, StandardCharsets.UTF_8);
-                    } catch (IOException e) {
-                        BCLib.LOGGER.error("      ->> Unable to WRITE: " + e.getMessage());
-                    }
+                    entries.add(new Entry(
+                            id.getNamespace() + "/tags/" + registry.key().location().getPath() + "/" + id.getPath() + ".json",
+                            tf,
+                            v -> TagFile.CODEC
+                    ));
+                });
+        return entries;
+    }
+
+    private static <T> List<Entry> snapshotContent(RegistryAccess.RegistryEntry<T> registry) {
+        Dumper d = DUMPERS.get(registry.key().location());
+        final Function<Object, Codec<?>> codecFunction = d != null
+                ? d.codecFunction
+                : v -> registry.value().byNameCodec();
+        final Function<Holder<T>, Object> contentTransform = d != null ? d.contentTransform : Holder::value;
+
+        final List<Entry> entries = new ArrayList<>();
+        registry.value()
+                .holders()
+                .forEach(holder -> {
+                    final ResourceLocation id = holder.key().location();
+                    entries.add(new Entry(
+                            id.getNamespace() + "/" + registry.key().location().getPath() + "/" + id.getPath() + ".json",
+                            contentTransform.apply(holder),
+                            codecFunction
+                    ));
                 });
+        return entries;
+    }
+
+    /**
+     * Receives the encoded files of the dump in their final order.
+     */
+    @FunctionalInterface
+    private interface Output {
+        /**
+         * @return {@code false} if the file could not be written
+         */
+        boolean write(String path, byte[] content) throws IOException;
+    }
+
+    private static void writeZip(File target, Snapshot snapshot, Consumer<Component> progress) throws IOException {
+        if (target.getParentFile() != null) target.getParentFile().mkdirs();
+
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(target)))) {
+            write(snapshot, progress, (path, content) -> {
+                zip.putNextEntry(new ZipEntry(path));
+                zip.write(content);
+                zip.closeEntry();
+                return true;
+            });
+        }
+    }
+
+    private static void writeDirectory(File base, Snapshot snapshot, Consumer<Component> progress) throws IOException {
+        write(snapshot, progress, (path, content) -> {
+            final File file = new File(base, path);
+            file.getParentFile().mkdirs();
+            try {
+                Files.write(file.toPath(), content);
+                return true;
+            } catch (IOException e) {
+                BCLib.LOGGER.error("        ->> Unable to WRITE: " + e.getMessage());
+                return false;
+            }
+        });
+    }
+
+    private static void write(Snapshot snapshot, Consumer<Component> progress, Output output) throws IOException {
+        final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            final EntryWriter writer = new EntryWriter(
+                    output,
+                    executor,
+                    threads * 4,
+                    snapshot.registryOps,
+                    gson,
+                    snapshot.size(),
+                    progress
+            );
+
+            //the dimensions of the running levels take precedence over the entries of the dimension registry
+            BCLib.LOGGER.info("- Serializing Dimensions ");
+            writer.writeAll(snapshot.dimensions);
+
+            for (Map.Entry<ResourceLocation, List<Entry>> registry : snapshot.content.entrySet()) {
+                BCLib.LOGGER.info("- Serializing: " + registry.getKey());
+                BCLib.LOGGER.info("   - Serializing Tags");
+                writer.writeAll(snapshot.tags.get(registry.getKey()));
+
+                BCLib.LOGGER.info("   - Serializing Content");
+                final int[] count = writer.writeAll(registry.getValue());
+                BCLib.LOGGER.info("     -> Wrote " + count[0] + " files (" + count[1] + " errors)");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Encodes entries on the executor and passes them to the {@link Output} in their original order. At most
+     * {@code window} encoded entries are held in memory.
+     */
+    private static class EntryWriter {
+        private final Output output;
+        private final ExecutorService executor;
+        private final int window;
+        private final RegistryOps<JsonElement> registryOps;
+        private final Gson gson;
+        private final int total;
+        private final Consumer<Component> progress;
+        private final Set<String> written = new HashSet<>();
+        private int done = 0;
+        private int reported = 0;
+
+        EntryWriter(
+                Output output,
+                ExecutorService executor,
+                int window,
+                RegistryOps<JsonElement> registryOps,
+                Gson gson,
+                int total,
+                Consumer<Component> progress
+        ) {
+            this.output = output;
+            this.executor = executor;
+            this.window = window;
+            this.registryOps = registryOps;
+            this.gson = gson;
+            this.total = Math.max(1, total);
+            this.progress = progress;
+        }
+
+        /**
+         * @return The number of written files and the number of errors
+         */
+        int[] writeAll(List<Entry> entries) throws IOException {
+            final int[] count = {0, 0};
+            final ArrayDeque<Pair<Entry, CompletableFuture<byte[]>>> pending = new ArrayDeque<>();
+            for (Entry entry : entries) {
+                pending.add(new Pair<>(entry, CompletableFuture.supplyAsync(() -> encode(entry), executor)));
+                if (pending.size() >= window) {
+                    writeNext(pending.poll(), count);
+                }
+            }
+            while (!pending.isEmpty()) {
+                writeNext(pending.poll(), count);
+            }
+            return count;
+        }
+
+        private byte[] encode(Entry entry) {
+            try {
+                Codec codec = entry.codecFunction.apply(entry.value);
+                var o = codec
+                        .encodeStart(registryOps, entry.value)
+                        .result()
+                        .orElse(new JsonObject());
+                return gson.toJson(o).getBytes(StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                BCLib.LOGGER.error("      ->> Unable to encode: " + e.getMessage());
+                return null;
+            }
+        }
+
+        private void writeNext(Pair<Entry, CompletableFuture<byte[]>> next, int[] count) throws IOException {
+            final byte[] content = next.second.join();
+            if (content == null) {
+                count[1]++;
+            } else if (written.add(next.first.path)) {
+                if (output.write(next.first.path, content)) count[0]++;
+                else count[1]++;
+            }
+
+            done++;
+            final int step = (int) (done * 10L / total);
+            if (step > reported) {
+                reported = step;
+                progress.accept(Component.literal("Datapack dump: " + (step * 10) + "%"));
+            }
+        }
     }
 }
@@ -3,8 +3,40 @@ package org.betterx.bclib.config;
 import org.betterx.bclib.BCLib;
 
 public class GeneratorConfig extends NamedPathConfig {
+    @ConfigUI(hide = true)
+    public static final ConfigToken<Integer> BIOME_CHUNK_CACHE_SIZE = ConfigToken.Int(
+            512,
+            "biomeChunkCacheSize",
+            "cache"
+    );
+
+    @ConfigUI(hide = true)
+    public static final ConfigToken<Boolean> BIOME_TILE_STORE = ConfigToken.Boolean(
+            false,
+            "biomeTileStore",
+            "cache"
+    );
+
+    @ConfigUI(hide = true)
+    public static final ConfigToken<Integer> STRUCTURE_CACHE_SIZE = ConfigToken.Int(
+            64,
+            "structureCacheSize",
+            "cache"
+    );
+
     public GeneratorConfig() {
         super(BCLib.MOD_ID, "generator", true);
     }
 
+    public int biomeChunkCacheSize() {
+        return get(BIOME_CHUNK_CACHE_SIZE);
+    }
+
+    public boolean biomeTileStore() {
+        return get(BIOME_TILE_STORE);
+    }
+
+    public int structureCacheSize() {
+        return get(STRUCTURE_CACHE_SIZE);
+    }
 }
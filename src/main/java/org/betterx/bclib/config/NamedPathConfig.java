@@ -127,6 +127,8 @@ public class NamedPathConfig extends PathConfig {
     public static class ConfigToken<T> extends ConfigKey {
         public final T defaultValue;
         public final Class<?> type;
+        //index of this token in the value snapshot of the config that declares it
+        private int snapshotSlot = -1;
 
         protected ConfigToken(Class<?> type, T defaultValue, String entry, ResourceLocation path) {
             this(type, defaultValue, entry, path.getNamespace(), path.getPath());
@@ -165,6 +167,9 @@ public class NamedPathConfig extends PathConfig {
         }
     }
 
+    private ConfigToken<?>[] snapshotTokens;
+    private volatile Object[] snapshot;
+
     public NamedPathConfig(String modID, String group, boolean autoSync, boolean diffContent) {
         super(modID, group, autoSync, diffContent);
         onInit();
@@ -196,8 +201,44 @@ public class NamedPathConfig extends PathConfig {
     }
 
     protected void onInit() {
-        getAllOptions().forEach(e -> get(e.token));
+        final List<ConfigTokenDescription<?>> options = getAllOptions();
+        options.forEach(e -> get(e.token));
         this.saveChanges();
+
+        final ConfigToken<?>[] tokens = new ConfigToken<?>[options.size()];
+        int slot = 0;
+        for (ConfigTokenDescription<?> option : options) {
+            if (option.token.snapshotSlot < 0) {
+                option.token.snapshotSlot = slot;
+            }
+            tokens[slot++] = option.token;
+        }
+        this.snapshotTokens = tokens;
+        rebuildSnapshot();
+    }
+
+    /**
+     * Resolves the values of all declared options, so {@link #get(ConfigToken)} does not need to walk the
+     * json tree on every call. Has to run whenever the underlying entries change.
+     */
+    private synchronized void rebuildSnapshot() {
+        //while building, dependency checks of the options need to read the actual entries
+        this.snapshot = null;
+        if (snapshotTokens == null) return;
+
+        final Object[] values = new Object[snapshotTokens.length];
+        for (int i = 0; i < values.length; i++) {
+            final Object value = _get(snapshotTokens[i], false);
+            //every caller gets the same instance, lists must not be changed through it
+            values[i] = value instanceof List<?> list ? List.copyOf(list) : value;
+        }
+        this.snapshot = values;
+    }
+
+    @Override
+    public void reload() {
+        super.reload();
+        rebuildSnapshot();
     }
 
     /**
@@ -223,7 +264,13 @@ public class NamedPathConfig extends PathConfig {
      * may not be the value from the config File. For Example, on a {@link Boolean}-Type the result is always false
      * if {@link DependendConfigToken#dependenciesTrue} returns {@code false}.
      */
+    @SuppressWarnings("unchecked")
     public <T> T get(ConfigToken<T> what) {
+        final Object[] values = this.snapshot;
+        final int slot = what.snapshotSlot;
+        if (values != null && slot >= 0 && slot < values.length && snapshotTokens[slot] == what) {
+            return (T) values[slot];
+        }
         return _get(what, false);
     }
 
@@ -296,5 +343,49 @@ public class NamedPathConfig extends PathConfig {
         return this.getStringArray(what, what.defaultValue);
     }
 
+    @Override
+    protected boolean setString(ConfigKey key, String value) {
+        final boolean changed = super.setString(key, value);
+        if (changed) rebuildSnapshot();
+        return changed;
+    }
+
+    @Override
+    protected boolean setInt(ConfigKey key, int value) {
+        final boolean changed = super.setInt(key, value);
+        if (changed) rebuildSnapshot();
+        return changed;
+    }
+
+    @Override
+    protected <T extends Comparable<T>, RE extends ConfigKeeper.RangeEntry<T>> boolean setRanged(
+            ConfigKey key,
+            T value,
+            Class<RE> type
+    ) {
+        final boolean changed = super.setRanged(key, value, type);
+        if (changed) rebuildSnapshot();
+        return changed;
+    }
 
+    @Override
+    protected boolean setFloat(ConfigKey key, float value) {
+        final boolean changed = super.setFloat(key, value);
+        if (changed) rebuildSnapshot();
+        return changed;
+    }
+
+    @Override
+    protected boolean setBoolean(ConfigKey key, boolean value) {
+        final boolean changed = super.setBoolean(key, value);
+        if (changed) rebuildSnapshot();
+        return changed;
+    }
+
+    @Override
+    protected boolean setStringArray(ConfigKey key, List<String> value) {
+        final boolean changed = super.setStringArray(key, value);
+        if (changed) rebuildSnapshot();
+        return changed;
+    }
 }
@@ -1,19 +1,36 @@
 package org.betterx.bclib.mixin.client;
 
 import org.betterx.bclib.api.v2.dataexchange.DataExchangeAPI;
+import org.betterx.bclib.client.render.FogDensityField;
 
+import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.client.multiplayer.ClientPacketListener;
+import net.minecraft.network.protocol.game.ClientboundChunksBiomesPacket;
+import net.minecraft.world.level.chunk.LevelChunk;
 
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(ClientPacketListener.class)
 public class ClientPacketListenerMixin {
+    @Shadow
+    private ClientLevel level;
 
     @Inject(method = "handleLogin", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/telemetry/WorldSessionTelemetryManager;onPlayerInfoReceived(Lnet/minecraft/world/level/GameType;Z)V"))
     public void bclib_onStart(CallbackInfo ci) {
         DataExchangeAPI.sendOnEnter();
     }
+
+    @Inject(method = "handleChunksBiomes", at = @At("TAIL"))
+    public void bclib_onChunksBiomes(ClientboundChunksBiomesPacket packet, CallbackInfo ci) {
+        for (ClientboundChunksBiomesPacket.ChunkBiomeData data : packet.chunkBiomeData()) {
+            LevelChunk chunk = this.level.getChunkSource().getChunk(data.pos().x, data.pos().z, false);
+            if (chunk != null) {
+                FogDensityField.update(this.level, chunk);
+            }
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package org.betterx.bclib.mixin.common;
 
 import org.betterx.bclib.recipes.BCLRecipeManager;
+import org.betterx.bclib.recipes.RecipeIndex;
 
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.ResourceManager;
@@ -15,6 +16,7 @@ import net.minecraft.world.level.Level;
 import com.google.gson.JsonElement;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
@@ -22,9 +24,12 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Mixin(RecipeManager.class)
 public abstract class RecipeManagerMixin {
+    @Unique
+    private final Map<RecipeType<?>, RecipeIndex<?, ?>> bcl_recipeIndex = new ConcurrentHashMap<>();
 
     @Shadow
     protected abstract <C extends Container, T extends Recipe<C>> Map<ResourceLocation, RecipeHolder<T>> byType(
@@ -41,6 +46,21 @@ public abstract class RecipeManagerMixin {
         BCLRecipeManager.removeDisabledRecipes(resourceManager, map);
     }
 
+    @Inject(method = "apply(Ljava/util/Map;Lnet/minecraft/server/packs/resources/ResourceManager;Lnet/minecraft/util/profiling/ProfilerFiller;)V", at = @At("TAIL"))
+    public void bcl_clearIndexAfterApply(
+            Map<ResourceLocation, JsonElement> map,
+            ResourceManager resourceManager,
+            ProfilerFiller profiler,
+            CallbackInfo info
+    ) {
+        bcl_recipeIndex.clear();
+    }
+
+    @Inject(method = "replaceRecipes", at = @At("TAIL"))
+    public void bcl_clearIndexAfterReplace(Iterable<RecipeHolder<?>> recipes, CallbackInfo info) {
+        bcl_recipeIndex.clear();
+    }
+
     @Inject(method = "getRecipeFor(Lnet/minecraft/world/item/crafting/RecipeType;Lnet/minecraft/world/Container;Lnet/minecraft/world/level/Level;)Ljava/util/Optional;", at = @At("HEAD"), cancellable = true)
     <C extends Container, T extends Recipe<C>> void bcl_sort(
             RecipeType<T> recipeType,
@@ -48,29 +68,16 @@ public abstract class RecipeManagerMixin {
             Level level,
             CallbackInfoReturnable<Optional<RecipeHolder<T>>> cir
     ) {
-        var inter = this.byType(recipeType);
-        var all = inter
-                .values()
-                .stream()
-                .filter((recipe) -> recipe.value().matches(container, level)).sorted((a, b) -> {
-                    if (a.id().getNamespace().equals(b.id().getNamespace())) {
-                        return a.id().getPath().compareTo(b.id().getPath());
-                    }
-                    if (a.id().getNamespace().equals("minecraft") && !b.id().getNamespace().equals("minecraft")) {
-                        return 1;
-                    } else if (!a.id().getNamespace().equals("minecraft") && b.id()
-                                                                              .getNamespace()
-                                                                              .equals("minecraft")) {
-                        return -1;
-                    } else {
-                        return a.id().getNamespace().compareTo(b.id().getNamespace());
-                    }
-                }).toList();
-
-        if (all.size() > 1) {
-            cir.setReturnValue(Optional.of(all.get(0)));
+        @SuppressWarnings("unchecked")
+        final RecipeIndex<C, T> index = (RecipeIndex<C, T>) bcl_recipeIndex.computeIfAbsent(
+                recipeType,
+                type -> RecipeIndex.build(recipeType, this.<C, T>byType(recipeType).values())
+        );
+        //only decide between several matching recipes, vanilla (and other mods) handle everything else
+        final Optional<RecipeHolder<T>> preferred = index.findPreferred(container, level);
+        if (preferred.isPresent()) {
+            cir.setReturnValue(preferred);
         }
-
     }
 
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package org.betterx.bclib.mixin.common;
 
 import org.betterx.bclib.api.v2.LifeCycleAPI;
+import org.betterx.bclib.api.v2.generator.map.BiomeTileStore;
 import org.betterx.worlds.together.world.BiomeSourceWithNoiseRelatedSettings;
 import org.betterx.worlds.together.world.BiomeSourceWithSeed;
 
@@ -10,6 +11,7 @@ import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.progress.ChunkProgressListener;
+import net.minecraft.util.ProgressListener;
 import net.minecraft.util.profiling.ProfilerFiller;
 import net.minecraft.world.RandomSequences;
 import net.minecraft.world.level.Level;
@@ -96,4 +98,9 @@ public abstract class ServerLevelMixin extends Level {
 
         bclib_lastWorld = levelStorageAccess.getLevelId();
     }
+
+    @Inject(method = "save", at = @At("TAIL"))
+    private void bclib_onSave(ProgressListener progressListener, boolean flush, boolean skipSave, CallbackInfo ci) {
+        if (!skipSave) BiomeTileStore.flushAll();
+    }
 }
@@ -0,0 +1,176 @@
+package org.betterx.bclib.recipes;
+
+import net.minecraft.world.Container;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.BlastingRecipe;
+import net.minecraft.world.item.crafting.CampfireCookingRecipe;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import net.minecraft.world.item.crafting.RecipeType;
+import net.minecraft.world.item.crafting.ShapedRecipe;
+import net.minecraft.world.item.crafting.ShapelessRecipe;
+import net.minecraft.world.item.crafting.SmeltingRecipe;
+import net.minecraft.world.item.crafting.SmokingRecipe;
+import net.minecraft.world.item.crafting.StonecutterRecipe;
+import net.minecraft.world.level.Level;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+
+import java.util.*;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Recipes of one {@link RecipeType}, sorted by the BCLib priority rule (see {@link #PRIORITY}).
+ * <p>
+ * For vanilla recipe types with item based inputs, vanilla recipes are additionally bucketed by the items that are
+ * accepted by their first ingredient. A lookup only tests the recipes of the buckets for the items in the container (and
+ * the recipes without usable ingredients) and stops as soon as a second match is found.
+ * <p>
+ * Indices are built lazily, because ingredients can only be resolved after tags are bound, and are dropped by the
+ * {@link net.minecraft.world.item.crafting.RecipeManager} whenever its recipes change.
+ */
+@ApiStatus.Internal
+public class RecipeIndex<C extends Container, T extends Recipe<C>> {
+    /**
+     * Recipes from other namespaces come before vanilla recipes, recipes of the same namespace are sorted by path.
+     */
+    public static final Comparator<RecipeHolder<?>> PRIORITY = (a, b) -> {
+        if (a.id().getNamespace().equals(b.id().getNamespace())) {
+            return a.id().getPath().compareTo(b.id().getPath());
+        }
+        if (a.id().getNamespace().equals("minecraft") && !b.id().getNamespace().equals("minecraft")) {
+            return 1;
+        } else if (!a.id().getNamespace().equals("minecraft") && b.id().getNamespace().equals("minecraft")) {
+            return -1;
+        } else {
+            return a.id().getNamespace().compareTo(b.id().getNamespace());
+        }
+    };
+
+    //types where every input item is in the container and ingredients describe the required items
+    private static final Set<RecipeType<?>> ITEM_INDEXED_TYPES = Set.of(
+            RecipeType.CRAFTING,
+            RecipeType.SMELTING,
+            RecipeType.BLASTING,
+            RecipeType.SMOKING,
+            RecipeType.CAMPFIRE_COOKING,
+            RecipeType.STONECUTTING
+    );
+
+    //classes whose matches() requires an item of every ingredient, subclasses may override it and are not indexed
+    private static final Set<Class<?>> ITEM_INDEXED_CLASSES = Set.of(
+            ShapedRecipe.class,
+            ShapelessRecipe.class,
+            SmeltingRecipe.class,
+            BlastingRecipe.class,
+            SmokingRecipe.class,
+            CampfireCookingRecipe.class,
+            StonecutterRecipe.class
+    );
+
+    private final List<RecipeHolder<T>> recipes;
+    private final Reference2ObjectMap<Item, int[]> byItem;
+    private final int[] unindexed;
+
+    private RecipeIndex(List<RecipeHolder<T>> recipes, Reference2ObjectMap<Item, int[]> byItem, int[] unindexed) {
+        this.recipes = recipes;
+        this.byItem = byItem;
+        this.unindexed = unindexed;
+    }
+
+    public static <C extends Container, T extends Recipe<C>> RecipeIndex<C, T> build(
+            RecipeType<T> type,
+            Collection<RecipeHolder<T>> holders
+    ) {
+        final List<RecipeHolder<T>> recipes = new ArrayList<>(holders);
+        recipes.sort(PRIORITY);
+
+        if (!ITEM_INDEXED_TYPES.contains(type)) {
+            return new RecipeIndex<>(recipes, null, null);
+        }
+
+        final Reference2ObjectMap<Item, IntArrayList> buckets = new Reference2ObjectOpenHashMap<>();
+        final IntArrayList unindexed = new IntArrayList();
+        for (int i = 0; i < recipes.size(); i++) {
+            final Set<Item> items = getFirstIngredientItems(recipes.get(i).value());
+            if (items == null) {
+                unindexed.add(i);
+            } else {
+                for (Item item : items) {
+                    buckets.computeIfAbsent(item, k -> new IntArrayList()).add(i);
+                }
+            }
+        }
+
+        final Reference2ObjectMap<Item, int[]> byItem = new Reference2ObjectOpenHashMap<>(buckets.size());
+        buckets.forEach((item, list) -> byItem.put(item, list.toIntArray()));
+        return new RecipeIndex<>(recipes, byItem, unindexed.toIntArray());
+    }
+
+    /**
+     * @return The items accepted by the first non-empty ingredient or {@code null} if the recipe can not be indexed
+     */
+    private static Set<Item> getFirstIngredientItems(Recipe<?> recipe) {
+        if (!ITEM_INDEXED_CLASSES.contains(recipe.getClass())) return null;
+
+        for (Ingredient ingredient : recipe.getIngredients()) {
+            if (ingredient.isEmpty()) continue;
+            //custom ingredients may match items they do not list
+            if (ingredient.getClass() != Ingredient.class) return null;
+
+            final Set<Item> items = new ReferenceOpenHashSet<>();
+            for (ItemStack stack : ingredient.getItems()) {
+                items.add(stack.getItem());
+            }
+            return items.isEmpty() ? null : items;
+        }
+        return null;
+    }
+
+    /**
+     * @return The first recipe (in priority order) that matches the container, if more than one recipe matches.
+     * Otherwise the result is empty, the choice of the {@link net.minecraft.world.item.crafting.RecipeManager} does
+     * not need to be changed then.
+     */
+    public Optional<RecipeHolder<T>> findPreferred(C container, Level level) {
+        RecipeHolder<T> first = null;
+        if (byItem == null) {
+            for (RecipeHolder<T> holder : recipes) {
+                if (holder.value().matches(container, level)) {
+                    if (first != null) return Optional.of(first);
+                    first = holder;
+                }
+            }
+            return Optional.empty();
+        }
+
+        final BitSet candidates = new BitSet(recipes.size());
+        for (int index : unindexed) {
+            candidates.set(index);
+        }
+        for (int slot = 0; slot < container.getContainerSize(); slot++) {
+            final ItemStack stack = container.getItem(slot);
+            if (stack.isEmpty()) continue;
+
+            final int[] bucket = byItem.get(stack.getItem());
+            if (bucket == null) continue;
+            for (int index : bucket) {
+                candidates.set(index);
+            }
+        }
+
+        for (int index = candidates.nextSetBit(0); index >= 0; index = candidates.nextSetBit(index + 1)) {
+            final RecipeHolder<T> holder = recipes.get(index);
+            if (holder.value().matches(container, level)) {
+                if (first != null) return Optional.of(first);
+                first = holder;
+            }
+        }
+        return Optional.empty();
+    }
+}
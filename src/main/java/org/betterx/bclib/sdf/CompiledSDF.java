@@ -0,0 +1,298 @@
+package org.betterx.bclib.sdf;
+
+import org.betterx.bclib.sdf.primitive.*;
+import org.betterx.bclib.util.MHelper;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.AABB;
+
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * An {@link SDF} tree that was flattened into a linear program by {@link SDF#compile()}.
+ * <p>
+ * All intermediate values live in a per-thread {@link Context}, so a single instance can be used by multiple
+ * worldgen threads at once. Nodes that are executed through {@link SDFCompiler#OP_CALL} (custom nodes and subclasses
+ * of built-in nodes) are called directly and are only thread-safe if they are themselves.
+ * {@link #getBlockState(BlockPos)} returns the state for the last position that was evaluated on the calling thread,
+ * which matches the behaviour of the source tree.
+ */
+public final class CompiledSDF extends SDF {
+    private final SDF source;
+    private final int[] code;
+    private final float[] constants;
+    private final Object[] references;
+    private final int selectionCount;
+    private final int result;
+    private final int[] stateNodes;
+    private final SDF[] stateLeaves;
+    private final BitSet calledLeaves;
+    private final int stateRoot;
+    private final ThreadLocal<Context> context = ThreadLocal.withInitial(this::createContext);
+
+    CompiledSDF(
+            SDF source,
+            int[] code,
+            float[] constants,
+            Object[] references,
+            int selectionCount,
+            int result,
+            int[] stateNodes,
+            SDF[] stateLeaves,
+            BitSet calledLeaves,
+            int stateRoot
+    ) {
+        this.source = source;
+        this.code = code;
+        this.constants = constants;
+        this.references = references;
+        this.selectionCount = selectionCount;
+        this.result = result;
+        this.stateNodes = stateNodes;
+        this.stateLeaves = stateLeaves;
+        this.calledLeaves = calledLeaves;
+        this.stateRoot = stateRoot;
+        copySettings(source);
+    }
+
+    /**
+     * @return The tree this program was compiled from
+     */
+    public SDF getSource() {
+        return source;
+    }
+
+    /**
+     * Creates a new evaluation context. Callers that evaluate many samples on one thread can keep their own
+     * context to skip the thread local lookup.
+     *
+     * @return A new context for this program
+     */
+    public Context createContext() {
+        return new Context(constants, selectionCount);
+    }
+
+    @Override
+    public float getDistance(float x, float y, float z) {
+        return getDistance(x, y, z, context.get());
+    }
+
+    public float getDistance(float x, float y, float z, Context context) {
+        final float[] r = context.registers;
+        final boolean[] selections = context.selections;
+        final int[] code = this.code;
+        r[0] = x;
+        r[1] = y;
+        r[2] = z;
+
+        for (int pc = 0; pc < code.length; pc += SDFCompiler.STRIDE) {
+            final int dst = code[pc + 1];
+            final int a = code[pc + 2];
+            final int b = code[pc + 3];
+            final int c = code[pc + 4];
+            final int d = code[pc + 5];
+            switch (code[pc]) {
+                case SDFCompiler.OP_CALL -> r[dst] = ((SDF) references[d]).getDistance(r[a], r[b], r[c]);
+
+                case SDFCompiler.OP_SPHERE -> r[dst] = SDFSphere.distance(r[a], r[b], r[c], r[d]);
+                case SDFCompiler.OP_CAPSULE -> r[dst] = SDFCapsule.distance(r[a], r[b], r[c], r[d], r[d + 1]);
+                case SDFCompiler.OP_TORUS -> r[dst] = SDFTorus.distance(r[a], r[b], r[c], r[d], r[d + 1]);
+                case SDFCompiler.OP_LINE -> r[dst] = SDFLine.distance(
+                        r[a], r[b], r[c],
+                        r[d], r[d + 1], r[d + 2], r[d + 3], r[d + 4], r[d + 5], r[d + 6]
+                );
+                case SDFCompiler.OP_PIE -> r[dst] = SDFPie.distance(r[a], r[b], r[c], r[d], r[d + 1], r[d + 2]);
+                case SDFCompiler.OP_HEX_PRISM -> r[dst] = SDFHexPrism.distance(r[a], r[b], r[c], r[d], r[d + 1]);
+                case SDFCompiler.OP_CAPPED_CONE -> r[dst] = SDFCappedCone.distance(
+                        r[a], r[b], r[c],
+                        r[d], r[d + 1], r[d + 2]
+                );
+                case SDFCompiler.OP_FLATLAND -> r[dst] = r[b];
+
+                case SDFCompiler.OP_UNION -> {
+                    float va = r[a];
+                    float vb = r[b];
+                    selections[c] = va < vb;
+                    r[dst] = MHelper.min(va, vb);
+                }
+                case SDFCompiler.OP_INTERSECTION -> {
+                    float va = r[a];
+                    float vb = r[b];
+                    selections[c] = va < vb;
+                    r[dst] = MHelper.max(va, vb);
+                }
+                case SDFCompiler.OP_SUBTRACTION -> {
+                    float va = r[a];
+                    float vb = r[b];
+                    selections[c] = va < vb;
+                    r[dst] = MHelper.max(va, -vb);
+                }
+                case SDFCompiler.OP_SMOOTH_UNION -> {
+                    float va = r[a];
+                    float vb = r[b];
+                    float radius = r[d];
+                    selections[c] = va < vb;
+                    float h = Mth.clamp(0.5F + 0.5F * (vb - va) / radius, 0F, 1F);
+                    r[dst] = Mth.lerp(h, vb, va) - radius * h * (1F - h);
+                }
+                case SDFCompiler.OP_SMOOTH_INTERSECTION -> {
+                    float va = r[a];
+                    float vb = r[b];
+                    float radius = r[d];
+                    selections[c] = va < vb;
+                    float h = Mth.clamp(0.5F - 0.5F * (vb - va) / radius, 0F, 1F);
+                    r[dst] = Mth.lerp(h, vb, va) + radius * h * (1F - h);
+                }
+                case SDFCompiler.OP_SMOOTH_SUBTRACTION -> {
+                    float va = r[a];
+                    float vb = r[b];
+                    float radius = r[d];
+                    selections[c] = va < vb;
+                    float h = Mth.clamp(0.5F - 0.5F * (vb + va) / radius, 0F, 1F);
+                    r[dst] = Mth.lerp(h, vb, -va) + radius * h * (1F - h);
+                }
+
+                case SDFCompiler.OP_SUB_CONST -> r[dst] = r[a] - r[b];
+                case SDFCompiler.OP_MUL_CONST -> r[dst] = r[a] * r[b];
+                case SDFCompiler.OP_NEGATE -> r[dst] = -r[a];
+                case SDFCompiler.OP_DISPLACE -> {
+                    @SuppressWarnings("unchecked")
+                    Function<Vector3f, Float> displace = (Function<Vector3f, Float>) references[code[pc + 6]];
+                    context.pos.set(r[b], r[c], r[d]);
+                    r[dst] = r[a] + displace.apply(context.pos);
+                }
+
+                case SDFCompiler.OP_TRANSLATE -> {
+                    r[dst] = r[a] - r[d];
+                    r[dst + 1] = r[b] - r[d + 1];
+                    r[dst + 2] = r[c] - r[d + 2];
+                }
+                case SDFCompiler.OP_SCALE -> {
+                    float scale = r[d];
+                    r[dst] = r[a] / scale;
+                    r[dst + 1] = r[b] / scale;
+                    r[dst + 2] = r[c] / scale;
+                }
+                case SDFCompiler.OP_SCALE_3D -> {
+                    r[dst] = r[a] / r[d];
+                    r[dst + 1] = r[b] / r[d + 1];
+                    r[dst + 2] = r[c] / r[d + 2];
+                }
+                case SDFCompiler.OP_ROTATE -> {
+                    Vector3f pos = context.pos;
+                    pos.set(r[a], r[b], r[c]);
+                    pos.rotate((Quaternionf) references[d]);
+                    r[dst] = pos.x();
+                    r[dst + 1] = pos.y();
+                    r[dst + 2] = pos.z();
+                }
+                case SDFCompiler.OP_COPY_ROTATE -> {
+                    float px = r[a];
+                    float pz = r[c];
+                    r[dst] = (float) Math.atan2(px, pz);
+                    r[dst + 1] = r[b];
+                    r[dst + 2] = MHelper.length(px, pz);
+                }
+                case SDFCompiler.OP_COORD_MODIFY -> {
+                    @SuppressWarnings("unchecked")
+                    Consumer<Vector3f> function = (Consumer<Vector3f>) references[d];
+                    Vector3f pos = context.pos;
+                    pos.set(r[a], r[b], r[c]);
+                    function.accept(pos);
+                    r[dst] = pos.x();
+                    r[dst + 1] = pos.y();
+                    r[dst + 2] = pos.z();
+                }
+                default -> throw new IllegalStateException("Unknown SDF instruction " + code[pc]);
+            }
+        }
+
+        return r[result];
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        final Context context = this.context.get();
+        for (int i = 0; i < count; i++) {
+            out[i] = getDistance(x[i], y[i], z[i], context);
+        }
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        return getBlockState(pos, context.get());
+    }
+
+    public BlockState getBlockState(BlockPos pos, Context context) {
+        return getBlockState(getStateLeaf(context), pos);
+    }
+
+    /**
+     * Returns the node that provides the block state for the last position that was evaluated with the context.
+     * The result can be stored and resolved later with {@link #getBlockState(int, BlockPos)}.
+     *
+     * @return The index of the node
+     */
+    public int getStateLeaf(Context context) {
+        int node = stateRoot;
+        int slot = stateNodes[node * 3];
+        while (slot >= 0) {
+            node = context.selections[slot] ? stateNodes[node * 3 + 1] : stateNodes[node * 3 + 2];
+            slot = stateNodes[node * 3];
+        }
+        return stateNodes[node * 3 + 1];
+    }
+
+    /**
+     * Returns the block state of a node returned by {@link #getStateLeaf(Context)}. Nodes that are evaluated through
+     * {@link SDFCompiler#OP_CALL} may depend on their own last evaluation (see {@link #isCalledLeaf(int)}), their
+     * position has to be evaluated again before.
+     */
+    public BlockState getBlockState(int leaf, BlockPos pos) {
+        return stateLeaves[leaf].getBlockState(pos);
+    }
+
+    /**
+     * @return {@code true} if the node is a custom node that is evaluated through {@link SDFCompiler#OP_CALL}
+     */
+    public boolean isCalledLeaf(int leaf) {
+        return calledLeaves.get(leaf);
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        return source.getBoundingBox();
+    }
+
+    @Override
+    public boolean canIntersect(AABB region) {
+        return source.canIntersect(region);
+    }
+
+    @Override
+    public CompiledSDF compile() {
+        return this;
+    }
+
+    /**
+     * Scratch state of a single evaluating thread.
+     */
+    public static final class Context {
+        private final float[] registers;
+        private final boolean[] selections;
+        private final Vector3f pos = new Vector3f();
+
+        private Context(float[] constants, int selectionCount) {
+            this.registers = Arrays.copyOf(constants, constants.length);
+            this.selections = new boolean[selectionCount];
+        }
+    }
+}
@@ -18,6 +18,12 @@ public class PosInfo implements Comparable<PosInfo> {
         return new PosInfo(blocks, add, pos);
     }
 
+    PosInfo() {
+        this.blocks = null;
+        this.add = null;
+        this.pos = null;
+    }
+
     private PosInfo(Map<BlockPos, PosInfo> blocks, Map<BlockPos, PosInfo> add, BlockPos pos) {
         this.blocks = blocks;
         this.add = add;
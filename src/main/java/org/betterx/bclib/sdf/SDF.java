@@ -6,18 +6,25 @@ import org.betterx.bclib.util.BlocksHelper;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.BlockPos.MutableBlockPos;
 import net.minecraft.core.Direction;
+import net.minecraft.server.level.WorldGenRegion;
+import net.minecraft.util.Mth;
 import net.minecraft.world.level.ServerLevelAccessor;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.phys.AABB;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 
-import java.util.*;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 public abstract class SDF {
+    private static final int BRICK_SIZE = 8;
     private final List<Function<PosInfo, BlockState>> postProcesses = Lists.newArrayList();
     private Function<BlockState, Boolean> canReplace = (state) -> {
         return state.canBeReplaced();
@@ -27,6 +34,45 @@ public abstract class SDF {
 
     public abstract BlockState getBlockState(BlockPos pos);
 
+    /**
+     * Evaluates the distance for {@code count} positions at once. Implementations must produce exactly the values
+     * {@link #getDistance(float, float, float)} would return for each position, but they do not update the
+     * state that {@link #getBlockState(BlockPos)} depends on.
+     *
+     * @param batch Scratch storage for temporary values
+     * @param x     X coordinates
+     * @param y     Y coordinates
+     * @param z     Z coordinates
+     * @param out   Receives the distances
+     * @param count Number of positions to evaluate, at most {@link SDFBatch#capacity()}
+     */
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = getDistance(x[i], y[i], z[i]);
+        }
+    }
+
+    /**
+     * Returns a conservative box around all positions with a negative distance. Nodes are expected to behave like
+     * distance fields, a position outside the box is never filled.
+     *
+     * @return The bounds in local coordinates or {@code null} if the shape is unbounded or the bounds are unknown
+     */
+    public AABB getBoundingBox() {
+        return null;
+    }
+
+    /**
+     * Checks if any position in the region might have a negative distance. Unions override this to test their
+     * sources separately, so regions in the gap between two distant parts are rejected as well.
+     *
+     * @param region A region in local coordinates
+     * @return {@code false} if no position in the region can be filled
+     */
+    public boolean canIntersect(AABB region) {
+        return overlaps(getBoundingBox(), region);
+    }
+
     public SDF addPostProcess(Function<PosInfo, BlockState> postProcess) {
         this.postProcesses.add(postProcess);
         return this;
@@ -37,271 +83,429 @@ public abstract class SDF {
         return this;
     }
 
-    public void fillRecursive(ServerLevelAccessor world, BlockPos start) {
-        Map<BlockPos, PosInfo> mapWorld = Maps.newHashMap();
-        Map<BlockPos, PosInfo> addInfo = Maps.newHashMap();
-        Set<BlockPos> blocks = Sets.newHashSet();
-        Set<BlockPos> ends = Sets.newHashSet();
-        Set<BlockPos> add = Sets.newHashSet();
-        ends.add(new BlockPos(0, 0, 0));
-        boolean run = true;
+    /**
+     * Flattens this tree into a {@link CompiledSDF}. The compiled version produces the same distances and block
+     * states and does not allocate per sample. Post processes and the replace function are copied to the result.
+     * <p>
+     * The built-in nodes keep their intermediate values in a per-thread context, so a program that only consists of
+     * them can be shared between threads. Custom nodes (and subclasses of built-in nodes) are called through
+     * {@link SDFCompiler#OP_CALL} and are not covered by this, they are only thread-safe if the node itself is.
+     * <p>
+     * The tree is captured at the time of the call, later changes to the nodes are not reflected.
+     *
+     * @return The compiled SDF
+     */
+    public CompiledSDF compile() {
+        return SDFCompiler.compile(this);
+    }
 
-        MutableBlockPos bPos = new MutableBlockPos();
+    /**
+     * Emits the instructions for this node. The default implementation calls
+     * {@link #getDistance(float, float, float)} from the compiled program, so custom nodes keep working.
+     * <p>
+     * Built-in nodes only emit their own instructions if {@link #getClass()} is exactly the built-in class. A
+     * subclass may override {@link #getDistance(float, float, float)}, so it is called like a custom node.
+     *
+     * @param compiler The compiler to emit to
+     * @param x        Register that holds the x coordinate
+     * @param y        Register that holds the y coordinate
+     * @param z        Register that holds the z coordinate
+     * @return The register that holds the distance of this node
+     */
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        return compiler.call(this, x, y, z);
+    }
 
-        while (run) {
-            for (BlockPos center : ends) {
-                for (Direction dir : Direction.values()) {
-                    bPos.set(center).move(dir);
-                    BlockPos wpos = bPos.offset(start);
+    protected static AABB union(AABB a, AABB b) {
+        if (a == null || b == null) return null;
+        return a.minmax(b);
+    }
 
-                    if (!blocks.contains(bPos) && canReplace.apply(world.getBlockState(wpos))) {
-                        if (this.getDistance(bPos.getX(), bPos.getY(), bPos.getZ()) < 0) {
-                            BlockState state = getBlockState(wpos);
-                            PosInfo.create(mapWorld, addInfo, wpos).setState(state);
-                            add.add(bPos.immutable());
-                        }
-                    }
+    protected static AABB intersection(AABB a, AABB b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.intersect(b);
+    }
+
+    protected static AABB scale(AABB box, float x, float y, float z) {
+        return new AABB(box.minX * x, box.minY * y, box.minZ * z, box.maxX * x, box.maxY * y, box.maxZ * z);
+    }
+
+    protected static boolean overlaps(AABB bounds, AABB region) {
+        return bounds == null || (region.minX <= bounds.maxX && region.maxX >= bounds.minX
+                && region.minY <= bounds.maxY && region.maxY >= bounds.minY
+                && region.minZ <= bounds.maxZ && region.maxZ >= bounds.minZ);
+    }
+
+    private static boolean isInside(AABB bounds, BlockPos pos) {
+        return bounds == null || (pos.getX() >= bounds.minX && pos.getX() <= bounds.maxX
+                && pos.getY() >= bounds.minY && pos.getY() <= bounds.maxY
+                && pos.getZ() >= bounds.minZ && pos.getZ() <= bounds.maxZ);
+    }
+
+    void copySettings(SDF source) {
+        this.postProcesses.addAll(source.postProcesses);
+        this.canReplace = source.canReplace;
+    }
+
+    public void fillRecursive(ServerLevelAccessor world, BlockPos start) {
+        VoxelGrid grid = new VoxelGrid();
+        flood(grid, start, (local, wpos) -> {
+            if (canReplace.apply(world.getBlockState(wpos))) {
+                if (this.getDistance(local.getX(), local.getY(), local.getZ()) < 0) {
+                    return getBlockState(wpos);
                 }
             }
+            return null;
+        });
+        place(world, grid);
+    }
 
-            blocks.addAll(ends);
-            ends.clear();
-            ends.addAll(add);
-            add.clear();
+    public void fillArea(ServerLevelAccessor world, BlockPos center, AABB box) {
+        CompiledSDF compiled = compile();
+        VoxelGrid grid = new VoxelGrid();
+        List<Brick> bricks = getBricks(center, box);
+        evaluateBricks(compiled, center, bricks);
+        collectBricks(world, grid, center, bricks, compiled);
+        place(world, grid);
+    }
 
-            run &= !ends.isEmpty();
+    /**
+     * Same as {@link #fillArea(ServerLevelAccessor, BlockPos, AABB)}, but the distances of independent 8x8x8
+     * bricks are evaluated in parallel. This is opt-in API for large shapes, BCLib itself does not use it.
+     * <p>
+     * The bricks are split into {@code parallelism} consecutive runs. The calling thread evaluates the first run, the
+     * others are submitted to {@code executor} and use one evaluation context each. The calling thread waits for
+     * them, so the executor must not be the one the calling thread belongs to (for example the worldgen executor),
+     * and BCLib does not use the shared fork-join pool for this.
+     * <p>
+     * The tree is compiled first (see {@link #compile()}), so the built-in nodes are safe to use from multiple
+     * threads. Displacement and coordinate functions as well as custom nodes are called from worker threads and
+     * need to be thread-safe. Block states, replace checks and post processes still run on the calling thread.
+     * When placing into a {@link WorldGenRegion}, blocks are written to the chunks directly.
+     *
+     * @param executor    Runs the evaluation of all but the first run
+     * @param parallelism The number of runs, values below 2 evaluate everything on the calling thread
+     */
+    public void fillAreaParallel(
+            ServerLevelAccessor world,
+            BlockPos center,
+            AABB box,
+            Executor executor,
+            int parallelism
+    ) {
+        CompiledSDF compiled = compile();
+        VoxelGrid grid = new VoxelGrid();
+        List<Brick> bricks = getBricks(center, box);
+
+        final int runs = Mth.clamp(parallelism, 1, Math.max(1, bricks.size()));
+        final int runSize = Mth.positiveCeilDiv(bricks.size(), runs);
+        List<CompletableFuture<Void>> tasks = Lists.newArrayList();
+        for (int start = runSize; start < bricks.size(); start += runSize) {
+            final List<Brick> run = bricks.subList(start, Math.min(start + runSize, bricks.size()));
+            tasks.add(CompletableFuture.runAsync(() -> evaluateBricks(compiled, center, run), executor));
         }
+        evaluateBricks(compiled, center, bricks.subList(0, Math.min(runSize, bricks.size())));
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
 
-        List<PosInfo> infos = new ArrayList<PosInfo>(mapWorld.values());
-        if (infos.size() > 0) {
-            Collections.sort(infos);
-            postProcesses.forEach((postProcess) -> {
-                infos.forEach((info) -> {
-                    info.setState(postProcess.apply(info));
-                });
-            });
-            infos.forEach((info) -> {
-                BlocksHelper.setWithoutUpdate(world, info.getPos(), info.getState());
-            });
-
-            infos.clear();
-            infos.addAll(addInfo.values());
-            Collections.sort(infos);
-            postProcesses.forEach((postProcess) -> {
-                infos.forEach((info) -> {
-                    info.setState(postProcess.apply(info));
-                });
-            });
-            infos.forEach((info) -> {
-                if (canReplace.apply(world.getBlockState(info.getPos()))) {
-                    BlocksHelper.setWithoutUpdate(world, info.getPos(), info.getState());
-                }
-            });
+        collectBricks(world, grid, center, bricks, compiled);
+        place(world, grid);
+    }
+
+    private static void evaluateBricks(CompiledSDF compiled, BlockPos center, List<Brick> bricks) {
+        final CompiledSDF.Context context = compiled.createContext();
+        for (Brick brick : bricks) {
+            brick.evaluate(compiled, center, context);
         }
     }
 
-    public void fillArea(ServerLevelAccessor world, BlockPos center, AABB box) {
-        Map<BlockPos, PosInfo> mapWorld = Maps.newHashMap();
-        Map<BlockPos, PosInfo> addInfo = Maps.newHashMap();
+    private List<Brick> getBricks(BlockPos center, AABB box) {
+        final int minX = (int) box.minX;
+        final int minY = (int) box.minY;
+        final int minZ = (int) box.minZ;
+        final int maxX = Mth.floor(box.maxX);
+        final int maxY = Mth.floor(box.maxY);
+        final int maxZ = Mth.floor(box.maxZ);
+
+        List<Brick> bricks = Lists.newArrayList();
+        for (int brickY = minY; brickY <= maxY; brickY += BRICK_SIZE) {
+            final int endY = Math.min(brickY + BRICK_SIZE - 1, maxY);
+            for (int brickX = minX; brickX <= maxX; brickX += BRICK_SIZE) {
+                final int endX = Math.min(brickX + BRICK_SIZE - 1, maxX);
+                for (int brickZ = minZ; brickZ <= maxZ; brickZ += BRICK_SIZE) {
+                    final int endZ = Math.min(brickZ + BRICK_SIZE - 1, maxZ);
+                    AABB region = new AABB(brickX, brickY, brickZ, endX, endY, endZ).move(
+                            -center.getX(),
+                            -center.getY(),
+                            -center.getZ()
+                    );
+                    if (canIntersect(region)) {
+                        bricks.add(new Brick(brickX, brickY, brickZ, endX, endY, endZ));
+                    }
+                }
+            }
+        }
+        return bricks;
+    }
 
+    private void collectBricks(
+            ServerLevelAccessor world,
+            VoxelGrid grid,
+            BlockPos center,
+            List<Brick> bricks,
+            CompiledSDF compiled
+    ) {
+        CompiledSDF.Context context = null;
         MutableBlockPos mut = new MutableBlockPos();
-        for (int y = (int) box.minY; y <= box.maxY; y++) {
-            mut.setY(y);
-            for (int x = (int) box.minX; x <= box.maxX; x++) {
-                mut.setX(x);
-                for (int z = (int) box.minZ; z <= box.maxZ; z++) {
-                    mut.setZ(z);
-                    if (canReplace.apply(world.getBlockState(mut))) {
-                        BlockPos fpos = mut.subtract(center);
-                        if (this.getDistance(fpos.getX(), fpos.getY(), fpos.getZ()) < 0) {
-                            PosInfo.create(mapWorld, addInfo, mut.immutable()).setState(getBlockState(mut));
+        for (Brick brick : bricks) {
+            if (brick.solid == null) {
+                continue;
+            }
+            for (int y = brick.minY; y <= brick.maxY; y++) {
+                for (int x = brick.minX; x <= brick.maxX; x++) {
+                    for (int z = brick.minZ; z <= brick.maxZ; z++) {
+                        if (!brick.isSolid(x, y, z)) {
+                            continue;
+                        }
+                        mut.set(x, y, z);
+                        if (!canReplace.apply(world.getBlockState(mut))) {
+                            continue;
+                        }
+                        final int leaf = brick.getStateLeaf(x, y, z);
+                        if (compiled.isCalledLeaf(leaf)) {
+                            //custom nodes may keep the state of their last evaluation
+                            if (context == null) context = compiled.createContext();
+                            compiled.getDistance(x - center.getX(), y - center.getY(), z - center.getZ(), context);
+                            grid.put(VoxelGrid.LAYER_FILLED, x, y, z, compiled.getBlockState(mut, context));
+                        } else {
+                            grid.put(VoxelGrid.LAYER_FILLED, x, y, z, compiled.getBlockState(leaf, mut));
                         }
                     }
                 }
             }
         }
+    }
 
-        List<PosInfo> infos = new ArrayList<PosInfo>(mapWorld.values());
-        if (infos.size() > 0) {
-            Collections.sort(infos);
-            postProcesses.forEach((postProcess) -> {
-                infos.forEach((info) -> {
-                    info.setState(postProcess.apply(info));
-                });
-            });
-            infos.forEach((info) -> {
-                BlocksHelper.setWithoutUpdate(world, info.getPos(), info.getState());
-            });
-
-            infos.clear();
-            infos.addAll(addInfo.values());
-            Collections.sort(infos);
-            postProcesses.forEach((postProcess) -> {
-                infos.forEach((info) -> {
-                    info.setState(postProcess.apply(info));
-                });
-            });
-            infos.forEach((info) -> {
-                if (canReplace.apply(world.getBlockState(info.getPos()))) {
-                    BlocksHelper.setWithoutUpdate(world, info.getPos(), info.getState());
-                }
-            });
+    private static final class Brick {
+        final int minX;
+        final int minY;
+        final int minZ;
+        final int maxX;
+        final int maxY;
+        final int maxZ;
+        long[] solid;
+        //the node that provides the block state of each solid position
+        int[] stateLeaves;
+
+        Brick(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
         }
-    }
 
-    public void fillRecursiveIgnore(ServerLevelAccessor world, BlockPos start, Function<BlockState, Boolean> ignore) {
-        Map<BlockPos, PosInfo> mapWorld = Maps.newHashMap();
-        Map<BlockPos, PosInfo> addInfo = Maps.newHashMap();
-        Set<BlockPos> blocks = Sets.newHashSet();
-        Set<BlockPos> ends = Sets.newHashSet();
-        Set<BlockPos> add = Sets.newHashSet();
-        ends.add(new BlockPos(0, 0, 0));
-        boolean run = true;
+        private int index(int x, int y, int z) {
+            return ((y - minY) * BRICK_SIZE + (x - minX)) * BRICK_SIZE + (z - minZ);
+        }
 
-        MutableBlockPos bPos = new MutableBlockPos();
+        boolean isSolid(int x, int y, int z) {
+            int index = index(x, y, z);
+            return (solid[index >> 6] & (1L << index)) != 0;
+        }
 
-        while (run) {
-            for (BlockPos center : ends) {
-                for (Direction dir : Direction.values()) {
-                    bPos.set(center).move(dir);
-                    BlockPos wpos = bPos.offset(start);
-                    BlockState state = world.getBlockState(wpos);
-                    boolean ign = ignore.apply(state);
-                    if (!blocks.contains(bPos) && (ign || canReplace.apply(state))) {
-                        if (this.getDistance(bPos.getX(), bPos.getY(), bPos.getZ()) < 0) {
-                            PosInfo.create(mapWorld, addInfo, wpos).setState(ign ? state : getBlockState(bPos));
-                            add.add(bPos.immutable());
+        int getStateLeaf(int x, int y, int z) {
+            return stateLeaves[index(x, y, z)];
+        }
+
+        void evaluate(CompiledSDF sdf, BlockPos center, CompiledSDF.Context context) {
+            for (int y = minY; y <= maxY; y++) {
+                final float fy = y - center.getY();
+                for (int x = minX; x <= maxX; x++) {
+                    final float fx = x - center.getX();
+                    for (int z = minZ; z <= maxZ; z++) {
+                        if (sdf.getDistance(fx, fy, z - center.getZ(), context) < 0) {
+                            if (solid == null) {
+                                solid = new long[BRICK_SIZE * BRICK_SIZE * BRICK_SIZE >> 6];
+                                stateLeaves = new int[BRICK_SIZE * BRICK_SIZE * BRICK_SIZE];
+                            }
+                            int index = index(x, y, z);
+                            solid[index >> 6] |= 1L << index;
+                            stateLeaves[index] = sdf.getStateLeaf(context);
                         }
                     }
                 }
             }
+        }
+    }
 
-            blocks.addAll(ends);
-            ends.clear();
-            ends.addAll(add);
-            add.clear();
+    public void fillRecursiveIgnore(ServerLevelAccessor world, BlockPos start, Function<BlockState, Boolean> ignore) {
+        VoxelGrid grid = new VoxelGrid();
+        flood(grid, start, (local, wpos) -> {
+            BlockState state = world.getBlockState(wpos);
+            boolean ign = ignore.apply(state);
+            if (ign || canReplace.apply(state)) {
+                if (this.getDistance(local.getX(), local.getY(), local.getZ()) < 0) {
+                    return ign ? state : getBlockState(local);
+                }
+            }
+            return null;
+        });
+        place(world, grid);
+    }
+
+    public void fillRecursive(StructureWorld world, BlockPos start) {
+        VoxelGrid grid = new VoxelGrid();
+        flood(grid, start, (local, wpos) -> {
+            if (this.getDistance(local.getX(), local.getY(), local.getZ()) < 0) {
+                return getBlockState(wpos);
+            }
+            return null;
+        });
 
-            run &= !ends.isEmpty();
+        MutableBlockPos pos = new MutableBlockPos();
+        LongArrayList filled = grid.positions(VoxelGrid.LAYER_FILLED);
+        applyPostProcesses(grid, filled);
+        for (int i = 0; i < filled.size(); i++) {
+            pos.set(filled.getLong(i));
+            world.setBlock(pos, grid.get(pos.getX(), pos.getY(), pos.getZ()));
         }
 
-        List<PosInfo> infos = new ArrayList<PosInfo>(mapWorld.values());
-        if (infos.size() > 0) {
-            Collections.sort(infos);
-            postProcesses.forEach((postProcess) -> {
-                infos.forEach((info) -> {
-                    info.setState(postProcess.apply(info));
-                });
-            });
-            infos.forEach((info) -> {
-                BlocksHelper.setWithoutUpdate(world, info.getPos(), info.getState());
-            });
-
-            infos.clear();
-            infos.addAll(addInfo.values());
-            Collections.sort(infos);
-            postProcesses.forEach((postProcess) -> {
-                infos.forEach((info) -> {
-                    info.setState(postProcess.apply(info));
-                });
-            });
-            infos.forEach((info) -> {
-                if (canReplace.apply(world.getBlockState(info.getPos()))) {
-                    BlocksHelper.setWithoutUpdate(world, info.getPos(), info.getState());
+        LongArrayList added = grid.positions(VoxelGrid.LAYER_ADDED);
+        applyPostProcesses(grid, added);
+        for (int i = 0; i < added.size(); i++) {
+            pos.set(added.getLong(i));
+            world.setBlock(pos, grid.get(pos.getX(), pos.getY(), pos.getZ()));
+        }
+    }
+
+    public Set<BlockPos> getPositions(ServerLevelAccessor world, BlockPos start) {
+        VoxelGrid grid = new VoxelGrid();
+        flood(grid, start, (local, wpos) -> {
+            if (canReplace.apply(world.getBlockState(wpos))) {
+                if (this.getDistance(local.getX(), local.getY(), local.getZ()) < 0) {
+                    return world.getBlockState(wpos);
                 }
-            });
+            }
+            return null;
+        });
+
+        LongArrayList filled = grid.positions(VoxelGrid.LAYER_FILLED);
+        Set<BlockPos> blocks = Sets.newHashSetWithExpectedSize(filled.size() + 1);
+        blocks.add(start);
+        for (int i = 0; i < filled.size(); i++) {
+            blocks.add(BlockPos.of(filled.getLong(i)));
         }
+        return blocks;
     }
 
-    public void fillRecursive(StructureWorld world, BlockPos start) {
-        Map<BlockPos, PosInfo> mapWorld = Maps.newHashMap();
-        Map<BlockPos, PosInfo> addInfo = Maps.newHashMap();
-        Set<BlockPos> blocks = Sets.newHashSet();
-        Set<BlockPos> ends = Sets.newHashSet();
-        Set<BlockPos> add = Sets.newHashSet();
-        ends.add(new BlockPos(0, 0, 0));
-        boolean run = true;
+    @FunctionalInterface
+    private interface Probe {
+        /**
+         * @return the state for a position that should be filled or {@code null}
+         */
+        BlockState apply(BlockPos local, BlockPos world);
+    }
+
+    /**
+     * Flood fills the grid from the start position. Every position is probed at most once, the start position
+     * itself is never filled.
+     */
+    private void flood(VoxelGrid grid, BlockPos start, Probe probe) {
+        final AABB bounds = getBoundingBox();
+        LongArrayList ends = new LongArrayList();
+        LongArrayList add = new LongArrayList();
+        ends.add(BlockPos.asLong(0, 0, 0));
+        grid.visit(start.getX(), start.getY(), start.getZ());
 
         MutableBlockPos bPos = new MutableBlockPos();
+        MutableBlockPos wpos = new MutableBlockPos();
 
-        while (run) {
-            for (BlockPos center : ends) {
-                for (Direction dir : Direction.values()) {
+        while (!ends.isEmpty()) {
+            for (int i = 0; i < ends.size(); i++) {
+                long center = ends.getLong(i);
+                for (Direction dir : BlocksHelper.DIRECTIONS) {
                     bPos.set(center).move(dir);
-                    BlockPos wpos = bPos.offset(start);
+                    if (!isInside(bounds, bPos)) {
+                        continue;
+                    }
+                    wpos.setWithOffset(bPos, start);
+                    if (!grid.visit(wpos.getX(), wpos.getY(), wpos.getZ())) {
+                        continue;
+                    }
 
-                    if (!blocks.contains(bPos)) {
-                        if (this.getDistance(bPos.getX(), bPos.getY(), bPos.getZ()) < 0) {
-                            BlockState state = getBlockState(wpos);
-                            PosInfo.create(mapWorld, addInfo, wpos).setState(state);
-                            add.add(bPos.immutable());
-                        }
+                    BlockState state = probe.apply(bPos, wpos);
+                    if (state != null) {
+                        grid.put(VoxelGrid.LAYER_FILLED, wpos.getX(), wpos.getY(), wpos.getZ(), state);
+                        add.add(bPos.asLong());
                     }
                 }
             }
 
-            blocks.addAll(ends);
-            ends.clear();
-            ends.addAll(add);
+            LongArrayList swap = ends;
+            ends = add;
+            add = swap;
             add.clear();
-
-            run &= !ends.isEmpty();
         }
+    }
 
-        List<PosInfo> infos = new ArrayList<PosInfo>(mapWorld.values());
-        Collections.sort(infos);
-        postProcesses.forEach((postProcess) -> {
-            infos.forEach((info) -> {
-                info.setState(postProcess.apply(info));
-            });
-        });
-        infos.forEach((info) -> {
-            world.setBlock(info.getPos(), info.getState());
-        });
-
-        infos.clear();
-        infos.addAll(addInfo.values());
-        Collections.sort(infos);
+    private void applyPostProcesses(VoxelGrid grid, LongArrayList positions) {
+        if (postProcesses.isEmpty()) {
+            return;
+        }
+        VoxelGrid.Cursor info = grid.new Cursor();
         postProcesses.forEach((postProcess) -> {
-            infos.forEach((info) -> {
+            for (int i = 0; i < positions.size(); i++) {
+                info.moveTo(positions.getLong(i));
                 info.setState(postProcess.apply(info));
-            });
-        });
-        infos.forEach((info) -> {
-            world.setBlock(info.getPos(), info.getState());
+            }
         });
     }
 
-    public Set<BlockPos> getPositions(ServerLevelAccessor world, BlockPos start) {
-        Set<BlockPos> blocks = Sets.newHashSet();
-        Set<BlockPos> ends = Sets.newHashSet();
-        Set<BlockPos> add = Sets.newHashSet();
-        ends.add(new BlockPos(0, 0, 0));
-        boolean run = true;
+    private void place(ServerLevelAccessor world, VoxelGrid grid) {
+        LongArrayList filled = grid.positions(VoxelGrid.LAYER_FILLED);
+        if (filled.isEmpty()) {
+            return;
+        }
 
-        MutableBlockPos bPos = new MutableBlockPos();
+        applyPostProcesses(grid, filled);
+        placeAll(world, grid, VoxelGrid.LAYER_FILLED, false);
 
-        while (run) {
-            for (BlockPos center : ends) {
-                for (Direction dir : Direction.values()) {
-                    bPos.set(center).move(dir);
-                    BlockPos wpos = bPos.offset(start);
-                    BlockState state = world.getBlockState(wpos);
-                    if (!blocks.contains(wpos) && canReplace.apply(state)) {
-                        if (this.getDistance(bPos.getX(), bPos.getY(), bPos.getZ()) < 0) {
-                            add.add(bPos.immutable());
-                        }
-                    }
+        applyPostProcesses(grid, grid.positions(VoxelGrid.LAYER_ADDED));
+        placeAll(world, grid, VoxelGrid.LAYER_ADDED, true);
+    }
+
+    private void placeAll(ServerLevelAccessor world, VoxelGrid grid, int layer, boolean checkReplace) {
+        //positions are grouped by section, so the chunk only needs to be looked up when a new section starts
+        LongArrayList positions = grid.positionsBySection(layer);
+        WorldGenRegion region = world instanceof WorldGenRegion r ? r : null;
+        MutableBlockPos pos = new MutableBlockPos();
+        ChunkAccess chunk = null;
+        int chunkX = Integer.MIN_VALUE;
+        int chunkZ = Integer.MIN_VALUE;
+
+        for (int i = 0; i < positions.size(); i++) {
+            pos.set(positions.getLong(i));
+            BlockState state = grid.get(pos.getX(), pos.getY(), pos.getZ());
+            if (region == null) {
+                if (!checkReplace || canReplace.apply(world.getBlockState(pos))) {
+                    BlocksHelper.setWithoutUpdate(world, pos, state);
                 }
+                continue;
             }
 
-            ends.forEach((end) -> blocks.add(end.offset(start)));
-            ends.clear();
-            ends.addAll(add);
-            add.clear();
-
-            run &= !ends.isEmpty();
+            if (!region.ensureCanWrite(pos)) {
+                continue;
+            }
+            if (chunk == null || chunkX != pos.getX() >> 4 || chunkZ != pos.getZ() >> 4) {
+                chunkX = pos.getX() >> 4;
+                chunkZ = pos.getZ() >> 4;
+                chunk = region.getChunk(chunkX, chunkZ);
+            }
+            if (!checkReplace || canReplace.apply(chunk.getBlockState(pos))) {
+                BlocksHelper.setWithoutUpdate(region, chunk, pos, state);
+            }
         }
-
-        return blocks;
     }
 }
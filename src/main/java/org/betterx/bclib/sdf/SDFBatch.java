@@ -0,0 +1,72 @@
+package org.betterx.bclib.sdf;
+
+import com.google.common.collect.Lists;
+import org.joml.Vector3f;
+
+import java.util.List;
+
+/**
+ * Scratch storage for {@link SDF#getDistances(SDFBatch, float[], float[], float[], float[], int)}.
+ * <p>
+ * A batch owns the coordinate arrays that are passed to the root node and a stack of temporary arrays that
+ * operators use for their intermediate values. All arrays have the same {@link #capacity()}. A batch is not
+ * thread-safe, every thread should use its own instance.
+ */
+public final class SDFBatch {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final int capacity;
+    private final List<float[]> pool = Lists.newArrayList();
+    private int used;
+
+    public final float[] x;
+    public final float[] y;
+    public final float[] z;
+    public final float[] distances;
+    /**
+     * Scratch vector for operators that transform one position at a time. It must not be held across a call to
+     * another node.
+     */
+    public final Vector3f pos = new Vector3f();
+
+    public SDFBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SDFBatch(int capacity) {
+        this.capacity = capacity;
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.z = new float[capacity];
+        this.distances = new float[capacity];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Evaluates the first {@code count} entries of the coordinate arrays into {@link #distances}.
+     */
+    public float[] evaluate(SDF sdf, int count) {
+        sdf.getDistances(this, x, y, z, distances, count);
+        return distances;
+    }
+
+    /**
+     * Returns a temporary array. Arrays must be handed back with {@link #release(float[])} in reverse order.
+     */
+    public float[] acquire() {
+        if (used == pool.size()) {
+            pool.add(new float[capacity]);
+        }
+        return pool.get(used++);
+    }
+
+    public void release(float[] array) {
+        if (used == 0 || pool.get(used - 1) != array) {
+            throw new IllegalStateException("SDF batch arrays must be released in reverse order");
+        }
+        used--;
+    }
+}
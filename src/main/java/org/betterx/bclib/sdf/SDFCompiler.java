@@ -0,0 +1,225 @@
+package org.betterx.bclib.sdf;
+
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Flattens an {@link SDF} tree into a linear register program that is evaluated by {@link CompiledSDF}.
+ * <p>
+ * Every node emits its instructions through {@link SDF#compile(SDFCompiler, int, int, int)}. The arguments are
+ * register indices that hold the coordinates of the node, the returned value is the register that will hold the
+ * distance. Nodes that do not override the method are emitted as a plain call to their
+ * {@link SDF#getDistance(float, float, float)}.
+ */
+public final class SDFCompiler {
+    static final int STRIDE = 7;
+
+    public static final int OP_CALL = 0;
+
+    public static final int OP_SPHERE = 1;
+    public static final int OP_CAPSULE = 2;
+    public static final int OP_TORUS = 3;
+    public static final int OP_LINE = 4;
+    public static final int OP_PIE = 5;
+    public static final int OP_HEX_PRISM = 6;
+    public static final int OP_CAPPED_CONE = 7;
+    public static final int OP_FLATLAND = 8;
+
+    public static final int OP_UNION = 16;
+    public static final int OP_INTERSECTION = 17;
+    public static final int OP_SUBTRACTION = 18;
+    public static final int OP_SMOOTH_UNION = 19;
+    public static final int OP_SMOOTH_INTERSECTION = 20;
+    public static final int OP_SMOOTH_SUBTRACTION = 21;
+
+    public static final int OP_SUB_CONST = 32;
+    public static final int OP_MUL_CONST = 33;
+    public static final int OP_NEGATE = 34;
+    public static final int OP_DISPLACE = 35;
+
+    public static final int OP_TRANSLATE = 48;
+    public static final int OP_SCALE = 49;
+    public static final int OP_SCALE_3D = 50;
+    public static final int OP_ROTATE = 51;
+    public static final int OP_COPY_ROTATE = 52;
+    public static final int OP_COORD_MODIFY = 53;
+
+    private int[] code = new int[STRIDE * 16];
+    private int codeSize;
+    private float[] constants = new float[16];
+    private int registerCount = 3;
+    private int selectionCount;
+    private final List<Object> references = Lists.newArrayList();
+
+    private final List<SDF> stateLeaves = Lists.newArrayList();
+    //leaves that are evaluated through OP_CALL
+    private final BitSet calledLeaves = new BitSet();
+    private int[] stateNodes = new int[16 * 3];
+    private int stateCount;
+    private int stateNode = -1;
+
+    private SDFCompiler() {
+    }
+
+    static CompiledSDF compile(SDF root) {
+        SDFCompiler compiler = new SDFCompiler();
+        int result = compiler.compile(root, 0, 1, 2);
+        return new CompiledSDF(
+                root,
+                Arrays.copyOf(compiler.code, compiler.codeSize),
+                Arrays.copyOf(compiler.constants, compiler.registerCount),
+                compiler.references.toArray(),
+                compiler.selectionCount,
+                result,
+                Arrays.copyOf(compiler.stateNodes, compiler.stateCount * 3),
+                compiler.stateLeaves.toArray(new SDF[0]),
+                compiler.calledLeaves,
+                compiler.stateNode
+        );
+    }
+
+    /**
+     * Compiles a child node with the given coordinate registers.
+     *
+     * @return the register that holds the distance of the child
+     */
+    public int compile(SDF node, int x, int y, int z) {
+        return node.compile(this, x, y, z);
+    }
+
+    /**
+     * Emits a call to {@link SDF#getDistance(float, float, float)} of the node. The node will also provide the
+     * block states for all positions it is selected for.
+     */
+    public int call(SDF node, int x, int y, int z) {
+        int dst = allocate(1);
+        emit(OP_CALL, dst, x, y, z, reference(node), 0);
+        stateNode = leaf(node);
+        calledLeaves.set(stateLeaves.size() - 1);
+        return dst;
+    }
+
+    /**
+     * Emits a primitive shape. The constants are stored in consecutive registers in the given order.
+     */
+    public int primitive(SDF node, int op, int x, int y, int z, float... constants) {
+        int dst = allocate(1);
+        emit(op, dst, x, y, z, constants(constants), 0);
+        stateNode = leaf(node);
+        return dst;
+    }
+
+    /**
+     * Compiles both sources with the same coordinates and combines them. The block state is taken from the
+     * source that was selected by the last evaluation, the same way {@code SDFBinary} does it.
+     */
+    public int binary(int op, SDF sourceA, SDF sourceB, int x, int y, int z, float... constants) {
+        int a = compile(sourceA, x, y, z);
+        int stateA = stateNode;
+        int b = compile(sourceB, x, y, z);
+        int stateB = stateNode;
+        int slot = selectionCount++;
+        int dst = allocate(1);
+        emit(op, dst, a, b, slot, constants(constants), 0);
+        stateNode = choice(slot, stateA, stateB);
+        return dst;
+    }
+
+    /**
+     * Emits an operation on a single distance register.
+     */
+    public int unary(int op, int source, float... constants) {
+        int dst = allocate(1);
+        emit(op, dst, source, constants(constants), 0, 0, 0);
+        return dst;
+    }
+
+    /**
+     * Emits a displacement of the source distance by a function of the coordinates.
+     */
+    public int displace(int source, Object function, int x, int y, int z) {
+        int dst = allocate(1);
+        emit(OP_DISPLACE, dst, source, x, y, z, reference(function));
+        return dst;
+    }
+
+    /**
+     * Emits a coordinate transformation. The result is stored in three consecutive registers (x, y and z).
+     *
+     * @return the register of the transformed x coordinate
+     */
+    public int coords(int op, int x, int y, int z, float... constants) {
+        int dst = allocate(3);
+        emit(op, dst, x, y, z, constants(constants), 0);
+        return dst;
+    }
+
+    /**
+     * Emits a coordinate transformation that is driven by an object (a rotation or a function).
+     *
+     * @return the register of the transformed x coordinate
+     */
+    public int coords(int op, Object parameter, int x, int y, int z) {
+        int dst = allocate(3);
+        emit(op, dst, x, y, z, reference(parameter), 0);
+        return dst;
+    }
+
+    private int allocate(int count) {
+        int index = registerCount;
+        registerCount += count;
+        if (registerCount > constants.length) {
+            constants = Arrays.copyOf(constants, Math.max(registerCount, constants.length << 1));
+        }
+        return index;
+    }
+
+    private int constants(float[] values) {
+        if (values.length == 0) return 0;
+        int index = allocate(values.length);
+        System.arraycopy(values, 0, constants, index, values.length);
+        return index;
+    }
+
+    private int reference(Object value) {
+        references.add(value);
+        return references.size() - 1;
+    }
+
+    private void emit(int op, int dst, int a, int b, int c, int d, int e) {
+        if (codeSize + STRIDE > code.length) {
+            code = Arrays.copyOf(code, code.length << 1);
+        }
+        code[codeSize] = op;
+        code[codeSize + 1] = dst;
+        code[codeSize + 2] = a;
+        code[codeSize + 3] = b;
+        code[codeSize + 4] = c;
+        code[codeSize + 5] = d;
+        code[codeSize + 6] = e;
+        codeSize += STRIDE;
+    }
+
+    private int leaf(SDF node) {
+        stateLeaves.add(node);
+        return state(-1, stateLeaves.size() - 1, 0);
+    }
+
+    private int choice(int slot, int stateA, int stateB) {
+        return state(slot, stateA, stateB);
+    }
+
+    private int state(int slot, int a, int b) {
+        if ((stateCount + 1) * 3 > stateNodes.length) {
+            stateNodes = Arrays.copyOf(stateNodes, stateNodes.length << 1);
+        }
+        int index = stateCount * 3;
+        stateNodes[index] = slot;
+        stateNodes[index + 1] = a;
+        stateNodes[index + 2] = b;
+        return stateCount++;
+    }
+}
@@ -0,0 +1,310 @@
+package org.betterx.bclib.sdf;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+
+import com.google.common.collect.Lists;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sparse voxel storage used by the fill methods of {@link SDF}.
+ * <p>
+ * Blocks are stored in 16x16x16 sections as palette indices, flags are kept in bit sets. This replaces the
+ * {@code Map<BlockPos, PosInfo>} pairs and frontier sets, so a fill only allocates per section and not per block.
+ * Post processes still see a {@link PosInfo}, a single {@link Cursor} is moved over all positions.
+ */
+final class VoxelGrid {
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+    private static final int SECTION_VOLUME = 16 * 16 * 16;
+    private static final int BITSET_LENGTH = SECTION_VOLUME >> 6;
+
+    /**
+     * Positions that were found by the fill itself and are placed unconditionally.
+     */
+    static final int LAYER_FILLED = 0;
+
+    /**
+     * Positions that were added by post processes through {@link PosInfo#setBlockPos(BlockPos, BlockState)}.
+     */
+    static final int LAYER_ADDED = 1;
+
+    private final Long2ObjectOpenHashMap<Section> sections = new Long2ObjectOpenHashMap<>();
+    private final List<BlockState> palette = Lists.newArrayList();
+    private final Reference2IntOpenHashMap<BlockState> paletteIndex = new Reference2IntOpenHashMap<>();
+    private Section lastSection;
+    private long lastKey = Long.MIN_VALUE;
+
+    VoxelGrid() {
+        palette.add(null);
+        paletteIndex.defaultReturnValue(-1);
+    }
+
+    private Section getSection(int x, int y, int z, boolean create) {
+        long key = SectionPos.asLong(x >> 4, y >> 4, z >> 4);
+        if (key == lastKey) {
+            return lastSection;
+        }
+
+        Section section = sections.get(key);
+        if (section == null) {
+            if (!create) {
+                return null;
+            }
+            section = new Section(y >> 4);
+            sections.put(key, section);
+        }
+
+        lastKey = key;
+        lastSection = section;
+        return section;
+    }
+
+    private static int index(int x, int y, int z) {
+        return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+    }
+
+    private int stateIndex(BlockState state) {
+        if (state == null) {
+            return 0;
+        }
+        int index = paletteIndex.getInt(state);
+        if (index < 0) {
+            index = palette.size();
+            if (index > 0xFFFF) {
+                throw new IllegalStateException("Too many different block states in one SDF fill");
+            }
+            palette.add(state);
+            paletteIndex.put(state, index);
+        }
+        return index;
+    }
+
+    /**
+     * Marks a position as probed.
+     *
+     * @return {@code false} if the position was probed before
+     */
+    boolean visit(int x, int y, int z) {
+        Section section = getSection(x, y, z, true);
+        return section.set(section.visited, index(x, y, z));
+    }
+
+    /**
+     * @return the stored state or {@code null} if there is no block at the position
+     */
+    BlockState get(int x, int y, int z) {
+        Section section = getSection(x, y, z, false);
+        if (section == null) {
+            return null;
+        }
+        return palette.get(section.states[index(x, y, z)] & 0xFFFF);
+    }
+
+    /**
+     * Changes the state of an existing block, positions without a block are ignored.
+     */
+    void update(int x, int y, int z, BlockState state) {
+        Section section = getSection(x, y, z, false);
+        if (section == null) {
+            return;
+        }
+        int index = index(x, y, z);
+        if (section.states[index] != 0) {
+            section.states[index] = (short) stateIndex(state);
+        }
+    }
+
+    /**
+     * Stores a block and adds it to the layer.
+     */
+    void put(int layer, int x, int y, int z, BlockState state) {
+        Section section = getSection(x, y, z, true);
+        int index = index(x, y, z);
+        section.states[index] = (short) stateIndex(state);
+        section.set(layer == LAYER_FILLED ? section.filled : section.added, index);
+    }
+
+    /**
+     * Collects all positions of a layer, sorted by their y coordinate.
+     *
+     * @return packed positions (see {@link BlockPos#asLong(int, int, int)})
+     */
+    LongArrayList positions(int layer) {
+        LongArrayList result = new LongArrayList();
+        List<Long2ObjectMap.Entry<Section>> entries = Lists.newArrayList(sections.long2ObjectEntrySet());
+        entries.sort(Comparator.comparingInt(entry -> entry.getValue().sectionY));
+
+        int start = 0;
+        while (start < entries.size()) {
+            int sectionY = entries.get(start).getValue().sectionY;
+            int end = start;
+            while (end < entries.size() && entries.get(end).getValue().sectionY == sectionY) {
+                end++;
+            }
+
+            for (int y = 0; y < 16; y++) {
+                for (int i = start; i < end; i++) {
+                    long key = entries.get(i).getLongKey();
+                    Section section = entries.get(i).getValue();
+                    long[] bits = layer == LAYER_FILLED ? section.filled : section.added;
+                    int baseX = SectionPos.x(key) << 4;
+                    int baseY = sectionY << 4;
+                    int baseZ = SectionPos.z(key) << 4;
+                    for (int index = y << 8; index < (y + 1) << 8; index++) {
+                        if ((bits[index >> 6] & (1L << index)) != 0) {
+                            result.add(BlockPos.asLong(
+                                    baseX | (index & 15),
+                                    baseY | (index >> 8),
+                                    baseZ | ((index >> 4) & 15)
+                            ));
+                        }
+                    }
+                }
+            }
+            start = end;
+        }
+        return result;
+    }
+
+    /**
+     * Collects all positions of a layer, grouped by their section.
+     *
+     * @return packed positions (see {@link BlockPos#asLong(int, int, int)})
+     */
+    LongArrayList positionsBySection(int layer) {
+        LongArrayList result = new LongArrayList();
+        sections.long2ObjectEntrySet().forEach(entry -> {
+            long key = entry.getLongKey();
+            Section section = entry.getValue();
+            long[] bits = layer == LAYER_FILLED ? section.filled : section.added;
+            int baseX = SectionPos.x(key) << 4;
+            int baseY = section.sectionY << 4;
+            int baseZ = SectionPos.z(key) << 4;
+            for (int index = 0; index < SECTION_VOLUME; index++) {
+                if ((bits[index >> 6] & (1L << index)) != 0) {
+                    result.add(BlockPos.asLong(
+                            baseX | (index & 15),
+                            baseY | (index >> 8),
+                            baseZ | ((index >> 4) & 15)
+                    ));
+                }
+            }
+        });
+        return result;
+    }
+
+    private static final class Section {
+        final int sectionY;
+        final short[] states = new short[SECTION_VOLUME];
+        final long[] visited = new long[BITSET_LENGTH];
+        final long[] filled = new long[BITSET_LENGTH];
+        final long[] added = new long[BITSET_LENGTH];
+
+        Section(int sectionY) {
+            this.sectionY = sectionY;
+        }
+
+        boolean set(long[] bits, int index) {
+            long mask = 1L << index;
+            long old = bits[index >> 6];
+            bits[index >> 6] = old | mask;
+            return (old & mask) == 0;
+        }
+    }
+
+    /**
+     * A {@link PosInfo} view of one position in the grid. The cursor is reused for all positions.
+     */
+    final class Cursor extends PosInfo {
+        private int x;
+        private int y;
+        private int z;
+        private BlockPos pos;
+
+        void moveTo(long packed) {
+            this.x = BlockPos.getX(packed);
+            this.y = BlockPos.getY(packed);
+            this.z = BlockPos.getZ(packed);
+            this.pos = null;
+        }
+
+        private BlockState getOrAir(int x, int y, int z) {
+            BlockState state = get(x, y, z);
+            return state == null ? AIR : state;
+        }
+
+        @Override
+        public BlockState getState() {
+            return get(x, y, z);
+        }
+
+        @Override
+        public BlockState getState(BlockPos pos) {
+            return getOrAir(pos.getX(), pos.getY(), pos.getZ());
+        }
+
+        @Override
+        public void setState(BlockState state) {
+            update(x, y, z, state);
+        }
+
+        @Override
+        public void setState(BlockPos pos, BlockState state) {
+            update(pos.getX(), pos.getY(), pos.getZ(), state);
+        }
+
+        @Override
+        public BlockState getState(Direction dir) {
+            return getOrAir(x + dir.getStepX(), y + dir.getStepY(), z + dir.getStepZ());
+        }
+
+        @Override
+        public BlockState getState(Direction dir, int distance) {
+            return getOrAir(
+                    x + dir.getStepX() * distance,
+                    y + dir.getStepY() * distance,
+                    z + dir.getStepZ() * distance
+            );
+        }
+
+        @Override
+        public BlockPos getPos() {
+            if (pos == null) {
+                pos = new BlockPos(x, y, z);
+            }
+            return pos;
+        }
+
+        @Override
+        public void setBlockPos(BlockPos pos, BlockState state) {
+            put(LAYER_ADDED, pos.getX(), pos.getY(), pos.getZ(), state);
+        }
+
+        @Override
+        public int hashCode() {
+            return getPos().hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PosInfo)) {
+                return false;
+            }
+            return getPos().equals(((PosInfo) obj).getPos());
+        }
+
+        @Override
+        public int compareTo(PosInfo info) {
+            return y - info.getPos().getY();
+        }
+    }
+}
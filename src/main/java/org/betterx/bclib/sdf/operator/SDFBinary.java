@@ -1,6 +1,7 @@
 package org.betterx.bclib.sdf.operator;
 
 import org.betterx.bclib.sdf.SDF;
+import org.betterx.bclib.sdf.SDFBatch;
 
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.block.state.BlockState;
@@ -20,6 +21,17 @@ public abstract class SDFBinary extends SDF {
         return this;
     }
 
+    /**
+     * Evaluates {@link #sourceA} into {@code out} and {@link #sourceB} into a temporary array of the batch. The
+     * returned array has to be released by the caller.
+     */
+    protected float[] evaluateSources(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        float[] b = batch.acquire();
+        sourceA.getDistances(batch, x, y, z, out, count);
+        sourceB.getDistances(batch, x, y, z, b, count);
+        return b;
+    }
+
     protected void selectValue(float a, float b) {
         firstValue = a < b;
     }
@@ -1,5 +1,7 @@
 package org.betterx.bclib.sdf.operator;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
 
 import org.joml.Vector3f;
 
@@ -20,4 +22,28 @@ public class SDFCoordModify extends SDFUnary {
         function.accept(pos);
         return this.source.getDistance(pos.x(), pos.y(), pos.z());
     }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFCoordModify.class) return super.compile(compiler, x, y, z);
+        int coords = compiler.coords(SDFCompiler.OP_COORD_MODIFY, function, x, y, z);
+        return compiler.compile(source, coords, coords + 1, coords + 2);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        float[] px = batch.acquire();
+        float[] py = batch.acquire();
+        float[] pz = batch.acquire();
+        final Vector3f pos = batch.pos;
+        for (int i = 0; i < count; i++) {
+            pos.set(x[i], y[i], z[i]);
+            function.accept(pos);
+            px[i] = pos.x();
+            py[i] = pos.y();
+            pz[i] = pos.z();
+        }
+        source.getDistances(batch, px, py, pz, out, count);
+        releaseCoordinates(batch, px, py, pz);
+    }
 }
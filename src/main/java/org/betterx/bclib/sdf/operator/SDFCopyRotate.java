@@ -1,5 +1,7 @@
 package org.betterx.bclib.sdf.operator;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
 import org.betterx.bclib.util.MHelper;
 
 public class SDFCopyRotate extends SDFUnary {
@@ -16,4 +18,24 @@ public class SDFCopyRotate extends SDFUnary {
         float pz = MHelper.length(x, z);
         return this.source.getDistance(px, y, pz);
     }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFCopyRotate.class) return super.compile(compiler, x, y, z);
+        int coords = compiler.coords(SDFCompiler.OP_COPY_ROTATE, x, y, z);
+        return compiler.compile(source, coords, coords + 1, coords + 2);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        float[] px = batch.acquire();
+        float[] pz = batch.acquire();
+        for (int i = 0; i < count; i++) {
+            px[i] = (float) Math.atan2(x[i], z[i]);
+            pz[i] = MHelper.length(x[i], z[i]);
+        }
+        source.getDistances(batch, px, y, pz, out, count);
+        batch.release(pz);
+        batch.release(px);
+    }
 }
@@ -1,11 +1,21 @@
 package org.betterx.bclib.sdf.operator;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
 
 import org.joml.Vector3f;
 
+import java.util.Set;
 import java.util.function.Function;
 
 public class SDFDisplacement extends SDFUnary {
+    //built-in subclasses that only set the function and keep the math of this class
+    private static final Set<Class<?>> COMPILED_CLASSES = Set.of(
+            SDFDisplacement.class,
+            SDFFlatWave.class,
+            SDFHeightmap.class,
+            SDFRadialNoiseMap.class
+    );
     private final Vector3f pos = new Vector3f();
     private Function<Vector3f, Float> displace;
 
@@ -19,4 +29,20 @@ public class SDFDisplacement extends SDFUnary {
         pos.set(x, y, z);
         return this.source.getDistance(x, y, z) + displace.apply(pos);
     }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (!COMPILED_CLASSES.contains(getClass())) return super.compile(compiler, x, y, z);
+        return compiler.displace(compiler.compile(source, x, y, z), displace, x, y, z);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        source.getDistances(batch, x, y, z, out, count);
+        final Vector3f pos = batch.pos;
+        for (int i = 0; i < count; i++) {
+            pos.set(x[i], y[i], z[i]);
+            out[i] = out[i] + displace.apply(pos);
+        }
+    }
 }
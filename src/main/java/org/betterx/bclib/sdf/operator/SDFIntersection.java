@@ -1,7 +1,11 @@
 package org.betterx.bclib.sdf.operator;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
 import org.betterx.bclib.util.MHelper;
 
+import net.minecraft.world.phys.AABB;
+
 public class SDFIntersection extends SDFBinary {
     @Override
     public float getDistance(float x, float y, float z) {
@@ -10,4 +14,29 @@ public class SDFIntersection extends SDFBinary {
         this.selectValue(a, b);
         return MHelper.max(a, b);
     }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFIntersection.class) return super.compile(compiler, x, y, z);
+        return compiler.binary(SDFCompiler.OP_INTERSECTION, sourceA, sourceB, x, y, z);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        float[] b = evaluateSources(batch, x, y, z, out, count);
+        for (int i = 0; i < count; i++) {
+            out[i] = MHelper.max(out[i], b[i]);
+        }
+        batch.release(b);
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        return intersection(sourceA.getBoundingBox(), sourceB.getBoundingBox());
+    }
+
+    @Override
+    public boolean canIntersect(AABB region) {
+        return sourceA.canIntersect(region) && sourceB.canIntersect(region);
+    }
 }
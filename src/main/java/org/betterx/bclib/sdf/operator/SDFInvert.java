@@ -1,8 +1,25 @@
 package org.betterx.bclib.sdf.operator;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
+
 public class SDFInvert extends SDFUnary {
     @Override
     public float getDistance(float x, float y, float z) {
         return -this.source.getDistance(x, y, z);
     }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFInvert.class) return super.compile(compiler, x, y, z);
+        return compiler.unary(SDFCompiler.OP_NEGATE, compiler.compile(source, x, y, z));
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        source.getDistances(batch, x, y, z, out, count);
+        for (int i = 0; i < count; i++) {
+            out[i] = -out[i];
+        }
+    }
 }
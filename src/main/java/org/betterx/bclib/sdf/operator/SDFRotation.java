@@ -1,7 +1,10 @@
 package org.betterx.bclib.sdf.operator;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
 
 import com.mojang.math.Axis;
+import net.minecraft.world.phys.AABB;
 
 import org.joml.Quaternionf;
 import org.joml.Vector3f;
@@ -26,4 +29,62 @@ public class SDFRotation extends SDFUnary {
         pos.rotate(rotation);
         return source.getDistance(pos.x(), pos.y(), pos.z());
     }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFRotation.class) return super.compile(compiler, x, y, z);
+        int coords = compiler.coords(SDFCompiler.OP_ROTATE, rotation, x, y, z);
+        return compiler.compile(source, coords, coords + 1, coords + 2);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        float[] px = batch.acquire();
+        float[] py = batch.acquire();
+        float[] pz = batch.acquire();
+        final Vector3f pos = batch.pos;
+        for (int i = 0; i < count; i++) {
+            pos.set(x[i], y[i], z[i]);
+            pos.rotate(rotation);
+            px[i] = pos.x();
+            py[i] = pos.y();
+            pz[i] = pos.z();
+        }
+        source.getDistances(batch, px, py, pz, out, count);
+        releaseCoordinates(batch, px, py, pz);
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        AABB box = source.getBoundingBox();
+        if (box == null) {
+            return null;
+        }
+
+        //source is sampled at the rotated position, so the box has to be rotated back
+        Quaternionf inverse = new Quaternionf(rotation).conjugate();
+        Vector3f corner = new Vector3f();
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double minZ = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        double maxZ = -Double.MAX_VALUE;
+        for (int i = 0; i < 8; i++) {
+            corner.set(
+                    (i & 1) == 0 ? box.minX : box.maxX,
+                    (i & 2) == 0 ? box.minY : box.maxY,
+                    (i & 4) == 0 ? box.minZ : box.maxZ
+            );
+            corner.rotate(inverse);
+            minX = Math.min(minX, corner.x());
+            minY = Math.min(minY, corner.y());
+            minZ = Math.min(minZ, corner.z());
+            maxX = Math.max(maxX, corner.x());
+            maxY = Math.max(maxY, corner.y());
+            maxZ = Math.max(maxZ, corner.z());
+        }
+        //inflate a bit to cover rounding of the rotated corners
+        return new AABB(minX, minY, minZ, maxX, maxY, maxZ).inflate(1);
+    }
 }
@@ -1,5 +1,11 @@
 package org.betterx.bclib.sdf.operator;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
+import org.betterx.bclib.util.MHelper;
+
+import net.minecraft.world.phys.AABB;
+
 public class SDFRound extends SDFUnary {
     private float radius;
 
@@ -12,4 +18,24 @@ public class SDFRound extends SDFUnary {
     public float getDistance(float x, float y, float z) {
         return this.source.getDistance(x, y, z) - radius;
     }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFRound.class) return super.compile(compiler, x, y, z);
+        return compiler.unary(SDFCompiler.OP_SUB_CONST, compiler.compile(source, x, y, z), radius);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        source.getDistances(batch, x, y, z, out, count);
+        for (int i = 0; i < count; i++) {
+            out[i] = out[i] - radius;
+        }
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        AABB box = source.getBoundingBox();
+        return box == null ? null : box.inflate(MHelper.max(radius, 0));
+    }
 }
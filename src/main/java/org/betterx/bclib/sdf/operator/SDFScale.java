@@ -1,5 +1,10 @@
 package org.betterx.bclib.sdf.operator;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
+
+import net.minecraft.world.phys.AABB;
+
 public class SDFScale extends SDFUnary {
     private float scale;
 
@@ -12,4 +17,35 @@ public class SDFScale extends SDFUnary {
     public float getDistance(float x, float y, float z) {
         return source.getDistance(x / scale, y / scale, z / scale) * scale;
     }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFScale.class) return super.compile(compiler, x, y, z);
+        int coords = compiler.coords(SDFCompiler.OP_SCALE, x, y, z, scale);
+        int distance = compiler.compile(source, coords, coords + 1, coords + 2);
+        return compiler.unary(SDFCompiler.OP_MUL_CONST, distance, scale);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        float[] px = batch.acquire();
+        float[] py = batch.acquire();
+        float[] pz = batch.acquire();
+        for (int i = 0; i < count; i++) {
+            px[i] = x[i] / scale;
+            py[i] = y[i] / scale;
+            pz[i] = z[i] / scale;
+        }
+        source.getDistances(batch, px, py, pz, out, count);
+        for (int i = 0; i < count; i++) {
+            out[i] = out[i] * scale;
+        }
+        releaseCoordinates(batch, px, py, pz);
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        AABB box = source.getBoundingBox();
+        return box == null ? null : scale(box, scale, scale, scale);
+    }
 }
@@ -1,6 +1,10 @@
 package org.betterx.bclib.sdf.operator;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
+
 import net.minecraft.util.Mth;
+import net.minecraft.world.phys.AABB;
 
 public class SDFSmoothSubtraction extends SDFBinary {
     private float radius;
@@ -18,4 +22,30 @@ public class SDFSmoothSubtraction extends SDFBinary {
         float h = Mth.clamp(0.5F - 0.5F * (b + a) / radius, 0F, 1F);
         return Mth.lerp(h, b, -a) + radius * h * (1F - h);
     }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFSmoothSubtraction.class) return super.compile(compiler, x, y, z);
+        return compiler.binary(SDFCompiler.OP_SMOOTH_SUBTRACTION, sourceA, sourceB, x, y, z, radius);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        float[] b = evaluateSources(batch, x, y, z, out, count);
+        for (int i = 0; i < count; i++) {
+            float h = Mth.clamp(0.5F - 0.5F * (b[i] + out[i]) / radius, 0F, 1F);
+            out[i] = Mth.lerp(h, b[i], -out[i]) + radius * h * (1F - h);
+        }
+        batch.release(b);
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        return sourceB.getBoundingBox();
+    }
+
+    @Override
+    public boolean canIntersect(AABB region) {
+        return sourceB.canIntersect(region);
+    }
 }
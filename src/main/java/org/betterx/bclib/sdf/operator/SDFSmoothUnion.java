@@ -1,6 +1,10 @@
 package org.betterx.bclib.sdf.operator;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
+
 import net.minecraft.util.Mth;
+import net.minecraft.world.phys.AABB;
 
 public class SDFSmoothUnion extends SDFBinary {
     private float radius;
@@ -18,4 +22,34 @@ public class SDFSmoothUnion extends SDFBinary {
         float h = Mth.clamp(0.5F + 0.5F * (b - a) / radius, 0F, 1F);
         return Mth.lerp(h, b, a) - radius * h * (1F - h);
     }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFSmoothUnion.class) return super.compile(compiler, x, y, z);
+        return compiler.binary(SDFCompiler.OP_SMOOTH_UNION, sourceA, sourceB, x, y, z, radius);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        float[] b = evaluateSources(batch, x, y, z, out, count);
+        for (int i = 0; i < count; i++) {
+            float h = Mth.clamp(0.5F + 0.5F * (b[i] - out[i]) / radius, 0F, 1F);
+            out[i] = Mth.lerp(h, b[i], out[i]) - radius * h * (1F - h);
+        }
+        batch.release(b);
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        //the smooth minimum is at most radius / 4 below the regular minimum, inflate by the full radius
+        //to stay conservative for sources that are not exact distance fields
+        AABB box = union(sourceA.getBoundingBox(), sourceB.getBoundingBox());
+        return box == null ? null : box.inflate(Math.abs(radius));
+    }
+
+    @Override
+    public boolean canIntersect(AABB region) {
+        AABB inflated = region.inflate(Math.abs(radius));
+        return sourceA.canIntersect(inflated) || sourceB.canIntersect(inflated);
+    }
 }
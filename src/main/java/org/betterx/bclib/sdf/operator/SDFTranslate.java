@@ -1,5 +1,10 @@
 package org.betterx.bclib.sdf.operator;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
+
+import net.minecraft.world.phys.AABB;
+
 public class SDFTranslate extends SDFUnary {
     float x;
     float y;
@@ -16,4 +21,36 @@ public class SDFTranslate extends SDFUnary {
     public float getDistance(float x, float y, float z) {
         return source.getDistance(x - this.x, y - this.y, z - this.z);
     }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFTranslate.class) return super.compile(compiler, x, y, z);
+        int coords = compiler.coords(SDFCompiler.OP_TRANSLATE, x, y, z, this.x, this.y, this.z);
+        return compiler.compile(source, coords, coords + 1, coords + 2);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        float[] px = batch.acquire();
+        float[] py = batch.acquire();
+        float[] pz = batch.acquire();
+        for (int i = 0; i < count; i++) {
+            px[i] = x[i] - this.x;
+            py[i] = y[i] - this.y;
+            pz[i] = z[i] - this.z;
+        }
+        source.getDistances(batch, px, py, pz, out, count);
+        releaseCoordinates(batch, px, py, pz);
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        AABB box = source.getBoundingBox();
+        return box == null ? null : box.move(x, y, z);
+    }
+
+    @Override
+    public boolean canIntersect(AABB region) {
+        return source.canIntersect(region.move(-x, -y, -z));
+    }
 }
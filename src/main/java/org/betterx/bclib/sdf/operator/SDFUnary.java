@@ -1,6 +1,7 @@
 package org.betterx.bclib.sdf.operator;
 
 import org.betterx.bclib.sdf.SDF;
+import org.betterx.bclib.sdf.SDFBatch;
 
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.block.state.BlockState;
@@ -13,6 +14,12 @@ public abstract class SDFUnary extends SDF {
         return this;
     }
 
+    protected static void releaseCoordinates(SDFBatch batch, float[] x, float[] y, float[] z) {
+        batch.release(z);
+        batch.release(y);
+        batch.release(x);
+    }
+
     @Override
     public BlockState getBlockState(BlockPos pos) {
         return source.getBlockState(pos);
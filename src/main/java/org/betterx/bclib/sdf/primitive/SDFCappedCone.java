@@ -1,8 +1,11 @@
 package org.betterx.bclib.sdf.primitive;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
 import org.betterx.bclib.util.MHelper;
 
 import net.minecraft.util.Mth;
+import net.minecraft.world.phys.AABB;
 
 public class SDFCappedCone extends SDFPrimitive {
     private float radius1;
@@ -26,6 +29,29 @@ public class SDFCappedCone extends SDFPrimitive {
 
     @Override
     public float getDistance(float x, float y, float z) {
+        return distance(x, y, z, radius1, radius2, height);
+    }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFCappedCone.class) return super.compile(compiler, x, y, z);
+        return compiler.primitive(this, SDFCompiler.OP_CAPPED_CONE, x, y, z, radius1, radius2, height);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = distance(x[i], y[i], z[i], radius1, radius2, height);
+        }
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        float radius = MHelper.max(radius1, radius2);
+        return new AABB(-radius, -height, -radius, radius, height, radius);
+    }
+
+    public static float distance(float x, float y, float z, float radius1, float radius2, float height) {
         float qx = MHelper.length(x, z);
         float k2x = radius2 - radius1;
         float k2y = 2 * height;
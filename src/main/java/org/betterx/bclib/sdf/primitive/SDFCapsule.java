@@ -1,8 +1,11 @@
 package org.betterx.bclib.sdf.primitive;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
 import org.betterx.bclib.util.MHelper;
 
 import net.minecraft.util.Mth;
+import net.minecraft.world.phys.AABB;
 
 public class SDFCapsule extends SDFPrimitive {
     private float radius;
@@ -20,6 +23,28 @@ public class SDFCapsule extends SDFPrimitive {
 
     @Override
     public float getDistance(float x, float y, float z) {
+        return distance(x, y, z, radius, height);
+    }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFCapsule.class) return super.compile(compiler, x, y, z);
+        return compiler.primitive(this, SDFCompiler.OP_CAPSULE, x, y, z, radius, height);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = distance(x[i], y[i], z[i], radius, height);
+        }
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        return new AABB(-radius, -radius, -radius, radius, height + radius, radius);
+    }
+
+    public static float distance(float x, float y, float z, float radius, float height) {
         return MHelper.length(x, y - Mth.clamp(y, 0, height), z) - radius;
     }
 }
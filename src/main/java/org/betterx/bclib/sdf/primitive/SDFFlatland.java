@@ -1,8 +1,22 @@
 package org.betterx.bclib.sdf.primitive;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
+
 public class SDFFlatland extends SDFPrimitive {
     @Override
     public float getDistance(float x, float y, float z) {
         return y;
     }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFFlatland.class) return super.compile(compiler, x, y, z);
+        return compiler.primitive(this, SDFCompiler.OP_FLATLAND, x, y, z);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        System.arraycopy(y, 0, out, 0, count);
+    }
 }
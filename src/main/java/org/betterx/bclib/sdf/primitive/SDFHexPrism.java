@@ -1,7 +1,11 @@
 package org.betterx.bclib.sdf.primitive;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
 import org.betterx.bclib.util.MHelper;
 
+import net.minecraft.world.phys.AABB;
+
 public class SDFHexPrism extends SDFPrimitive {
     private float radius;
     private float height;
@@ -18,6 +22,29 @@ public class SDFHexPrism extends SDFPrimitive {
 
     @Override
     public float getDistance(float x, float y, float z) {
+        return distance(x, y, z, radius, height);
+    }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFHexPrism.class) return super.compile(compiler, x, y, z);
+        return compiler.primitive(this, SDFCompiler.OP_HEX_PRISM, x, y, z, radius, height);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = distance(x[i], y[i], z[i], radius, height);
+        }
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        float radiusX = radius / 0.866025F;
+        return new AABB(-radiusX, -height, -radius, radiusX, height, radius);
+    }
+
+    public static float distance(float x, float y, float z, float radius, float height) {
         float px = Math.abs(x);
         float py = Math.abs(y);
         float pz = Math.abs(z);
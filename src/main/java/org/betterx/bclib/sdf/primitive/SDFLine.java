@@ -1,8 +1,11 @@
 package org.betterx.bclib.sdf.primitive;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
 import org.betterx.bclib.util.MHelper;
 
 import net.minecraft.util.Mth;
+import net.minecraft.world.phys.AABB;
 
 public class SDFLine extends SDFPrimitive {
     private float radius;
@@ -34,6 +37,39 @@ public class SDFLine extends SDFPrimitive {
 
     @Override
     public float getDistance(float x, float y, float z) {
+        return distance(x, y, z, radius, x1, y1, z1, x2, y2, z2);
+    }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFLine.class) return super.compile(compiler, x, y, z);
+        return compiler.primitive(this, SDFCompiler.OP_LINE, x, y, z, radius, x1, y1, z1, x2, y2, z2);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = distance(x[i], y[i], z[i], radius, x1, y1, z1, x2, y2, z2);
+        }
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        return new AABB(x1, y1, z1, x2, y2, z2).inflate(radius);
+    }
+
+    public static float distance(
+            float x,
+            float y,
+            float z,
+            float radius,
+            float x1,
+            float y1,
+            float z1,
+            float x2,
+            float y2,
+            float z2
+    ) {
         float pax = x - x1;
         float pay = y - y1;
         float paz = z - z1;
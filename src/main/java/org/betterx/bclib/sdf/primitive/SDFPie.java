@@ -1,8 +1,11 @@
 package org.betterx.bclib.sdf.primitive;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
 import org.betterx.bclib.util.MHelper;
 
 import net.minecraft.util.Mth;
+import net.minecraft.world.phys.AABB;
 
 public class SDFPie extends SDFPrimitive {
     private float sin;
@@ -22,6 +25,28 @@ public class SDFPie extends SDFPrimitive {
 
     @Override
     public float getDistance(float x, float y, float z) {
+        return distance(x, y, z, sin, cos, radius);
+    }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFPie.class) return super.compile(compiler, x, y, z);
+        return compiler.primitive(this, SDFCompiler.OP_PIE, x, y, z, sin, cos, radius);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = distance(x[i], y[i], z[i], sin, cos, radius);
+        }
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        return new AABB(-radius, -radius, -radius, radius, radius, radius);
+    }
+
+    public static float distance(float x, float y, float z, float sin, float cos, float radius) {
         float px = Math.abs(x);
         float l = MHelper.length(px, y, z) - radius;
         float m = MHelper.dot(px, z, sin, cos);
@@ -1,7 +1,11 @@
 package org.betterx.bclib.sdf.primitive;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
 import org.betterx.bclib.util.MHelper;
 
+import net.minecraft.world.phys.AABB;
+
 public class SDFSphere extends SDFPrimitive {
     private float radius;
 
@@ -12,6 +16,28 @@ public class SDFSphere extends SDFPrimitive {
 
     @Override
     public float getDistance(float x, float y, float z) {
+        return distance(x, y, z, radius);
+    }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFSphere.class) return super.compile(compiler, x, y, z);
+        return compiler.primitive(this, SDFCompiler.OP_SPHERE, x, y, z, radius);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = distance(x[i], y[i], z[i], radius);
+        }
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        return new AABB(-radius, -radius, -radius, radius, radius, radius);
+    }
+
+    public static float distance(float x, float y, float z, float radius) {
         return MHelper.length(x, y, z) - radius;
     }
 }
@@ -1,7 +1,11 @@
 package org.betterx.bclib.sdf.primitive;
 
+import org.betterx.bclib.sdf.SDFBatch;
+import org.betterx.bclib.sdf.SDFCompiler;
 import org.betterx.bclib.util.MHelper;
 
+import net.minecraft.world.phys.AABB;
+
 public class SDFTorus extends SDFPrimitive {
     private float radiusSmall;
     private float radiusBig;
@@ -18,6 +22,29 @@ public class SDFTorus extends SDFPrimitive {
 
     @Override
     public float getDistance(float x, float y, float z) {
+        return distance(x, y, z, radiusBig, radiusSmall);
+    }
+
+    @Override
+    protected int compile(SDFCompiler compiler, int x, int y, int z) {
+        if (getClass() != SDFTorus.class) return super.compile(compiler, x, y, z);
+        return compiler.primitive(this, SDFCompiler.OP_TORUS, x, y, z, radiusBig, radiusSmall);
+    }
+
+    @Override
+    public void getDistances(SDFBatch batch, float[] x, float[] y, float[] z, float[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = distance(x[i], y[i], z[i], radiusBig, radiusSmall);
+        }
+    }
+
+    @Override
+    public AABB getBoundingBox() {
+        float radius = radiusBig + radiusSmall;
+        return new AABB(-radius, -radiusSmall, -radius, radius, radiusSmall, radius);
+    }
+
+    public static float distance(float x, float y, float z, float radiusBig, float radiusSmall) {
         float nx = MHelper.length(x, z) - radiusBig;
         return MHelper.length(nx, y) - radiusSmall;
     }
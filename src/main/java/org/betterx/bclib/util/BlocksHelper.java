@@ -6,12 +6,15 @@ import org.betterx.worlds.together.tag.v3.CommonBlockTags;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.BlockPos.MutableBlockPos;
 import net.minecraft.core.Direction;
+import net.minecraft.server.level.WorldGenRegion;
 import net.minecraft.util.RandomSource;
+import net.minecraft.world.entity.ai.village.poi.PoiTypes;
 import net.minecraft.world.level.BlockGetter;
 import net.minecraft.world.level.LevelAccessor;
 import net.minecraft.world.level.block.*;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.properties.Property;
+import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.levelgen.structure.BoundingBox;
 import net.minecraft.world.level.material.LavaFluid;
 import net.minecraft.world.level.material.PushReaction;
@@ -55,6 +58,30 @@ public class BlocksHelper {
         world.setBlock(pos, state, SET_SILENT);
     }
 
+    /**
+     * Sets a block during world generation without going through {@link WorldGenRegion#setBlock}. The caller has
+     * to look up the chunk (so it can be reused for many blocks) and check
+     * {@link WorldGenRegion#ensureCanWrite(BlockPos)}. Blocks with block entities or points of interest fall back to
+     * {@link #setWithoutUpdate(LevelAccessor, BlockPos, BlockState)}.
+     *
+     * @param region The region that is generated
+     * @param chunk  The chunk that contains {@code pos}
+     * @param pos    The position of the block
+     * @param state  The new state
+     */
+    public static void setWithoutUpdate(WorldGenRegion region, ChunkAccess chunk, BlockPos pos, BlockState state) {
+        BlockState old = chunk.getBlockState(pos);
+        if (state.hasBlockEntity() || old.hasBlockEntity() || PoiTypes.hasPoi(state) || PoiTypes.hasPoi(old)) {
+            setWithoutUpdate(region, pos, state);
+            return;
+        }
+
+        chunk.setBlockState(pos, state, false);
+        if (state.hasPostProcess(region, pos)) {
+            chunk.markPosForPostprocessing(pos);
+        }
+    }
+
     public static void setWithoutUpdate(LevelAccessor world, BlockPos pos, Block block) {
         world.setBlock(pos, block.defaultBlockState(), SET_SILENT);
     }
@@ -7,21 +7,31 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.core.BlockPos.MutableBlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.tags.BlockTags;
+import net.minecraft.server.level.WorldGenRegion;
 import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.BlockGetter;
 import net.minecraft.world.level.WorldGenLevel;
 import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.properties.NoteBlockInstrument;
+import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.levelgen.structure.BoundingBox;
+import net.minecraft.world.level.material.FluidState;
 
-import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 
-import java.util.Set;
+import java.util.BitSet;
+import org.jetbrains.annotations.Nullable;
 
 public class StructureErode {
     private static final Direction[] DIR = BlocksHelper.makeHorizontal();
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
 
     public static void erode(WorldGenLevel world, BoundingBox bounds, int iterations, RandomSource random) {
+        ErosionVolume volume = new ErosionVolume(world, bounds);
         MutableBlockPos mut = new MutableBlockPos();
         boolean canDestruct = true;
         for (int i = 0; i < iterations; i++) {
@@ -31,14 +41,14 @@ public class StructureErode {
                     mut.setZ(z);
                     for (int y = bounds.maxY(); y >= bounds.minY(); y--) {
                         mut.setY(y);
-                        BlockState state = world.getBlockState(mut);
-                        boolean ignore = ignore(state, world, mut);
+                        BlockState state = volume.getBlockState(mut);
+                        boolean ignore = ignore(state, volume, mut);
                         if (canDestruct && BlocksHelper.isInvulnerable(
                                 state,
-                                world,
+                                volume,
                                 mut
-                        ) && random.nextInt(8) == 0 && world.isEmptyBlock(
-                                mut.below(2))) {
+                        ) && random.nextInt(8) == 0 && volume.isEmptyBlock(
+                                mut.getX(), mut.getY() - 2, mut.getZ())) {
                             int r = MHelper.randRange(1, 4, random);
                             int cx = mut.getX();
                             int cy = mut.getY();
@@ -62,11 +72,11 @@ public class StructureErode {
                                         dz *= dz;
                                         mut.setZ(pz);
                                         if (dx + dy + dz <= r && BlocksHelper.isInvulnerable(
-                                                world.getBlockState(mut),
-                                                world,
+                                                volume.getBlockState(mut),
+                                                volume,
                                                 mut
                                         )) {
-                                            BlocksHelper.setWithoutUpdate(world, mut, Blocks.AIR);
+                                            volume.setBlock(mut, AIR);
                                         }
                                     }
                                 }
@@ -82,15 +92,20 @@ public class StructureErode {
                         if (!state.isAir() && random.nextBoolean()) {
                             MHelper.shuffle(DIR, random);
                             for (Direction dir : DIR) {
-                                if (world.isEmptyBlock(mut.relative(dir)) && world.isEmptyBlock(mut.below()
-                                                                                                   .relative(dir))) {
-                                    BlocksHelper.setWithoutUpdate(world, mut, Blocks.AIR);
+                                final int nx = mut.getX() + dir.getStepX();
+                                final int nz = mut.getZ() + dir.getStepZ();
+                                if (volume.isEmptyBlock(nx, mut.getY(), nz) && volume.isEmptyBlock(
+                                        nx,
+                                        mut.getY() - 1,
+                                        nz
+                                )) {
+                                    volume.setBlock(mut, AIR);
                                     mut.move(dir).move(Direction.DOWN);
                                     for (int py = mut.getY(); y >= bounds.minY() - 10; y--) {
                                         mut.setY(py - 1);
-                                        if (!world.isEmptyBlock(mut)) {
+                                        if (!volume.isEmptyBlock(mut)) {
                                             mut.setY(py);
-                                            BlocksHelper.setWithoutUpdate(world, mut, state);
+                                            volume.setBlock(mut, state);
                                             break;
                                         }
                                     }
@@ -98,11 +113,11 @@ public class StructureErode {
                             }
                             break;
                         } else if (random.nextInt(8) == 0 && !BlocksHelper.isInvulnerable(
-                                world.getBlockState(mut.above()),
-                                world,
+                                volume.getBlockState(mut.getX(), mut.getY() + 1, mut.getZ()),
+                                volume,
                                 mut
                         )) {
-                            BlocksHelper.setWithoutUpdate(world, mut, Blocks.AIR);
+                            volume.setBlock(mut, AIR);
                         }
                     }
                 }
@@ -114,14 +129,14 @@ public class StructureErode {
                 mut.setZ(z);
                 for (int y = bounds.maxY(); y >= bounds.minY(); y--) {
                     mut.setY(y);
-                    BlockState state = world.getBlockState(mut);
-                    if (!ignore(state, world, mut) && world.isEmptyBlock(mut.below())) {
-                        BlocksHelper.setWithoutUpdate(world, mut, Blocks.AIR);
+                    BlockState state = volume.getBlockState(mut);
+                    if (!ignore(state, volume, mut) && volume.isEmptyBlock(mut.getX(), mut.getY() - 1, mut.getZ())) {
+                        volume.setBlock(mut, AIR);
                         for (int py = mut.getY(); py >= bounds.minY() - 10; py--) {
                             mut.setY(py - 1);
-                            if (!world.isEmptyBlock(mut)) {
+                            if (!volume.isEmptyBlock(mut)) {
                                 mut.setY(py);
-                                BlocksHelper.setWithoutUpdate(world, mut, state);
+                                volume.setBlock(mut, state);
                                 break;
                             }
                         }
@@ -129,9 +144,11 @@ public class StructureErode {
                 }
             }
         }
+        volume.flush();
     }
 
     public static void erodeIntense(WorldGenLevel world, BoundingBox bounds, RandomSource random) {
+        ErosionVolume volume = new ErosionVolume(world, bounds);
         MutableBlockPos mut = new MutableBlockPos();
         MutableBlockPos mut2 = new MutableBlockPos();
         int minY = bounds.minY() - 10;
@@ -141,39 +158,41 @@ public class StructureErode {
                 mut.setZ(z);
                 for (int y = bounds.maxY(); y >= bounds.minY(); y--) {
                     mut.setY(y);
-                    BlockState state = world.getBlockState(mut);
-                    if (!ignore(state, world, mut)) {
+                    BlockState state = volume.getBlockState(mut);
+                    if (!ignore(state, volume, mut)) {
                         if (random.nextInt(6) == 0) {
-                            BlocksHelper.setWithoutUpdate(world, mut, Blocks.AIR);
+                            volume.setBlock(mut, AIR);
                             if (random.nextBoolean()) {
                                 int px = MHelper.floor(random.nextGaussian() * 2 + x + 0.5);
                                 int pz = MHelper.floor(random.nextGaussian() * 2 + z + 0.5);
                                 mut2.set(px, y, pz);
-                                while (world.getBlockState(mut2).canBeReplaced() && mut2.getY() > minY) {
+                                while (volume.getBlockState(mut2).canBeReplaced() && mut2.getY() > minY) {
                                     mut2.setY(mut2.getY() - 1);
                                 }
-                                if (!world.getBlockState(mut2).isAir() && state.canSurvive(world, mut2)) {
+                                if (!volume.getBlockState(mut2).isAir() && volume.canSurvive(state, mut2)) {
                                     mut2.setY(mut2.getY() + 1);
-                                    BlocksHelper.setWithoutUpdate(world, mut2, state);
+                                    volume.setBlock(mut2, state);
                                 }
                             }
                         } else if (random.nextInt(8) == 0) {
-                            BlocksHelper.setWithoutUpdate(world, mut, Blocks.AIR);
+                            volume.setBlock(mut, AIR);
                         }
                     }
                 }
             }
         }
 
-        drop(world, bounds);
+        drop(volume, bounds);
+        volume.flush();
     }
 
-    private static void drop(WorldGenLevel world, BoundingBox bounds) {
+    private static void drop(ErosionVolume volume, BoundingBox bounds) {
         MutableBlockPos mut = new MutableBlockPos();
+        MutableBlockPos center = new MutableBlockPos();
 
-        Set<BlockPos> blocks = Sets.newHashSet();
-        Set<BlockPos> edge = Sets.newHashSet();
-        Set<BlockPos> add = Sets.newHashSet();
+        LongOpenHashSet blocks = new LongOpenHashSet();
+        LongOpenHashSet edge = new LongOpenHashSet();
+        LongOpenHashSet add = new LongOpenHashSet();
 
         for (int x = bounds.minX(); x <= bounds.maxX(); x++) {
             mut.setX(x);
@@ -181,9 +200,9 @@ public class StructureErode {
                 mut.setZ(z);
                 for (int y = bounds.minY(); y <= bounds.maxY(); y++) {
                     mut.setY(y);
-                    BlockState state = world.getBlockState(mut);
-                    if (!ignore(state, world, mut) && isTerrainNear(world, mut)) {
-                        edge.add(mut.immutable());
+                    BlockState state = volume.getBlockState(mut);
+                    if (!ignore(state, volume, mut) && isTerrainNear(volume, mut)) {
+                        edge.add(mut.asLong());
                     }
                 }
             }
@@ -193,16 +212,18 @@ public class StructureErode {
             return;
         }
 
+        //the flood fill only reads blocks, so the visiting order does not change the result
         while (!edge.isEmpty()) {
-            for (BlockPos center : edge) {
+            for (LongIterator it = edge.iterator(); it.hasNext(); ) {
+                center.set(it.nextLong());
                 for (Direction dir : BlocksHelper.DIRECTIONS) {
-                    BlockState state = world.getBlockState(center);
-                    if (state.isCollisionShapeFullBlock(world, center)) {
+                    BlockState state = volume.getBlockState(center);
+                    if (state.isCollisionShapeFullBlock(volume, center)) {
                         mut.set(center).move(dir);
                         if (bounds.isInside(mut)) {
-                            state = world.getBlockState(mut);
-                            if (!ignore(state, world, mut) && !blocks.contains(mut)) {
-                                add.add(mut.immutable());
+                            state = volume.getBlockState(mut);
+                            if (!ignore(state, volume, mut) && !blocks.contains(mut.asLong())) {
+                                add.add(mut.asLong());
                             }
                         }
                     }
@@ -222,15 +243,15 @@ public class StructureErode {
                 mut.setZ(z);
                 for (int y = bounds.minY(); y <= bounds.maxY(); y++) {
                     mut.setY(y);
-                    BlockState state = world.getBlockState(mut);
-                    if (!ignore(state, world, mut) && !blocks.contains(mut)) {
-                        BlocksHelper.setWithoutUpdate(world, mut, Blocks.AIR);
-                        while (world.getBlockState(mut).canBeReplaced() && mut.getY() > minY) {
+                    BlockState state = volume.getBlockState(mut);
+                    if (!ignore(state, volume, mut) && !blocks.contains(mut.asLong())) {
+                        volume.setBlock(mut, AIR);
+                        while (volume.getBlockState(mut).canBeReplaced() && mut.getY() > minY) {
                             mut.setY(mut.getY() - 1);
                         }
                         if (mut.getY() > minY) {
                             mut.setY(mut.getY() + 1);
-                            BlocksHelper.setWithoutUpdate(world, mut, state);
+                            volume.setBlock(mut, state);
                         }
                     }
                 }
@@ -238,7 +259,7 @@ public class StructureErode {
         }
     }
 
-    private static boolean ignore(BlockState state, WorldGenLevel world, BlockPos pos) {
+    private static boolean ignore(BlockState state, BlockGetter world, BlockPos pos) {
         if (state.is(CommonBlockTags.GEN_END_STONES) || state.is(BlockTags.NYLIUM)) {
             return true;
         }
@@ -248,9 +269,13 @@ public class StructureErode {
                 || BlocksHelper.isInvulnerable(state, world, pos);
     }
 
-    private static boolean isTerrainNear(WorldGenLevel world, BlockPos pos) {
+    private static boolean isTerrainNear(ErosionVolume volume, BlockPos pos) {
         for (Direction dir : BlocksHelper.DIRECTIONS) {
-            if (world.getBlockState(pos.relative(dir)).is(CommonBlockTags.GEN_END_STONES)) {
+            if (volume.getBlockState(
+                    pos.getX() + dir.getStepX(),
+                    pos.getY() + dir.getStepY(),
+                    pos.getZ() + dir.getStepZ()
+            ).is(CommonBlockTags.GEN_END_STONES)) {
                 return true;
             }
         }
@@ -276,4 +301,197 @@ public class StructureErode {
             }
         }
     }
+
+    /**
+     * Buffered view of the blocks around an eroded structure.
+     * <p>
+     * Blocks inside the bounds (plus a margin for the reads and writes that reach outside of them) are read from the
+     * world the first time they are needed, changes are kept in the buffer and written back by {@link #flush()}.
+     * Blocks outside of the buffer are passed through to the world directly. Writes the world would reject are
+     * dropped right away, so the buffer always shows what the world would contain.
+     * <p>
+     * The buffer is split into 16x16x16 sections that are allocated when one of their blocks is first read.
+     */
+    private static final class ErosionVolume implements BlockGetter {
+        private static final int MARGIN_XZ = 5;
+        private static final int MARGIN_DOWN = 12;
+        private static final int MARGIN_UP = 5;
+        //2M blocks, larger bounds are not buffered
+        private static final long MAX_VOLUME = 1 << 21;
+        private static final int SECTION_BITS = 4;
+        private static final int SECTION_MASK = (1 << SECTION_BITS) - 1;
+        private static final int SECTION_VOLUME_BITS = 3 * SECTION_BITS;
+        private static final int SECTION_VOLUME_MASK = (1 << SECTION_VOLUME_BITS) - 1;
+
+        private final WorldGenLevel world;
+        private final WorldGenRegion region;
+        private final int minX;
+        private final int minY;
+        private final int minZ;
+        private final int sizeX;
+        private final int sizeY;
+        private final int sizeZ;
+        private final int sectionsX;
+        private final int sectionsZ;
+        private final BlockState[][] sections;
+        private final BitSet dirty = new BitSet();
+        private final IntArrayList changed = new IntArrayList();
+        private final MutableBlockPos pos = new MutableBlockPos();
+
+        ErosionVolume(WorldGenLevel world, BoundingBox bounds) {
+            this.world = world;
+            this.region = world instanceof WorldGenRegion r ? r : null;
+            this.minX = bounds.minX() - MARGIN_XZ;
+            this.minY = bounds.minY() - MARGIN_DOWN;
+            this.minZ = bounds.minZ() - MARGIN_XZ;
+            final int sx = bounds.getXSpan() + 2 * MARGIN_XZ;
+            final int sy = bounds.getYSpan() + MARGIN_DOWN + MARGIN_UP;
+            final int sz = bounds.getZSpan() + 2 * MARGIN_XZ;
+            if ((long) sx * sy * sz > MAX_VOLUME) {
+                //unusually large bounds, everything goes through to the world
+                this.sizeX = this.sizeY = this.sizeZ = 0;
+            } else {
+                this.sizeX = sx;
+                this.sizeY = sy;
+                this.sizeZ = sz;
+            }
+            this.sectionsX = (sizeX + SECTION_MASK) >> SECTION_BITS;
+            this.sectionsZ = (sizeZ + SECTION_MASK) >> SECTION_BITS;
+            final int sectionsY = (sizeY + SECTION_MASK) >> SECTION_BITS;
+            this.sections = new BlockState[sectionsX * sectionsY * sectionsZ][];
+        }
+
+        /**
+         * @return The section in the upper bits and the block in the section in the lower {@link #SECTION_VOLUME_BITS}
+         * bits, or {@code -1} if the position is not buffered
+         */
+        private int index(int x, int y, int z) {
+            final int lx = x - minX;
+            final int ly = y - minY;
+            final int lz = z - minZ;
+            if (lx < 0 || ly < 0 || lz < 0 || lx >= sizeX || ly >= sizeY || lz >= sizeZ) return -1;
+            final int section = ((ly >> SECTION_BITS) * sectionsZ + (lz >> SECTION_BITS)) * sectionsX + (lx >> SECTION_BITS);
+            final int local = ((ly & SECTION_MASK) << SECTION_BITS | (lz & SECTION_MASK)) << SECTION_BITS | (lx & SECTION_MASK);
+            return section << SECTION_VOLUME_BITS | local;
+        }
+
+        private BlockState[] section(int index) {
+            final int section = index >>> SECTION_VOLUME_BITS;
+            BlockState[] states = sections[section];
+            if (states == null) {
+                states = new BlockState[1 << SECTION_VOLUME_BITS];
+                sections[section] = states;
+            }
+            return states;
+        }
+
+        private void setPosition(int index) {
+            final int section = index >>> SECTION_VOLUME_BITS;
+            final int sx = section % sectionsX;
+            final int sz = (section / sectionsX) % sectionsZ;
+            final int sy = section / sectionsX / sectionsZ;
+            pos.set(
+                    minX + (sx << SECTION_BITS | (index & SECTION_MASK)),
+                    minY + (sy << SECTION_BITS | ((index >> (2 * SECTION_BITS)) & SECTION_MASK)),
+                    minZ + (sz << SECTION_BITS | ((index >> SECTION_BITS) & SECTION_MASK))
+            );
+        }
+
+        BlockState getBlockState(int x, int y, int z) {
+            final int index = index(x, y, z);
+            if (index < 0) return world.getBlockState(pos.set(x, y, z));
+
+            final BlockState[] states = section(index);
+            final int local = index & SECTION_VOLUME_MASK;
+            BlockState state = states[local];
+            if (state == null) {
+                state = world.getBlockState(pos.set(x, y, z));
+                states[local] = state;
+            }
+            return state;
+        }
+
+        @Override
+        public BlockState getBlockState(BlockPos blockPos) {
+            return getBlockState(blockPos.getX(), blockPos.getY(), blockPos.getZ());
+        }
+
+        boolean isEmptyBlock(int x, int y, int z) {
+            return getBlockState(x, y, z).isAir();
+        }
+
+        boolean isEmptyBlock(BlockPos blockPos) {
+            return getBlockState(blockPos).isAir();
+        }
+
+        void setBlock(BlockPos blockPos, BlockState state) {
+            final int index = index(blockPos.getX(), blockPos.getY(), blockPos.getZ());
+            if (index < 0) {
+                BlocksHelper.setWithoutUpdate(world, blockPos, state);
+                return;
+            }
+            if (world.isOutsideBuildHeight(blockPos)) return;
+            if (region != null && !region.ensureCanWrite(blockPos)) return;
+
+            section(index)[index & SECTION_VOLUME_MASK] = state;
+            if (!dirty.get(index)) {
+                dirty.set(index);
+                changed.add(index);
+            }
+        }
+
+        /**
+         * {@link BlockState#canSurvive} needs a {@link net.minecraft.world.level.LevelReader}, so pending changes
+         * are written to the world before it is tested there.
+         */
+        boolean canSurvive(BlockState state, BlockPos blockPos) {
+            flush();
+            return state.canSurvive(world, blockPos);
+        }
+
+        void flush() {
+            ChunkAccess chunk = null;
+            int chunkX = Integer.MIN_VALUE;
+            int chunkZ = Integer.MIN_VALUE;
+            for (int i = 0; i < changed.size(); i++) {
+                final int index = changed.getInt(i);
+                dirty.clear(index);
+                setPosition(index);
+                final BlockState state = sections[index >>> SECTION_VOLUME_BITS][index & SECTION_VOLUME_MASK];
+
+                if (region == null) {
+                    BlocksHelper.setWithoutUpdate(world, pos, state);
+                    continue;
+                }
+                if (chunk == null || chunkX != pos.getX() >> 4 || chunkZ != pos.getZ() >> 4) {
+                    chunkX = pos.getX() >> 4;
+                    chunkZ = pos.getZ() >> 4;
+                    chunk = region.getChunk(chunkX, chunkZ);
+                }
+                BlocksHelper.setWithoutUpdate(region, chunk, pos, state);
+            }
+            changed.clear();
+        }
+
+        @Nullable
+        @Override
+        public BlockEntity getBlockEntity(BlockPos blockPos) {
+            return world.getBlockEntity(blockPos);
+        }
+
+        @Override
+        public FluidState getFluidState(BlockPos blockPos) {
+            return getBlockState(blockPos).getFluidState();
+        }
+
+        @Override
+        public int getHeight() {
+            return world.getHeight();
+        }
+
+        @Override
+        public int getMinBuildHeight() {
+            return world.getMinBuildHeight();
+        }
+    }
 }
@@ -4,6 +4,8 @@ import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import net.minecraft.util.RandomSource;
 
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -13,9 +15,11 @@ import java.util.function.Function;
 public class WeightedList<T> {
 
 
-    private final List<Float> weights = new ArrayList<Float>();
+    private final FloatArrayList weights = new FloatArrayList();
     private final List<T> values = new ArrayList<T>();
     private float maxWeight;
+    //built on first use, dropped whenever the list changes
+    private WeightedSampler sampler;
 
     public static <T> Codec<Pair<Float, T>> pairCodec(Codec<T> elementCodec, String fieldName) {
         return Pair.pairCodec(Codec.FLOAT, elementCodec, "weight", fieldName);
@@ -35,7 +39,7 @@ public class WeightedList<T> {
     private List<Pair<Float, T>> pairs() {
         List<Pair<Float, T>> pairs = new ArrayList<>(weights.size());
         for (int i = 0; i < weights.size(); i++) {
-            pairs.add(new Pair<>(weights.get(i), values.get(i)));
+            pairs.add(new Pair<>(weights.getFloat(i), values.get(i)));
         }
         return pairs;
     }
@@ -44,7 +48,7 @@ public class WeightedList<T> {
         maxWeight = 0;
         for (var pair : pairs) {
             maxWeight += pair.first;
-            weights.add(pair.first);
+            weights.add((float) pair.first);
             values.add(pair.second);
         }
     }
@@ -55,7 +59,7 @@ public class WeightedList<T> {
     public <R> WeightedList<R> map(Function<T, R> map) {
         List<Pair<Float, R>> pairs = new ArrayList<>(weights.size());
         for (int i = 0; i < weights.size(); i++) {
-            pairs.add(new Pair<>(weights.get(i), map.apply(values.get(i))));
+            pairs.add(new Pair<>(weights.getFloat(i), map.apply(values.get(i))));
         }
         return new WeightedList<>(pairs);
     }
@@ -64,6 +68,7 @@ public class WeightedList<T> {
         weights.addAll(other.weights);
         values.addAll(other.values);
         maxWeight += other.maxWeight;
+        sampler = null;
     }
 
     /**
@@ -76,6 +81,7 @@ public class WeightedList<T> {
         maxWeight += weight;
         weights.add(maxWeight);
         values.add(value);
+        sampler = null;
     }
 
     /**
@@ -88,14 +94,21 @@ public class WeightedList<T> {
         if (maxWeight <= 0) {
             return null;
         }
-        float weight = random.nextFloat() * maxWeight;
-        for (int i = 0; i < weights.size(); i++) {
-            if (weight <= weights.get(i)) {
-                return values.get(i);
+        WeightedSampler sampler = this.sampler;
+        if (sampler == null) {
+            //a value is picked once the random weight, reduced by all previous weights, is not above its weight
+            final float[] thresholds = new float[weights.size()];
+            float sum = 0;
+            for (int i = 0; i < thresholds.length; i++) {
+                sum += weights.getFloat(i);
+                thresholds[i] = sum;
             }
-            weight -= weights.get(i);
+            sampler = new WeightedSampler(thresholds);
+            this.sampler = sampler;
         }
-        return null;
+
+        final int index = sampler.firstAtLeast(random.nextFloat() * maxWeight);
+        return index < values.size() ? values.get(index) : null;
     }
 
     /**
@@ -115,7 +128,7 @@ public class WeightedList<T> {
      * @return {@code float} weight.
      */
     public float getWeight(int index) {
-        return weights.get(index);
+        return weights.getFloat(index);
     }
 
     /**
@@ -137,7 +150,7 @@ public class WeightedList<T> {
     }
 
     /**
-     * Makes a sublist of this list with same weights. Used only in {@link WeighTree}
+     * Makes a sublist of this list with same weights.
      *
      * @param start - {@code int} start index (inclusive).
      * @param end   - {@code int} end index (exclusive).
@@ -146,7 +159,7 @@ public class WeightedList<T> {
     protected WeightedList<T> subList(int start, int end) {
         WeightedList<T> list = new WeightedList<T>();
         for (int i = start; i < end; i++) {
-            list.weights.add(weights.get(i));
+            list.weights.add(weights.getFloat(i));
             list.values.add(values.get(i));
         }
         return list;
@@ -0,0 +1,98 @@
+package org.betterx.bclib.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Immutable lookup for weighted random picks over a non-decreasing list of thresholds (usually the running sum of
+ * the weights).
+ * <p>
+ * The lookups return exactly the index a linear scan over the thresholds would return, so existing picks keep their
+ * results for the same random values. A guide table that maps a value to the first threshold that can match it makes
+ * each lookup look at an (expected) constant number of thresholds without allocating.
+ */
+public final class WeightedSampler {
+    private final float[] thresholds;
+    private final int[] guide;
+    private final float scale;
+
+    /**
+     * @param thresholds The thresholds, the array is copied
+     */
+    public WeightedSampler(float[] thresholds) {
+        this.thresholds = Arrays.copyOf(thresholds, thresholds.length);
+        final float max = this.thresholds.length == 0 ? 0 : this.thresholds[this.thresholds.length - 1];
+
+        boolean sorted = max > 0;
+        for (int i = 1; i < this.thresholds.length && sorted; i++) {
+            sorted = this.thresholds[i - 1] <= this.thresholds[i];
+        }
+
+        if (!sorted) {
+            //negative weights or an empty list, lookups scan from the start
+            this.scale = 0;
+            this.guide = new int[]{0};
+        } else {
+            final int buckets = this.thresholds.length;
+            this.scale = buckets / max;
+            this.guide = new int[buckets];
+            int index = 0;
+            for (int b = 0; b < buckets; b++) {
+                while (index < this.thresholds.length && bucket(this.thresholds[index]) < b) index++;
+                guide[b] = index;
+            }
+        }
+    }
+
+    /**
+     * Creates a sampler whose thresholds are the running sum of the weights, accumulated in order.
+     */
+    public static <T> WeightedSampler ofWeights(List<T> values, ToDoubleFunction<T> weight) {
+        final float[] thresholds = new float[values.size()];
+        float sum = 0;
+        for (int i = 0; i < thresholds.length; i++) {
+            sum += (float) weight.applyAsDouble(values.get(i));
+            thresholds[i] = sum;
+        }
+        return new WeightedSampler(thresholds);
+    }
+
+    private int bucket(float value) {
+        final int bucket = (int) (value * scale);
+        if (bucket < 0) return 0;
+        return Math.min(bucket, guide.length - 1);
+    }
+
+    /**
+     * @return The number of thresholds
+     */
+    public int size() {
+        return thresholds.length;
+    }
+
+    /**
+     * @return The last threshold, which is the sum of all weights for samplers created by {@link #ofWeights}
+     */
+    public float total() {
+        return thresholds.length == 0 ? 0 : thresholds[thresholds.length - 1];
+    }
+
+    /**
+     * @return The first index with {@code value < threshold} or {@link #size()} if there is none
+     */
+    public int firstAbove(float value) {
+        int i = guide[bucket(value)];
+        while (i < thresholds.length && !(value < thresholds[i])) i++;
+        return i;
+    }
+
+    /**
+     * @return The first index with {@code value <= threshold} or {@link #size()} if there is none
+     */
+    public int firstAtLeast(float value) {
+        int i = guide[bucket(value)];
+        while (i < thresholds.length && !(value <= thresholds[i])) i++;
+        return i;
+    }
+}
@@ -22,7 +22,7 @@ import net.minecraft.world.level.biome.Biome;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 
 import java.util.*;
 import java.util.function.BiConsumer;
@@ -89,6 +89,14 @@ public class TagRegistry<T> {
         public final boolean contains(TagKey<T> tagID, T element) {
             return super.contains(tagID, element);
         }
+
+        public final void addAll(TagKey<T> tagID, Iterable<? extends T> elements) {
+            super.addAll(tagID, elements);
+        }
+
+        public final boolean containsAny(T element, Iterable<TagKey<T>> tagIDs) {
+            return super.containsAny(element, tagIDs);
+        }
     }
 
     public static class Biomes extends Simple<Biome> {
@@ -113,21 +121,9 @@ public class TagRegistry<T> {
         void add(TagKey<Biome> tagID, boolean optional, ResourceKey<Biome>... elements) {
             if (isFrozen) WorldsTogether.LOGGER.warning("Adding Tag " + tagID + " after the API was frozen.");
             synchronized (this) {
-                Set<TagEntry> set = getSetForTag(tagID);
+                EntrySet set = getEntries(tagID);
                 for (ResourceKey<Biome> element : elements) {
-                    ResourceLocation id = element.location();
-
-                    //only add if the set doesn't already contain the element
-                    for (TagEntry tagEntry : set) {
-                        if (!tagEntry.elementOrTag().tag() && tagEntry.elementOrTag().id().equals(id)) {
-                            id = null;
-                            break;
-                        }
-                    }
-
-                    if (id != null) {
-                        set.add(optional ? TagEntry.optionalElement(id) : TagEntry.element(id));
-                    }
+                    set.addElement(element.location(), optional);
                 }
             }
         }
@@ -179,7 +175,7 @@ public class TagRegistry<T> {
     }
 
     public final String directory;
-    private final Map<TagKey<T>, Set<TagEntry>> tags = Maps.newConcurrentMap();
+    private final Map<TagKey<T>, EntrySet> tags = Maps.newConcurrentMap();
     public final ResourceKey<? extends Registry<T>> registryKey;
     private final Function<T, ResourceLocation> locationProvider;
 
@@ -199,10 +195,14 @@ public class TagRegistry<T> {
 
 
     public Set<TagEntry> getSetForTag(TagKey<T> tag) {
+        return getEntries(tag);
+    }
+
+    private EntrySet getEntries(TagKey<T> tag) {
         if (tag == null) {
-            return new HashSet<>();
+            return new EntrySet();
         }
-        return tags.computeIfAbsent(tag, k -> Sets.newHashSet());
+        return tags.computeIfAbsent(tag, k -> new EntrySet());
     }
 
     /**
@@ -273,10 +273,10 @@ public class TagRegistry<T> {
 
     void addOtherTags(TagKey<T> tagID, boolean optional, TagKey<T>... tags) {
         if (isFrozen) WorldsTogether.LOGGER.warning("Adding Tag " + tagID + " after the API was frozen.");
-        Set<TagEntry> set = getSetForTag(tagID);
+        EntrySet set = getEntries(tagID);
         for (TagKey<T> tag : tags) {
             ResourceLocation id = tag.location();
-            if (id != null) {
+            if (id != null && !set.containsTag(id)) {
                 set.add(optional ? TagEntry.optionalTag(id) : TagEntry.tag(id));
             }
         }
@@ -297,34 +297,45 @@ public class TagRegistry<T> {
     }
 
     protected void add(TagKey<T> tagID, boolean optional, T... elements) {
-        if (isFrozen) WorldsTogether.LOGGER.warning("Adding Tag " + tagID + " after the API was frozen.");
-        Set<TagEntry> set = getSetForTag(tagID);
-        for (T element : elements) {
-            ResourceLocation id = locationProvider.apply(element);
+        addAll(tagID, optional, Arrays.asList(elements));
+    }
 
-            //only add if the set doesn't already contain the element
-            for (TagEntry tagEntry : set) {
-                if (!tagEntry.elementOrTag().tag() && tagEntry.elementOrTag().id().equals(id)) {
-                    id = null;
-                    break;
-                }
-            }
+    /**
+     * Adds multiple Elements to one Tag.
+     *
+     * @param tagID    {@link TagKey} tag ID.
+     * @param elements Elements to add into tag.
+     */
+    protected void addAll(TagKey<T> tagID, Iterable<? extends T> elements) {
+        addAll(tagID, false, elements);
+    }
 
-            if (id != null) {
-                set.add(optional ? TagEntry.optionalElement(id) : TagEntry.element(id));
-            }
+    private void addAll(TagKey<T> tagID, boolean optional, Iterable<? extends T> elements) {
+        if (isFrozen) WorldsTogether.LOGGER.warning("Adding Tag " + tagID + " after the API was frozen.");
+        EntrySet set = getEntries(tagID);
+        for (T element : elements) {
+            set.addElement(locationProvider.apply(element), optional);
         }
     }
 
     protected boolean contains(TagKey<T> tagID, T element) {
-        final Set<TagEntry> set = getSetForTag(tagID);
+        final EntrySet set = getEntries(tagID);
         final ResourceLocation id = locationProvider.apply(element);
-        if (id != null) {
-            for (var entry : set)
-                if (!entry.elementOrTag().tag()) {
-                    if (id.equals(entry.elementOrTag().id()))
-                        return true;
-                }
+        return id != null && set.containsElement(id);
+    }
+
+    /**
+     * Checks if the Element was added to at least one of the Tags.
+     *
+     * @param element The Element to look for.
+     * @param tagIDs  {@link TagKey} tag IDs to check.
+     * @return {@code true} if any of the tags contains the element.
+     */
+    protected boolean containsAny(T element, Iterable<TagKey<T>> tagIDs) {
+        final ResourceLocation id = locationProvider.apply(element);
+        for (TagKey<T> tagID : tagIDs) {
+            final EntrySet set = getEntries(tagID);
+            if (id != null && set.containsElement(id)) return true;
         }
         return false;
     }
@@ -407,4 +418,95 @@ public class TagRegistry<T> {
         ids.forEach(value -> builder.add(new TagLoader.EntryWithSource(value, WorldsTogether.MOD_ID)));
         return builder;
     }
+
+    /**
+     * The entries of a tag. Keeps an index of the element and tag ids, so duplicate checks do not have to scan all
+     * entries. {@link TagEntry} has no value equality, entries that share an id are counted.
+     */
+    private static final class EntrySet extends AbstractSet<TagEntry> {
+        private final Set<TagEntry> entries = new HashSet<>();
+        private final Object2IntOpenHashMap<ResourceLocation> elementIds = new Object2IntOpenHashMap<>();
+        private final Object2IntOpenHashMap<ResourceLocation> tagIds = new Object2IntOpenHashMap<>();
+
+        boolean containsElement(ResourceLocation id) {
+            return elementIds.containsKey(id);
+        }
+
+        boolean containsTag(ResourceLocation id) {
+            return tagIds.containsKey(id);
+        }
+
+        /**
+         * Adds an element entry unless the set already contains an element with the same id.
+         */
+        void addElement(ResourceLocation id, boolean optional) {
+            if (id != null && !containsElement(id)) {
+                add(optional ? TagEntry.optionalElement(id) : TagEntry.element(id));
+            }
+        }
+
+        private void index(TagEntry entry, int delta) {
+            final ExtraCodecs.TagOrElementLocation t = entry.elementOrTag();
+            final Object2IntOpenHashMap<ResourceLocation> ids = t.tag() ? tagIds : elementIds;
+            final int count = ids.getInt(t.id()) + delta;
+            if (count > 0) ids.put(t.id(), count);
+            else ids.removeInt(t.id());
+        }
+
+        @Override
+        public boolean add(TagEntry entry) {
+            if (!entries.add(entry)) return false;
+            index(entry, 1);
+            return true;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!entries.remove(o)) return false;
+            index((TagEntry) o, -1);
+            return true;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return entries.contains(o);
+        }
+
+        @Override
+        public void clear() {
+            entries.clear();
+            elementIds.clear();
+            tagIds.clear();
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public Iterator<TagEntry> iterator() {
+            final Iterator<TagEntry> it = entries.iterator();
+            return new Iterator<>() {
+                private TagEntry last;
+
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public TagEntry next() {
+                    last = it.next();
+                    return last;
+                }
+
+                @Override
+                public void remove() {
+                    it.remove();
+                    index(last, -1);
+                }
+            };
+        }
+    }
 }
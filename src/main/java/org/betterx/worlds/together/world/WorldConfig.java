@@ -42,6 +42,10 @@ public class WorldConfig {
         WorldConfig.dataDir = dataDir;
     }
 
+    public static File getDataDir() {
+        return dataDir;
+    }
+
     public static void load(File dataDir) {
         WorldConfig.setDataDir(dataDir);
         MODS.stream()